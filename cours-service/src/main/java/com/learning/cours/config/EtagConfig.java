@@ -0,0 +1,24 @@
+package com.learning.cours.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+@Configuration
+public class EtagConfig {
+
+    /**
+     * Content-hash ETags for the course list endpoints, so unchanged pages are answered
+     * with 304 and no body. Single courses set version ETags in CourseController, and
+     * the streaming import/export endpoints are left out so they are never buffered.
+     */
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> courseListEtagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/api/courses", "/api/courses/search", "/api/courses/suggest",
+                "/api/courses/facets");
+        return registration;
+    }
+}
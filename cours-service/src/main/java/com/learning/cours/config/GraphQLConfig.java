@@ -0,0 +1,15 @@
+package com.learning.cours.config;
+
+import com.learning.cours.graphql.PersistedQueryDocumentProvider;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class GraphQLConfig {
+
+    @Bean
+    public GraphQlSourceBuilderCustomizer persistedQueryCustomizer(PersistedQueryDocumentProvider documentProvider) {
+        return builder -> builder.configureGraphQl(graphQL -> graphQL.preparsedDocumentProvider(documentProvider));
+    }
+}
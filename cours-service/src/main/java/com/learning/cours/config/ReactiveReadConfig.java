@@ -0,0 +1,74 @@
+package com.learning.cours.config;
+
+import com.learning.cours.controller.ReactiveCourseController;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.Set;
+
+/**
+ * Opt-in reactive read mode. Course reads run on the reactive Mongo driver and
+ * Firestore futures, and return Mono/Flux, which Spring MVC serves with async
+ * requests: no servlet thread is held while a datastore call is in flight. Writes
+ * stay on the blocking path.
+ */
+@Configuration
+@ConditionalOnProperty(name = "course-read.reactive.enabled", havingValue = "true")
+public class ReactiveReadConfig {
+
+    @Bean(destroyMethod = "close")
+    public MongoClient reactiveMongoClient(MongoProperties properties) {
+        return MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(properties.determineUri()))
+                .build());
+    }
+
+    // Shares the blocking template's converter, so documents map exactly the same way
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(MongoClient reactiveMongoClient, MongoProperties properties,
+                                                       MappingMongoConverter mappingMongoConverter) {
+        return new ReactiveMongoTemplate(
+                new SimpleReactiveMongoDatabaseFactory(reactiveMongoClient, properties.getMongoClientDatabase()),
+                mappingMongoConverter);
+    }
+
+    /**
+     * Maps {@link ReactiveCourseController} ahead of the annotated controllers. A
+     * request it has no handler for falls through to CourseController.
+     */
+    @Bean
+    public RequestMappingHandlerMapping reactiveCourseHandlerMapping(
+            @Qualifier("mvcContentNegotiationManager") ContentNegotiationManager contentNegotiationManager) {
+        RequestMappingHandlerMapping mapping = new RequestMappingHandlerMapping() {
+            @Override
+            protected boolean isHandler(Class<?> beanType) {
+                return ReactiveCourseController.class.isAssignableFrom(beanType);
+            }
+
+            // Partial matches (other methods, other parameters) are CourseController's to answer
+            @Override
+            protected HandlerMethod handleNoMatch(Set<RequestMappingInfo> infos, String lookupPath,
+                                                  HttpServletRequest request) {
+                return null;
+            }
+        };
+        mapping.setOrder(-1);
+        mapping.setContentNegotiationManager(contentNegotiationManager);
+        return mapping;
+    }
+}
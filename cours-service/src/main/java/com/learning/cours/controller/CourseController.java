@@ -1,17 +1,43 @@
 package com.learning.cours.controller;
 
+import com.learning.cours.dto.CourseBatchRequestDTO;
 import com.learning.cours.dto.CourseDTO;
+import com.learning.cours.dto.CourseFilter;
+import com.learning.cours.dto.CourseLookupDTO;
+import com.learning.cours.dto.CourseSummaryDTO;
+import com.learning.cours.dto.FacetedCoursesDTO;
+import com.learning.cours.dto.SuggestionDTO;
+import com.learning.cours.exception.BadRequestException;
+import com.learning.cours.exception.PreconditionFailedException;
+import com.learning.cours.repository.CourseVersion;
+import com.learning.cours.repository.MongoIndexCatalog;
+import com.learning.cours.service.CourseExportService;
+import com.learning.cours.service.CourseImportService;
+import com.learning.cours.service.CourseResponseCache;
+import com.learning.cours.service.CourseResponseCache.SerializedResponse;
 import com.learning.cours.service.CourseService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/courses")
@@ -19,50 +45,194 @@ import org.springframework.web.bind.annotation.*;
 @CrossOrigin(origins = "*")
 public class CourseController {
     
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    // Read from the course_popularity index; every signal reorders it, so its pages are not cached
+    static final String POPULARITY = "popularity";
+    static final int MAX_PAGE_SIZE = 100;
+    private static final String GZIP_ETAG_SUFFIX = "-gzip";
+
     private final CourseService courseService;
+    private final CourseImportService courseImportService;
+    private final CourseExportService courseExportService;
+    private final CourseResponseCache courseResponseCache;
 
+    /**
+     * Offset pages with an exact total by default. {@code count=none} or
+     * {@code count=estimated} returns a slice without running a count, and
+     * {@code after} (empty for the first page) switches to keyset pages ordered by
+     * createdAt or popularity, which stay fast at any depth. Popularity pages of every
+     * kind come from the popularity index.
+     */
     @GetMapping
-    public ResponseEntity<Page<CourseDTO>> getAllCourses(
+    public ResponseEntity<?> getAllCourses(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
-        
-        Sort sort = sortDir.equalsIgnoreCase("ASC") 
-                ? Sort.by(sortBy).ascending() 
-                : Sort.by(sortBy).descending();
-        
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<CourseDTO> courses = courseService.getAllCourses(pageable);
-        return ResponseEntity.ok(courses);
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "exact") String count,
+            @RequestHeader HttpHeaders headers,
+            HttpServletRequest request) {
+
+        Sort.Direction direction = direction(sortDir);
+        // Keyset pages and slices are capped like facet pages
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        if (after != null) {
+            if (sortBy.equals(POPULARITY)) {
+                return ResponseEntity.ok(courseService.getCoursesByPopularity(after, limit, direction));
+            }
+            if (!sortBy.equals("createdAt")) {
+                throw new BadRequestException(
+                        "Cursor pagination is only available when sorting by createdAt or popularity");
+            }
+            return ResponseEntity.ok(courseService.getCoursesAfter(after, limit, direction));
+        }
+
+        Sort sort = sort(sortBy, direction);
+        boolean byPopularity = sortBy.equals(POPULARITY);
+        switch (count.toLowerCase()) {
+            case "exact":
+                Pageable pageable = PageRequest.of(page, size, sort);
+                if (byPopularity) {
+                    return ResponseEntity.ok(courseService.getCoursesPageByPopularity(pageable));
+                }
+                if (courseResponseCache.isEnabled()) {
+                    return cachedPage(pageable, headers, request);
+                }
+                Page<CourseDTO> courses = courseService.getAllCourses(pageable);
+                return ResponseEntity.ok(courses);
+            case "none":
+            case "estimated":
+                boolean estimate = count.equalsIgnoreCase("estimated");
+                Pageable slice = PageRequest.of(Math.max(page, 0), limit, sort);
+                return ResponseEntity.ok(byPopularity
+                        ? courseService.getCourseSliceByPopularity(slice, estimate)
+                        : courseService.getCourseSlice(slice, estimate));
+            default:
+                throw new BadRequestException("count must be one of exact, estimated, none");
+        }
     }
 
+    /**
+     * Answers If-None-Match and If-Modified-Since from the course version alone, and
+     * reads the full course only when it has changed. Unconditional requests read the
+     * full course straight away.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<CourseDTO> getCourseById(@PathVariable String id) {
-        CourseDTO course = courseService.getCourseById(id);
-        return ResponseEntity.ok(course);
+    public ResponseEntity<?> getCourseById(@PathVariable String id, @RequestHeader HttpHeaders headers) {
+        if (headers.getIfNoneMatch().isEmpty() && headers.getIfModifiedSince() < 0) {
+            return courseBody(courseService.getCourseById(id), headers);
+        }
+        CourseVersion current = courseService.getCourseVersion(id);
+        long lastModified = lastModified(current.getUpdatedAt(), current.getCreatedAt());
+        String etag = etag(current.getVersion(), lastModified);
+        if (notModified(headers, etag, lastModified)) {
+            return versioned(ResponseEntity.status(HttpStatus.NOT_MODIFIED), current.getVersion(), lastModified).build();
+        }
+        if (courseResponseCache.isEnabled()) {
+            Optional<SerializedResponse> cached = courseResponseCache.getCourse(id, current.getVersion(),
+                    current.getUpdatedAt());
+            if (cached.isPresent()) {
+                return serialized(versioned(ResponseEntity.ok(), current.getVersion(), lastModified), etag,
+                        cached.get(), headers);
+            }
+        }
+        return courseBody(courseService.getCourseById(id), headers);
+    }
+
+    private ResponseEntity<?> courseBody(CourseDTO course, HttpHeaders headers) {
+        if (!courseResponseCache.isEnabled()) {
+            return versioned(ResponseEntity.ok(), course).body(course);
+        }
+        SerializedResponse response = courseResponseCache.getCourse(course.getId(), course.getVersion(),
+                        course.getUpdatedAt())
+                .orElseGet(() -> courseResponseCache.putCourse(course));
+        return serialized(versioned(ResponseEntity.ok(), course),
+                etag(course.getVersion(), lastModified(course.getUpdatedAt(), course.getCreatedAt())), response, headers);
+    }
+
+    /**
+     * Multi-get for service-to-service lookups: results follow the request order, with
+     * {@code found: false} for unknown ids. {@code view=summary} reads and returns
+     * only the listing fields.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<CourseLookupDTO<?>>> getCoursesByIds(
+            @Valid @RequestBody CourseBatchRequestDTO request,
+            @RequestParam(defaultValue = "full") String view) {
+        if (!view.equals("full") && !view.equals("summary")) {
+            throw new BadRequestException("view must be one of full, summary");
+        }
+        return ResponseEntity.ok(courseService.getCoursesByIds(request.getIds(), view.equals("summary")));
     }
 
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'PROFESSOR')")
     public ResponseEntity<CourseDTO> createCourse(@Valid @RequestBody CourseDTO courseDTO) {
         CourseDTO createdCourse = courseService.createCourse(courseDTO);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdCourse);
+        return versioned(ResponseEntity.status(HttpStatus.CREATED), createdCourse).body(createdCourse);
+    }
+
+    /**
+     * Streams NDJSON ({@code application/x-ndjson}) or CSV ({@code text/csv}, with a
+     * header row) course records into the catalog and streams back one NDJSON result
+     * per record, then a summary line.
+     */
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    @PreAuthorize("hasAnyRole('ADMIN', 'PROFESSOR')")
+    public void importCourses(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean csv = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(TEXT_CSV);
+        response.setContentType("application/x-ndjson;charset=UTF-8");
+        courseImportService.importCourses(request.getInputStream(), csv, response.getOutputStream());
+    }
+
+    /**
+     * Streams the whole catalog as NDJSON or CSV, optionally gzipped. Resume an
+     * interrupted dump with {@code after} set to the last id received.
+     */
+    @GetMapping("/export")
+    public void exportCourses(
+            @RequestParam(defaultValue = CourseExportService.NDJSON) String format,
+            @RequestParam(defaultValue = CourseExportService.MONGO) String source,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        if (!format.equals(CourseExportService.NDJSON) && !format.equals(CourseExportService.CSV)) {
+            throw new BadRequestException("format must be one of ndjson, csv");
+        }
+        if (!source.equals(CourseExportService.MONGO) && !source.equals(CourseExportService.FIRESTORE)) {
+            throw new BadRequestException("source must be one of mongo, firestore");
+        }
+        String filename = "courses." + format + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip"
+                : format.equals(CourseExportService.CSV) ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        if (gzip) {
+            // No trailer unless the export completed, so that a cut-off dump fails to decompress
+            GZIPOutputStream output = new GZIPOutputStream(response.getOutputStream(), 64 * 1024);
+            courseExportService.export(format, source, after, output);
+            output.finish();
+        } else {
+            courseExportService.export(format, source, after, response.getOutputStream());
+        }
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'PROFESSOR')")
     public ResponseEntity<CourseDTO> updateCourse(
             @PathVariable String id,
-            @Valid @RequestBody CourseDTO courseDTO) {
-        CourseDTO updatedCourse = courseService.updateCourse(id, courseDTO);
-        return ResponseEntity.ok(updatedCourse);
+            @Valid @RequestBody CourseDTO courseDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        CourseDTO updatedCourse = courseService.updateCourse(id, courseDTO, expectedVersion(ifMatch));
+        return versioned(ResponseEntity.ok(), updatedCourse).body(updatedCourse);
     }
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Void> deleteCourse(@PathVariable String id) {
-        courseService.deleteCourse(id);
+    public ResponseEntity<Void> deleteCourse(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        courseService.deleteCourse(id, expectedVersion(ifMatch));
         return ResponseEntity.noContent().build();
     }
 
@@ -76,4 +246,153 @@ public class CourseController {
         Page<CourseDTO> courses = courseService.searchCourses(keyword, pageable);
         return ResponseEntity.ok(courses);
     }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(courseService.suggest(prefix, limit));
+    }
+
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<CourseSummaryDTO>> getRelatedCourses(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(courseService.getRelatedCourses(id, limit));
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<FacetedCoursesDTO> getFacetedCourses(
+            CourseFilter filter,
+            @RequestParam(required = false) String priceBucket,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        return ResponseEntity.ok(courseService.getFacetedCourses(filter, priceBucket, pageable));
+    }
+
+    private ResponseEntity<byte[]> cachedPage(Pageable pageable, HttpHeaders headers, HttpServletRequest request) {
+        long generation = courseResponseCache.generation();
+        SerializedResponse page = courseResponseCache.getPage(pageable, generation)
+                .orElseGet(() -> courseResponseCache.putPage(pageable, generation,
+                        courseService.getAllCourses(pageable)));
+        return serializedPage(page, headers, request);
+    }
+
+    static ResponseEntity<byte[]> serializedPage(SerializedResponse page, HttpHeaders headers,
+                                                 HttpServletRequest request) {
+        // The ETag is precomputed, so the ETag filter need not buffer and hash the body
+        ShallowEtagHeaderFilter.disableContentCaching(request);
+        if (notModified(headers, page.etag(), -1)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(page.etag()).build();
+        }
+        return serialized(ResponseEntity.ok().eTag(page.etag()), page.etag(), page, headers);
+    }
+
+    /**
+     * The gzip encoding is a different representation, so it gets its own ETag:
+     * {@code etag} with a {@code -gzip} suffix, which conditional requests accept
+     * as the identity one.
+     */
+    static ResponseEntity<byte[]> serialized(ResponseEntity.BodyBuilder builder, String etag,
+                                             SerializedResponse response, HttpHeaders headers) {
+        builder.contentType(MediaType.APPLICATION_JSON).varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (response.gzip() != null && acceptsGzip(headers)) {
+            return builder.eTag(etag.substring(0, etag.length() - 1) + GZIP_ETAG_SUFFIX + "\"")
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(response.gzip());
+        }
+        return builder.body(response.json());
+    }
+
+    // The identity ETag of a tag, which may be the one of the gzip encoding
+    private static String identityEtag(String tag) {
+        String opaque = tag.replaceFirst("^W/", "");
+        return opaque.endsWith(GZIP_ETAG_SUFFIX + "\"")
+                ? opaque.substring(0, opaque.length() - GZIP_ETAG_SUFFIX.length() - 1) + "\""
+                : opaque;
+    }
+
+    private static boolean acceptsGzip(HttpHeaders headers) {
+        for (String value : headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                    return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+
+    static Sort.Direction direction(String sortDir) {
+        return sortDir.equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
+    }
+
+    static Sort sort(String sortBy, Sort.Direction direction) {
+        if (!MongoIndexCatalog.COURSE_SORT_FIELDS.contains(sortBy)) {
+            throw new BadRequestException("sortBy must be one of " + MongoIndexCatalog.COURSE_SORT_FIELDS);
+        }
+        // id breaks createdAt and popularity ties so that pages and cursors agree on one order
+        return sortBy.equals("createdAt") || sortBy.equals(POPULARITY)
+                ? Sort.by(direction, sortBy, "id")
+                : Sort.by(direction, sortBy);
+    }
+
+    /**
+     * The version, which If-Match checks, and the modification time, which also moves
+     * when a category or professor snapshot is refreshed without a new version.
+     */
+    static String etag(Long version, long lastModified) {
+        return "\"" + (version != null ? version : 0) + (lastModified >= 0 ? "." + lastModified : "") + "\"";
+    }
+
+    static long lastModified(LocalDateTime updatedAt, LocalDateTime createdAt) {
+        LocalDateTime modified = updatedAt != null ? updatedAt : createdAt;
+        return modified != null ? modified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+
+    static ResponseEntity.BodyBuilder versioned(ResponseEntity.BodyBuilder builder, CourseDTO course) {
+        return versioned(builder, course.getVersion(), lastModified(course.getUpdatedAt(), course.getCreatedAt()));
+    }
+
+    static ResponseEntity.BodyBuilder versioned(ResponseEntity.BodyBuilder builder, Long version,
+                                                long lastModified) {
+        builder.eTag(etag(version, lastModified));
+        if (lastModified >= 0) {
+            builder.lastModified(lastModified);
+        }
+        return builder;
+    }
+
+    // If-None-Match uses the weak comparison and takes precedence over If-Modified-Since
+    static boolean notModified(HttpHeaders headers, String etag, long lastModified) {
+        List<String> ifNoneMatch = headers.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            return ifNoneMatch.stream().anyMatch(tag -> tag.equals("*") || identityEtag(tag).equals(etag));
+        }
+        long ifModifiedSince = headers.getIfModifiedSince();
+        return ifModifiedSince >= 0 && lastModified >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    // If-Match uses the strong comparison, so weak or unknown tags never match
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.split(",")[0].trim();
+        if (!tag.startsWith("W/")) {
+            tag = identityEtag(tag);
+        }
+        try {
+            if (!tag.startsWith("\"") || !tag.endsWith("\"") || tag.length() < 3) {
+                throw new NumberFormatException(tag);
+            }
+            String value = tag.substring(1, tag.length() - 1);
+            int dot = value.indexOf('.');
+            return Long.parseLong(dot >= 0 ? value.substring(0, dot) : value);
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match does not match the current course version: " + ifMatch);
+        }
+    }
 }
@@ -0,0 +1,64 @@
+package com.learning.cours.controller;
+
+import com.learning.cours.entity.Course;
+import com.learning.cours.service.CourseCursor;
+import com.learning.cours.service.CourseService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.rest.webmvc.PersistentEntityResource;
+import org.springframework.data.rest.webmvc.PersistentEntityResourceAssembler;
+import org.springframework.data.rest.webmvc.RepositoryRestController;
+import org.springframework.data.rest.webmvc.RepositorySearchesResource;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.server.RepresentationModelProcessor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+
+/**
+ * Keyset pages for the Spring Data REST course resource, next to the generated
+ * {@code /api/data/courses/search/slice} which pages without a count.
+ */
+@RepositoryRestController
+@RequiredArgsConstructor
+public class CourseDataRestController implements RepresentationModelProcessor<RepositorySearchesResource> {
+
+    private final CourseService courseService;
+
+    @GetMapping("/courses/search/keyset")
+    public ResponseEntity<CollectionModel<PersistentEntityResource>> keyset(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            PersistentEntityResourceAssembler assembler) {
+        Sort.Direction direction = sortDir.equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
+        int limit = Math.min(Math.max(size, 1), CourseController.MAX_PAGE_SIZE);
+        Window<Course> window = courseService.scrollCourses(after, limit, direction);
+
+        List<PersistentEntityResource> courses = window.getContent().stream().map(assembler::toModel).toList();
+        CollectionModel<PersistentEntityResource> model = CollectionModel.of(courses);
+        model.add(Link.of(ServletUriComponentsBuilder.fromCurrentRequest().toUriString()).withSelfRel());
+        if (window.hasNext() && !window.isEmpty()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", CourseCursor.of(window.getContent().get(window.size() - 1)))
+                    .toUriString();
+            model.add(Link.of(next, IanaLinkRelations.NEXT));
+        }
+        return ResponseEntity.ok(model);
+    }
+
+    @Override
+    public RepositorySearchesResource process(RepositorySearchesResource searches) {
+        if (Course.class.equals(searches.getDomainType())) {
+            searches.add(Link.of(ServletUriComponentsBuilder.fromCurrentRequest().path("/keyset").toUriString()
+                    + "{?after,size,sortDir}").withRel("keyset"));
+        }
+        return searches;
+    }
+}
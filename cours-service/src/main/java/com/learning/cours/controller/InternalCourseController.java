@@ -0,0 +1,30 @@
+package com.learning.cours.controller;
+
+import com.learning.cours.dto.PopularitySignalDTO;
+import com.learning.cours.service.CourseService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Endpoints for other services. Not routed by the gateway.
+ */
+@RestController
+@RequestMapping("/internal/courses")
+@RequiredArgsConstructor
+public class InternalCourseController {
+
+    private final CourseService courseService;
+
+    @PostMapping("/{id}/popularity-signals")
+    public ResponseEntity<Void> recordPopularitySignal(@PathVariable String id,
+                                                       @Valid @RequestBody PopularitySignalDTO signal) {
+        courseService.recordPopularitySignal(id, signal.getType(), signal.getCount());
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.learning.cours.controller;
+
+import com.learning.cours.entity.LessonContent;
+import com.learning.cours.exception.ResourceNotFoundException;
+import com.learning.cours.service.LessonContentStore;
+import com.learning.cours.service.LessonContentSync;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Lesson bodies, streamed from the {@link LessonContentStore} as they are inflated.
+ * A single byte range is answered with 206, so that a reader can resume or page
+ * through a long lesson; a request for several ranges gets the whole body.
+ */
+@RestController
+@RequestMapping("/api/courses/{courseId}/lessons/{lessonId}/content")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", exposedHeaders = {HttpHeaders.ETAG, HttpHeaders.ACCEPT_RANGES, HttpHeaders.CONTENT_RANGE})
+public class LessonContentController {
+
+    private final LessonContentStore lessonContentStore;
+    private final LessonContentSync lessonContentSync;
+
+    @GetMapping
+    public void getLessonContent(@PathVariable String courseId,
+                                 @PathVariable String lessonId,
+                                 @RequestHeader HttpHeaders headers,
+                                 HttpServletResponse response) throws IOException {
+        LessonContent content = lessonContentStore.findMetadata(lessonId)
+                .or(() -> {
+                    // Not migrated yet: move the inline copy first
+                    lessonContentSync.migrate(courseId, List.of(lessonId));
+                    return lessonContentStore.findMetadata(lessonId);
+                })
+                .filter(found -> courseId.equals(found.getCourseId()))
+                .orElseThrow(() -> new ResourceNotFoundException("Lesson content not found with id: " + lessonId));
+        long length = content.getLength();
+        response.setHeader(HttpHeaders.ETAG, content.getEtag());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (CourseController.notModified(headers, content.getEtag(), -1)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = requestedRange(headers, content.getEtag());
+        if (range != null) {
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                start = length;
+            }
+            if (start > end || start >= length) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        response.setContentType("text/plain;charset=UTF-8");
+        response.setContentLengthLong(end - start + 1);
+        lessonContentStore.copyRange(content, start, end, response.getOutputStream());
+    }
+
+    // Null when the whole body is sent: no Range, several or malformed ones, or an
+    // If-Range naming another version
+    private static HttpRange requestedRange(HttpHeaders headers, String etag) {
+        String ifRange = headers.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = headers.getRange();
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.learning.cours.controller;
+
+import com.learning.cours.dto.CourseDTO;
+import com.learning.cours.service.CourseResponseCache;
+import com.learning.cours.service.ReactiveCourseService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive course list, detail and search endpoints, served instead of the blocking
+ * ones when {@code course-read.reactive.enabled} is set. It is not a @Controller:
+ * only the handler mapping in ReactiveReadConfig maps it, ahead of CourseController,
+ * so cursor and count modes and ids that are not ObjectIds still reach the blocking
+ * handlers.
+ */
+@Component
+@ConditionalOnProperty(name = "course-read.reactive.enabled", havingValue = "true")
+@ResponseBody
+@RequestMapping("/api/courses")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ReactiveCourseController {
+
+    private final ReactiveCourseService reactiveCourseService;
+    private final CourseResponseCache courseResponseCache;
+
+    @GetMapping(params = {"!after", "!count", "sortBy!=" + CourseController.POPULARITY})
+    public Mono<? extends ResponseEntity<?>> getAllCourses(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestHeader HttpHeaders headers,
+            HttpServletRequest request) {
+        Sort sort = CourseController.sort(sortBy, CourseController.direction(sortDir));
+        PageRequest pageable = PageRequest.of(page, size, sort);
+        if (!courseResponseCache.isEnabled()) {
+            return reactiveCourseService.getAllCourses(pageable).map(ResponseEntity::ok);
+        }
+        long generation = courseResponseCache.generation();
+        return courseResponseCache.getPage(pageable, generation)
+                .map(Mono::just)
+                .orElseGet(() -> reactiveCourseService.getAllCourses(pageable)
+                        .map(courses -> courseResponseCache.putPage(pageable, generation, courses)))
+                .map(cached -> CourseController.serializedPage(cached, headers, request));
+    }
+
+    @GetMapping("/{id:[0-9a-fA-F]{24}}")
+    public Mono<ResponseEntity<?>> getCourseById(@PathVariable String id,
+                                                         @RequestHeader HttpHeaders headers) {
+        return reactiveCourseService.getCourseVersion(id).flatMap(current -> {
+            long lastModified = CourseController.lastModified(current.getUpdatedAt(), current.getCreatedAt());
+            String etag = CourseController.etag(current.getVersion(), lastModified);
+            if (CourseController.notModified(headers, etag, lastModified)) {
+                return Mono.just(CourseController.versioned(ResponseEntity.status(HttpStatus.NOT_MODIFIED),
+                        current.getVersion(), lastModified).build());
+            }
+            if (!courseResponseCache.isEnabled()) {
+                return reactiveCourseService.getCourseById(id)
+                        .map(course -> CourseController.versioned(ResponseEntity.ok(), course).body(course));
+            }
+            return courseResponseCache.getCourse(id, current.getVersion(), current.getUpdatedAt())
+                    .map(cached -> Mono.just(CourseController.serialized(CourseController.versioned(
+                            ResponseEntity.ok(), current.getVersion(), lastModified), etag, cached, headers)))
+                    .orElseGet(() -> reactiveCourseService.getCourseById(id)
+                            .map(course -> CourseController.serialized(
+                                    CourseController.versioned(ResponseEntity.ok(), course),
+                                    CourseController.etag(course.getVersion(), CourseController.lastModified(
+                                            course.getUpdatedAt(), course.getCreatedAt())),
+                                    courseResponseCache.putCourse(course),
+                                    headers)));
+        });
+    }
+
+    @GetMapping("/search")
+    public Mono<ResponseEntity<Page<CourseDTO>>> searchCourses(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return reactiveCourseService.searchCourses(keyword, PageRequest.of(page, size)).map(ResponseEntity::ok);
+    }
+}
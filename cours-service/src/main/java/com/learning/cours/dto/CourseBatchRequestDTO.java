@@ -0,0 +1,16 @@
+package com.learning.cours.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseBatchRequestDTO {
+    @NotEmpty(message = "ids is required")
+    private List<String> ids;
+}
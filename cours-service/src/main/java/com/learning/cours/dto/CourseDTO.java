@@ -21,5 +21,7 @@ public class CourseDTO {
     private String youtubeVideoId;
     private BigDecimal price;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Long version;
     private Integer lessonsCount;
 }
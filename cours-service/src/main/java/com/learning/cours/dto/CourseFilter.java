@@ -0,0 +1,21 @@
+package com.learning.cours.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseFilter {
+    private String categoryId;
+    private String professorId;
+    private BigDecimal priceMin;
+    private BigDecimal priceMax;
+
+    public boolean hasPriceRange() {
+        return priceMin != null || priceMax != null;
+    }
+}
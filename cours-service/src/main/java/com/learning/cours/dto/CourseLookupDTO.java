@@ -0,0 +1,15 @@
+package com.learning.cours.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseLookupDTO<T> {
+    private String id;
+    private boolean found;
+    // Null when the course was not found
+    private T course;
+}
@@ -0,0 +1,20 @@
+package com.learning.cours.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseSliceDTO {
+    private List<CourseDTO> content;
+    private int size;
+    private boolean hasNext;
+    // Pass as ?after= to continue with a keyset page
+    private String nextCursor;
+    // Only with count=estimated, read from collection metadata
+    private Long estimatedTotal;
+}
@@ -0,0 +1,20 @@
+package com.learning.cours.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseSummaryDTO {
+    private String id;
+    private String title;
+    private String categoryId;
+    private String categoryName;
+    private String professorId;
+    private String professorName;
+    private BigDecimal price;
+}
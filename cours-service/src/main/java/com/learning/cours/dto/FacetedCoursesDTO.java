@@ -0,0 +1,17 @@
+package com.learning.cours.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedCoursesDTO {
+    private Page<CourseDTO> courses;
+    private Map<String, List<FacetCountDTO>> facets;
+}
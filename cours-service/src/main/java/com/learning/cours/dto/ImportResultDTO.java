@@ -0,0 +1,16 @@
+package com.learning.cours.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDTO {
+    // Line of the record in the uploaded file
+    private long line;
+    private String status;
+    private String id;
+    private String error;
+}
@@ -0,0 +1,20 @@
+package com.learning.cours.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportSummaryDTO {
+    private long read;
+    private long created;
+    private long updated;
+    private long rejected;
+    private int batches;
+    private long elapsedMs;
+    private double recordsPerSecond;
+    // Set when the import stopped before the end of the input
+    private String error;
+}
@@ -11,6 +11,7 @@ public class LessonDTO {
     private String id;
     private String title;
     private String content;
+    private Long contentLength;
     private Integer duration;
     private String courseId;
 }
@@ -0,0 +1,20 @@
+package com.learning.cours.dto;
+
+import com.learning.cours.search.CoursePopularityIndex;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PopularitySignalDTO {
+    @NotNull(message = "Signal type is required")
+    private CoursePopularityIndex.Signal type;
+
+    // New enrollments, or views since the previous report
+    @Positive(message = "Count must be positive")
+    private long count;
+}
@@ -19,4 +19,14 @@ public class Category {
     private String name;
 
     private String description;
+
+    /**
+     * The fields a course embeds for its category.
+     */
+    public Category snapshot() {
+        Category snapshot = new Category();
+        snapshot.setId(id);
+        snapshot.setName(name);
+        return snapshot;
+    }
 }
@@ -8,8 +8,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -29,21 +31,27 @@ public class Course {
 
     private String description;
 
+    // Embedded snapshots, kept current by CourseReferenceSync
     @NotNull(message = "Category is required")
-    @DBRef
     private Category category;
 
     @NotNull(message = "Professor is required")
-    @DBRef
     private Professor professor;
 
     private String youtubeVideoId;
 
     @Positive(message = "Price must be positive")
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal price;
 
     @CreatedDate
     private LocalDateTime createdAt;
 
+    // Bumped by every write but snapshot refreshes, which move updatedAt; checked by If-Match
+    @Version
+    private Long version;
+
+    private LocalDateTime updatedAt;
+
     private List<Lesson> lessons = new ArrayList<>();
 }
@@ -0,0 +1,30 @@
+package com.learning.cours.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * The time-decayed popularity of a course, kept apart from the course so that whole
+ * course writes never touch it; only changed by CoursePopularityIndex.
+ */
+@Document(collection = "course_popularity")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoursePopularity {
+    // The course id
+    @Id
+    private String id;
+
+    private double popularity;
+
+    // Start of the decay generation the score is scaled to, in epoch milliseconds
+    private long epoch;
+
+    private Instant updatedAt;
+}
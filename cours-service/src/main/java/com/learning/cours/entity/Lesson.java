@@ -1,6 +1,7 @@
 package com.learning.cours.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
@@ -20,8 +21,14 @@ public class Lesson {
     @NotBlank(message = "Title is required")
     private String title;
 
+    // Accepted on writes only: LessonContentSync moves it to the lesson_contents collection
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String content;
 
+    // UTF-8 bytes of the stored content
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long contentLength;
+
     @Positive(message = "Duration must be positive")
     private Integer duration;
 
@@ -0,0 +1,37 @@
+package com.learning.cours.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The body of a lesson, stored under the lesson id apart from the lesson itself so
+ * that lesson listings never read it. The UTF-8 text is cut into {@code chunkSize}
+ * byte chunks that are deflated one by one, so a range only inflates the chunks it
+ * covers.
+ */
+@Document(collection = "lesson_contents")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LessonContent {
+    @Id
+    private String id;
+
+    private String courseId;
+
+    private long length;
+
+    private int chunkSize;
+
+    private String etag;
+
+    private List<byte[]> chunks;
+
+    private LocalDateTime updatedAt;
+}
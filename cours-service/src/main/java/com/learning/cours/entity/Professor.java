@@ -28,4 +28,15 @@ public class Professor {
     private String bio;
 
     private String avatarUrl;
+
+    /**
+     * The fields a course embeds for its professor.
+     */
+    public Professor snapshot() {
+        Professor snapshot = new Professor();
+        snapshot.setId(id);
+        snapshot.setFullName(fullName);
+        snapshot.setAvatarUrl(avatarUrl);
+        return snapshot;
+    }
 }
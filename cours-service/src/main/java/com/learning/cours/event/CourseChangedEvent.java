@@ -0,0 +1,10 @@
+package com.learning.cours.event;
+
+public record CourseChangedEvent(String courseId, Type type) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
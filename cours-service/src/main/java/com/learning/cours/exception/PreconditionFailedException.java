@@ -0,0 +1,7 @@
+package com.learning.cours.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
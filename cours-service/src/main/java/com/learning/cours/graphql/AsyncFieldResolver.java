@@ -0,0 +1,96 @@
+package com.learning.cours.graphql;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the batch loads behind Course sub-fields on the bounded GraphQL field executor
+ * so that independent fields load concurrently, with a timeout per field. A load still
+ * running when it times out is cancelled and its thread interrupted; {@link #track}
+ * times each field, timeouts included, without a timeout of its own.
+ */
+@Component
+public class AsyncFieldResolver {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final Scheduler scheduler;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Duration> timeouts;
+
+    public AsyncFieldResolver(MeterRegistry meterRegistry,
+                              @Value("${graphql.field-executor.core-size:8}") int coreSize,
+                              @Value("${graphql.field-executor.max-size:32}") int maxSize,
+                              @Value("${graphql.field-executor.queue-capacity:500}") int queueCapacity,
+                              @Value("${graphql.field-timeouts.category:1s}") Duration categoryTimeout,
+                              @Value("${graphql.field-timeouts.professor:1s}") Duration professorTimeout,
+                              @Value("${graphql.field-timeouts.lessons:2s}") Duration lessonsTimeout,
+                              @Value("${graphql.field-timeouts.related:2s}") Duration relatedTimeout,
+                              @Value("${graphql.field-timeouts.lesson-content:2s}") Duration lessonContentTimeout) {
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("graphql-field-");
+        // A saturated pool resolves on the calling thread instead of failing the field
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        this.scheduler = Schedulers.fromExecutorService(executor.getThreadPoolExecutor(), "graphql-field");
+        this.meterRegistry = meterRegistry;
+        this.timeouts = Map.of(
+                "Course.category", categoryTimeout,
+                "Course.professor", professorTimeout,
+                "Course.lessons", lessonsTimeout,
+                "Course.related", relatedTimeout,
+                "Lesson.content", lessonContentTimeout
+        );
+    }
+
+    /**
+     * A batch load for {@code field} on the field executor, cancelled once it outlives
+     * the field's timeout.
+     */
+    public <T> Mono<T> load(String field, Callable<T> loader) {
+        return Mono.fromCallable(loader).subscribeOn(scheduler).timeout(timeout(field));
+    }
+
+    public <T> CompletableFuture<T> track(String field, CompletableFuture<T> future) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return future.whenComplete((result, error) -> sample.stop(Timer.builder("graphql.field.duration")
+                .description("Resolution time of asynchronous GraphQL fields")
+                .tag("field", field)
+                .tag("outcome", outcome(error))
+                .register(meterRegistry)));
+    }
+
+    public Duration timeout(String field) {
+        return timeouts.getOrDefault(field, Duration.ofSeconds(2));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static String outcome(Throwable error) {
+        if (error == null) {
+            return "success";
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof TimeoutException ? "timeout" : "error";
+    }
+}
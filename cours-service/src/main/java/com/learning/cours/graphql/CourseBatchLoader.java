@@ -0,0 +1,23 @@
+package com.learning.cours.graphql;
+
+import com.learning.cours.entity.Course;
+import com.learning.cours.service.CourseReadPath;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the courses that other courses point to, such as related courses, with one
+ * multi-get per request for all of them.
+ */
+@Component
+public class CourseBatchLoader {
+
+    public static final String NAME = "coursesById";
+
+    public CourseBatchLoader(BatchLoaderRegistry registry, CourseReadPath courseReadPath,
+                             AsyncFieldResolver fieldResolver) {
+        registry.<String, Course>forName(NAME)
+                .registerMappedBatchLoader((ids, env) ->
+                        fieldResolver.load("Course.related", () -> courseReadPath.findAllById(ids, null)));
+    }
+}
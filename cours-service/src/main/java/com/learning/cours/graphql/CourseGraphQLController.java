@@ -1,68 +1,160 @@
 package com.learning.cours.graphql;
 
 import com.learning.cours.dto.CourseDTO;
+import com.learning.cours.dto.CourseFilter;
 import com.learning.cours.entity.Category;
 import com.learning.cours.entity.Course;
 import com.learning.cours.entity.Lesson;
 import com.learning.cours.entity.Professor;
+import com.learning.cours.exception.BadRequestException;
+import com.learning.cours.exception.ResourceNotFoundException;
 import com.learning.cours.repository.CourseRepository;
 import com.learning.cours.repository.FirestoreCourseRepository;
-import com.learning.cours.repository.LessonRepository;
+import com.learning.cours.search.RelatedCourseIndex;
+import com.learning.cours.service.CourseReadPath;
 import com.learning.cours.service.CourseService;
+import com.learning.cours.service.ReactiveCourseReadPath;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.dataloader.DataLoader;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.data.query.ScrollSubrange;
 import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @RequiredArgsConstructor
+@Slf4j
 public class CourseGraphQLController {
     
     private final CourseRepository courseRepository;
     private final FirestoreCourseRepository firestoreCourseRepository;
-    private final LessonRepository lessonRepository;
     private final CourseService courseService;
+    private final CourseReadPath courseReadPath;
+    private final AsyncFieldResolver fieldResolver;
+    private final RelatedCourseIndex relatedCourseIndex;
+    // Present only in the reactive read mode, where the query resolvers hold no thread while reading
+    private final ObjectProvider<ReactiveCourseReadPath> reactiveCourseReadPath;
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
 
     @QueryMapping
-    public Course course(@Argument String id) {
-        return firestoreCourseRepository.findById(id)
-                .orElse(courseRepository.findById(id)
-                        .orElseThrow(() -> new RuntimeException("Course not found")));
+    public Mono<Course> course(@Argument String id, DataFetchingFieldSelectionSet selectionSet) {
+        Set<String> fields = CourseSelection.fields(selectionSet, "");
+        ReactiveCourseReadPath reactiveReadPath = reactiveCourseReadPath.getIfAvailable();
+        Mono<Course> course = reactiveReadPath != null
+                ? reactiveReadPath.findById(id, fields)
+                : Mono.fromCallable(() -> courseReadPath.findById(id, fields)).flatMap(Mono::justOrEmpty);
+        return course.switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Course not found with id: " + id)));
     }
 
+    // Request order, with null for unknown ids
     @QueryMapping
-    public List<Course> courses() {
-        // Always try Firestore first (primary data source)
-        try {
-            List<Course> firestoreCourses = firestoreCourseRepository.findAll();
-            if (firestoreCourses != null && !firestoreCourses.isEmpty()) {
-                return firestoreCourses;
-            }
-        } catch (Exception e) {
-            // Log but continue to MongoDB fallback
-            System.err.println("Firestore query failed: " + e.getMessage());
+    public Mono<List<Course>> coursesByIds(@Argument List<String> ids, DataFetchingFieldSelectionSet selectionSet) {
+        if (ids.size() > CourseService.MAX_BATCH_IDS) {
+            throw new BadRequestException("At most " + CourseService.MAX_BATCH_IDS + " ids can be requested at once");
         }
-        // Fallback to MongoDB if Firestore is empty or fails
-        return courseRepository.findAll();
+        Set<String> fields = CourseSelection.fields(selectionSet, "");
+        ReactiveCourseReadPath reactiveReadPath = reactiveCourseReadPath.getIfAvailable();
+        Mono<Map<String, Course>> courses = reactiveReadPath != null
+                ? reactiveReadPath.findAllById(new LinkedHashSet<>(ids), fields)
+                : Mono.fromCallable(() -> courseReadPath.findAllById(new LinkedHashSet<>(ids), fields));
+        return courses.map(found -> ids.stream().map(found::get).toList());
+    }
+
+    @QueryMapping
+    public Mono<Window<Course>> courses(ScrollSubrange subrange, @Argument CourseFilter filter,
+                                        DataFetchingFieldSelectionSet selectionSet) {
+        int limit = Math.min(Math.max(subrange.count().orElse(DEFAULT_PAGE_SIZE), 1), MAX_PAGE_SIZE);
+        KeysetScrollPosition after = subrange.position()
+                .filter(KeysetScrollPosition.class::isInstance)
+                .map(KeysetScrollPosition.class::cast)
+                .orElse(null);
+        Set<String> fields = CourseSelection.fields(selectionSet, "edges/node/");
+
+        ReactiveCourseReadPath reactiveReadPath = reactiveCourseReadPath.getIfAvailable();
+        if (reactiveReadPath != null) {
+            return reactiveReadPath.findPage(filter, after, limit, fields);
+        }
+        return Mono.fromCallable(() -> {
+            // A listing stays on the source of its first page, since the two need not agree on ids or order
+            if (FirestoreCourseRepository.issued(after)) {
+                return firestoreCourseRepository.findPage(filter, after, limit, fields);
+            }
+            if (after == null) {
+                // Firestore first (primary data source), Mongo when it is empty or fails
+                try {
+                    Window<Course> firestoreCourses = firestoreCourseRepository.findPage(filter, null, limit, fields);
+                    if (!firestoreCourses.isEmpty()) {
+                        return firestoreCourses;
+                    }
+                } catch (Exception e) {
+                    log.warn("Firestore course page failed, reading Mongo: {}", e.getMessage());
+                }
+            }
+            return courseRepository.findPage(filter, after, limit, fields);
+        });
     }
 
     @SchemaMapping(typeName = "Course", field = "category")
-    public Category category(Course course) {
-        return course.getCategory();
+    public CompletableFuture<Category> category(Course course, DataFetchingEnvironment env) {
+        Category category = course.getCategory();
+        // Courses embed only the id and name of their category
+        if (category == null || (category.getName() != null && !env.getSelectionSet().contains("description"))) {
+            return CompletableFuture.completedFuture(category);
+        }
+        DataLoader<String, Category> categoriesLoader = env.getDataLoader(ReferenceBatchLoader.CATEGORIES);
+        return fieldResolver.track("Course.category", categoriesLoader.load(category.getId()));
     }
 
     @SchemaMapping(typeName = "Course", field = "professor")
-    public Professor professor(Course course) {
-        return course.getProfessor();
+    public CompletableFuture<Professor> professor(Course course, DataFetchingEnvironment env) {
+        Professor professor = course.getProfessor();
+        // Courses embed only the id, fullName and avatarUrl of their professor
+        if (professor == null || (professor.getFullName() != null
+                && !env.getSelectionSet().containsAnyOf("email", "bio"))) {
+            return CompletableFuture.completedFuture(professor);
+        }
+        DataLoader<String, Professor> professorsLoader = env.getDataLoader(ReferenceBatchLoader.PROFESSORS);
+        return fieldResolver.track("Course.professor", professorsLoader.load(professor.getId()));
     }
 
     @SchemaMapping(typeName = "Course", field = "lessons")
-    public List<Lesson> lessons(Course course) {
-        return lessonRepository.findByCourseId(course.getId());
+    public CompletableFuture<List<Lesson>> lessons(Course course, DataFetchingEnvironment env) {
+        DataLoader<String, List<Lesson>> lessonsLoader = env.getDataLoader(LessonBatchLoader.NAME);
+        return fieldResolver.track("Course.lessons", lessonsLoader.load(course.getId()));
+    }
+
+    // Lessons are listed without their content, which is only read when selected
+    @SchemaMapping(typeName = "Lesson", field = "content")
+    public CompletableFuture<String> content(Lesson lesson, DataFetchingEnvironment env) {
+        DataLoader<String, String> contentsLoader = env.getDataLoader(LessonContentBatchLoader.NAME);
+        return fieldResolver.track("Lesson.content", contentsLoader.load(lesson.getId()));
+    }
+
+    // Empty until the related courses table is first built
+    @SchemaMapping(typeName = "Course", field = "related")
+    public CompletableFuture<List<Course>> related(Course course, @Argument int limit, DataFetchingEnvironment env) {
+        List<String> ids = relatedCourseIndex.related(course.getId(), limit);
+        DataLoader<String, Course> coursesLoader = env.getDataLoader(CourseBatchLoader.NAME);
+        return fieldResolver.track("Course.related", coursesLoader.loadMany(ids)
+                .thenApply(courses -> courses.stream().filter(Objects::nonNull).toList()));
     }
 
     @SchemaMapping(typeName = "Course", field = "createdAt")
@@ -0,0 +1,23 @@
+package com.learning.cours.graphql;
+
+import graphql.schema.DataFetchingFieldSelectionSet;
+import graphql.schema.SelectedField;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads which Course fields a query selected, so repositories can project only
+ * those fields and skip category/professor resolution when they are not needed.
+ */
+final class CourseSelection {
+
+    private CourseSelection() {
+    }
+
+    static Set<String> fields(DataFetchingFieldSelectionSet selectionSet, String coursePath) {
+        return selectionSet.getFields(coursePath + "*").stream()
+                .map(SelectedField::getName)
+                .collect(Collectors.toSet());
+    }
+}
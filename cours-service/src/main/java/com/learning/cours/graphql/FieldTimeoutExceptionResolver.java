@@ -0,0 +1,33 @@
+package com.learning.cours.graphql;
+
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLNamedType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+@Component
+@RequiredArgsConstructor
+public class FieldTimeoutExceptionResolver extends DataFetcherExceptionResolverAdapter {
+
+    private final AsyncFieldResolver fieldResolver;
+
+    @Override
+    protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment env) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (!(cause instanceof TimeoutException)) {
+            return null;
+        }
+        String field = ((GraphQLNamedType) env.getParentType()).getName() + "." + env.getField().getName();
+        return GraphqlErrorBuilder.newError(env)
+                .errorType(ErrorType.INTERNAL_ERROR)
+                .message(field + " did not resolve within " + fieldResolver.timeout(field).toMillis() + " ms")
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.learning.cours.graphql;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.persisted.PersistedQueryCache;
+import graphql.execution.preparsed.persisted.PersistedQueryCacheMiss;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.language.OperationDefinition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bounded cache of parsed and validated GraphQL documents keyed by the SHA-256 hash
+ * of the query text, shared by automatic persisted queries and plain queries.
+ */
+@Component
+public class GraphQLDocumentCache implements PersistedQueryCache {
+
+    private final Cache<Object, PreparsedDocumentEntry> documents;
+
+    public GraphQLDocumentCache(@Value("${graphql.document-cache.max-size:1000}") long maxSize) {
+        this.documents = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getPersistedQueryDocumentAsync(Object persistedQueryId,
+                                                                                   ExecutionInput executionInput,
+                                                                                   PersistedQueryCacheMiss onCacheMiss) {
+        PreparsedDocumentEntry entry = documents.getIfPresent(persistedQueryId);
+        if (entry == null) {
+            String query = executionInput.getQuery();
+            if (PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(query)) {
+                throw new PersistedQueryNotFound(persistedQueryId);
+            }
+            entry = onCacheMiss.apply(query);
+            documents.put(persistedQueryId, entry);
+        }
+        return CompletableFuture.completedFuture(entry);
+    }
+
+    // Still abstract, and still what PersistedQuerySupport calls, in graphql-java 21
+    @Override
+    @Deprecated
+    public PreparsedDocumentEntry getPersistedQueryDocument(Object persistedQueryId, ExecutionInput executionInput,
+                                                            PersistedQueryCacheMiss onCacheMiss) {
+        return getPersistedQueryDocumentAsync(persistedQueryId, executionInput, onCacheMiss).join();
+    }
+
+    public boolean isQuery(String hash, String operationName) {
+        PreparsedDocumentEntry entry = documents.getIfPresent(hash);
+        if (entry == null || entry.hasErrors()) {
+            return false;
+        }
+        return entry.getDocument().getDefinitionsOfType(OperationDefinition.class).stream()
+                .filter(operation -> operationName == null || operationName.equals(operation.getName()))
+                .findFirst()
+                .map(operation -> operation.getOperation() == OperationDefinition.Operation.QUERY)
+                .orElse(false);
+    }
+
+    public static String hashOf(String query, Map<String, Object> extensions) {
+        return persistedQueryHash(extensions).orElseGet(() -> sha256(query));
+    }
+
+    public static Optional<String> persistedQueryHash(Object extensions) {
+        if (extensions instanceof Map<?, ?> map && map.get("persistedQuery") instanceof Map<?, ?> persistedQuery) {
+            Object hash = persistedQuery.get("sha256Hash");
+            return hash != null ? Optional.of(hash.toString()) : Optional.empty();
+        }
+        return Optional.empty();
+    }
+
+    public static String sha256(String query) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(query.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.learning.cours.graphql;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.learning.cours.event.CourseChangedEvent;
+import graphql.ExecutionResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.support.DefaultExecutionGraphQlResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Optional cache of successful results of read-only operations, keyed by query hash,
+ * operation name and variables. Every write to a collection GraphQL reads clears it,
+ * whether it comes from a service, a bulk update announced as a course change, or
+ * Data REST.
+ */
+@Component
+@Slf4j
+public class GraphQLResultCache implements WebGraphQlInterceptor {
+
+    private static final Set<String> READ_COLLECTIONS =
+            Set.of("courses", "lessons", "lesson_contents", "categories", "professors");
+
+    private final GraphQLDocumentCache documentCache;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Cache<String, ExecutionResult> results;
+
+    public GraphQLResultCache(GraphQLDocumentCache documentCache,
+                              ObjectMapper objectMapper,
+                              @Value("${graphql.result-cache.enabled:false}") boolean enabled,
+                              @Value("${graphql.result-cache.max-size:500}") long maxSize,
+                              @Value("${graphql.result-cache.ttl:30s}") Duration ttl) {
+        this.documentCache = documentCache;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        if (!enabled) {
+            return chain.next(request);
+        }
+        String hash = GraphQLDocumentCache.hashOf(request.getDocument(), request.getExtensions());
+        if (!documentCache.isQuery(hash, request.getOperationName())) {
+            return chain.next(request);
+        }
+
+        String key;
+        try {
+            key = hash + ":" + request.getOperationName() + ":" + objectMapper.writeValueAsString(request.getVariables());
+        } catch (JsonProcessingException e) {
+            return chain.next(request);
+        }
+
+        ExecutionResult cached = results.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(new WebGraphQlResponse(
+                    new DefaultExecutionGraphQlResponse(request.toExecutionInput(), cached)));
+        }
+        return chain.next(request).doOnNext(response -> {
+            if (response.isValid() && response.getErrors().isEmpty()) {
+                results.put(key, response.getExecutionResult());
+            }
+        });
+    }
+
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        log.debug("Clearing GraphQL result cache after course {} was {}", event.courseId(), event.type());
+        results.invalidateAll();
+    }
+
+    @EventListener
+    public void onAfterSave(AfterSaveEvent<?> event) {
+        invalidate(event.getCollectionName());
+    }
+
+    @EventListener
+    public void onAfterDelete(AfterDeleteEvent<?> event) {
+        invalidate(event.getCollectionName());
+    }
+
+    private void invalidate(String collection) {
+        if (READ_COLLECTIONS.contains(collection)) {
+            log.debug("Clearing GraphQL result cache after a write to {}", collection);
+            results.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.learning.cours.graphql;
+
+import com.learning.cours.entity.Lesson;
+import com.learning.cours.repository.LessonRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads the lessons of every course in a GraphQL selection with a single
+ * {@code courseId $in} query. The DataLoader is created per request, so a course
+ * that appears several times in one response is only looked up once.
+ */
+@Component
+@Slf4j
+public class LessonBatchLoader {
+
+    public static final String NAME = "lessonsByCourseId";
+
+    private final LessonRepository lessonRepository;
+
+    public LessonBatchLoader(BatchLoaderRegistry registry, LessonRepository lessonRepository,
+                             AsyncFieldResolver fieldResolver) {
+        this.lessonRepository = lessonRepository;
+        registry.<String, List<Lesson>>forName(NAME)
+                .registerMappedBatchLoader((courseIds, env) -> fieldResolver.load("Course.lessons", () -> load(courseIds)));
+    }
+
+    Map<String, List<Lesson>> load(Set<String> courseIds) {
+        log.debug("Loading lessons for {} courses", courseIds.size());
+        Map<String, List<Lesson>> lessonsByCourse = new HashMap<>();
+        courseIds.forEach(courseId -> lessonsByCourse.put(courseId, new ArrayList<>()));
+        for (Lesson lesson : lessonRepository.findByCourseIdIn(courseIds)) {
+            lessonsByCourse.computeIfAbsent(lesson.getCourseId(), key -> new ArrayList<>()).add(lesson);
+        }
+        return lessonsByCourse;
+    }
+}
@@ -0,0 +1,36 @@
+package com.learning.cours.graphql;
+
+import com.learning.cours.service.LessonContentStore;
+import com.learning.cours.service.LessonContentSync;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads lesson bodies from the {@link LessonContentStore} only when {@code Lesson.content}
+ * is selected, with one query for every lesson in the response. Lessons the store does
+ * not have yet are migrated from their inline copy and read again.
+ */
+@Component
+public class LessonContentBatchLoader {
+
+    public static final String NAME = "lessonContentsById";
+
+    public LessonContentBatchLoader(BatchLoaderRegistry registry, LessonContentStore lessonContentStore,
+                                    LessonContentSync lessonContentSync, AsyncFieldResolver fieldResolver) {
+        registry.<String, String>forName(NAME)
+                .registerMappedBatchLoader((lessonIds, env) -> fieldResolver.load("Lesson.content", () -> {
+                    Map<String, String> contents = lessonContentStore.findContents(lessonIds);
+                    Set<String> missing = new HashSet<>(lessonIds);
+                    missing.removeAll(contents.keySet());
+                    if (!missing.isEmpty()) {
+                        lessonContentSync.migrate(null, missing);
+                        contents.putAll(lessonContentStore.findContents(missing));
+                    }
+                    return contents;
+                }));
+    }
+}
@@ -0,0 +1,33 @@
+package com.learning.cours.graphql;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Serves Apollo automatic persisted queries and caches the parsed document of every
+ * other query under the hash of its text, so repeated operations skip parsing and
+ * validation.
+ */
+@Component
+public class PersistedQueryDocumentProvider extends ApolloPersistedQuerySupport {
+
+    public PersistedQueryDocumentProvider(GraphQLDocumentCache documentCache) {
+        super(documentCache);
+    }
+
+    @Override
+    protected Optional<Object> getPersistedQueryId(ExecutionInput executionInput) {
+        Optional<Object> persistedQueryId = super.getPersistedQueryId(executionInput);
+        if (persistedQueryId.isPresent()) {
+            return persistedQueryId;
+        }
+        String query = executionInput.getQuery();
+        if (query == null || query.isBlank() || PERSISTED_QUERY_MARKER.equals(query)) {
+            return Optional.empty();
+        }
+        return Optional.of(GraphQLDocumentCache.sha256(query));
+    }
+}
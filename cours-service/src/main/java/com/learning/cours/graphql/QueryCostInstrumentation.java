@@ -0,0 +1,192 @@
+package com.learning.cours.graphql;
+
+import com.learning.cours.service.CourseService;
+import graphql.ExecutionResult;
+import graphql.analysis.QueryTraverser;
+import graphql.analysis.QueryVisitorFieldEnvironment;
+import graphql.analysis.QueryVisitorStub;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLNamedType;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rejects operations whose static depth or estimated cost exceed the configured
+ * budgets before any data fetcher runs, and records the estimated cost next to the
+ * measured execution time.
+ *
+ * <p>Every field costs its weight plus its children's cost; list fields multiply
+ * their children by the requested size ({@code first}, {@code limit} or the number
+ * of {@code ids}) or, when there is none, by {@code graphql.limits.default-list-size}. Costs are summed as
+ * longs and stop growing once past the budget, so that nested lists cannot wrap
+ * them around to a small number.
+ *
+ * <p>Meters are tagged with the operation name only for the names listed in
+ * {@code graphql.metrics.operation-names}; every other operation is tagged
+ * {@code other}, so that clients cannot create meter series at will.
+ */
+@Component
+@Slf4j
+public class QueryCostInstrumentation extends SimplePerformantInstrumentation {
+
+    private static final Map<String, Integer> FIELD_WEIGHTS = Map.of(
+            "Query.course", 5,
+            "Query.courses", 10,
+            "Course.lessons", 5,
+            "Course.related", 2,
+            "Lesson.content", 2
+    );
+
+    private final MeterRegistry meterRegistry;
+    private final int maxDepth;
+    private final int maxCost;
+    private final int defaultListSize;
+    private final Set<String> meteredOperations;
+
+    public QueryCostInstrumentation(MeterRegistry meterRegistry,
+                                    @Value("${graphql.limits.max-depth:8}") int maxDepth,
+                                    @Value("${graphql.limits.max-cost:5000}") int maxCost,
+                                    @Value("${graphql.limits.default-list-size:10}") int defaultListSize,
+                                    @Value("${graphql.metrics.operation-names:}") Set<String> meteredOperations) {
+        this.meterRegistry = meterRegistry;
+        this.maxDepth = maxDepth;
+        this.maxCost = maxCost;
+        this.defaultListSize = defaultListSize;
+        this.meteredOperations = meteredOperations;
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+            InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+        ExecutionContext context = parameters.getExecutionContext();
+        String operation = context.getOperationDefinition().getName() != null
+                ? context.getOperationDefinition().getName()
+                : "anonymous";
+        String operationTag = meteredOperations.contains(operation) ? operation : "other";
+
+        int depth = depth(context);
+        if (depth > maxDepth) {
+            log.warn("Rejected GraphQL operation {} with depth {} (max {})", operation, depth, maxDepth);
+            throw new AbortExecutionException(
+                    "Query depth " + depth + " exceeds the maximum allowed depth of " + maxDepth);
+        }
+
+        long cost = cost(context);
+        if (cost > maxCost) {
+            log.warn("Rejected GraphQL operation {} with an estimated cost above {}", operation, maxCost);
+            throw new AbortExecutionException(
+                    "Query cost exceeds the maximum allowed cost of " + maxCost
+                            + "; request smaller pages or fewer nested fields");
+        }
+
+        DistributionSummary.builder("graphql.operation.cost")
+                .description("Estimated static cost of executed GraphQL operations")
+                .tag("operation", operationTag)
+                .register(meterRegistry)
+                .record(cost);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return SimpleInstrumentationContext.whenCompleted((result, throwable) -> {
+            long nanos = sample.stop(Timer.builder("graphql.operation.duration")
+                    .description("Execution time of GraphQL operations, alongside graphql.operation.cost")
+                    .tag("operation", operationTag)
+                    .register(meterRegistry));
+            log.debug("GraphQL operation {} cost {} executed in {} ms", operation, cost, nanos / 1_000_000);
+        });
+    }
+
+    int depth(ExecutionContext context) {
+        return newTraverser(context).reducePreOrder((env, max) -> {
+            int depth = 0;
+            for (QueryVisitorFieldEnvironment current = env; current != null; current = current.getParentEnvironment()) {
+                if (isIntrospection(current.getFieldDefinition())) {
+                    return max;
+                }
+                depth++;
+            }
+            return Math.max(max, depth);
+        }, 0);
+    }
+
+    /**
+     * The estimated cost, at most one above {@code maxCost}: children are visited
+     * first and their costs summed under their parent field, the root under null.
+     * An overflow counts as over budget.
+     */
+    long cost(ExecutionContext context) {
+        long cap = maxCost + 1L;
+        Map<QueryVisitorFieldEnvironment, Long> childCosts = new HashMap<>();
+        try {
+            newTraverser(context).visitPostOrder(new QueryVisitorStub() {
+                @Override
+                public void visitField(QueryVisitorFieldEnvironment env) {
+                    long cost = Math.min(fieldCost(env, childCosts.getOrDefault(env, 0L)), cap);
+                    childCosts.merge(env.getParentEnvironment(), cost,
+                            (sum, added) -> Math.min(Math.addExact(sum, added), cap));
+                }
+            });
+        } catch (ArithmeticException e) {
+            return cap;
+        }
+        return childCosts.getOrDefault(null, 0L);
+    }
+
+    private long fieldCost(QueryVisitorFieldEnvironment env, long childCost) {
+        GraphQLFieldDefinition field = env.getFieldDefinition();
+        if (isIntrospection(field)) {
+            return 0;
+        }
+        String parentName = ((GraphQLNamedType) env.getFieldsContainer()).getName();
+        int weight = FIELD_WEIGHTS.getOrDefault(parentName + "." + field.getName(), 1);
+        return Math.addExact(weight, Math.multiplyExact((long) multiplier(env, parentName), childCost));
+    }
+
+    private int multiplier(QueryVisitorFieldEnvironment env, String parentName) {
+        Object first = env.getArguments().getOrDefault("first", env.getArguments().get("limit"));
+        if (first instanceof Number number) {
+            return Math.min(Math.max(number.intValue(), 1), CourseGraphQLController.MAX_PAGE_SIZE);
+        }
+        if (env.getArguments().get("ids") instanceof Collection<?> ids) {
+            return Math.min(Math.max(ids.size(), 1), CourseService.MAX_BATCH_IDS);
+        }
+        GraphQLType type = GraphQLTypeUtil.unwrapNonNull(env.getFieldDefinition().getType());
+        if (GraphQLTypeUtil.unwrapAll(type).getName().endsWith("Connection")) {
+            return CourseGraphQLController.DEFAULT_PAGE_SIZE;
+        }
+        if (GraphQLTypeUtil.isList(type) && !parentName.endsWith("Connection")) {
+            return defaultListSize;
+        }
+        return 1;
+    }
+
+    private QueryTraverser newTraverser(ExecutionContext context) {
+        return QueryTraverser.newQueryTraverser()
+                .schema(context.getGraphQLSchema())
+                .document(context.getDocument())
+                .operationName(context.getExecutionInput().getOperationName())
+                .coercedVariables(context.getCoercedVariables())
+                .build();
+    }
+
+    private static boolean isIntrospection(GraphQLFieldDefinition field) {
+        return field.getName().startsWith("__");
+    }
+}
@@ -0,0 +1,28 @@
+package com.learning.cours.graphql;
+
+import com.learning.cours.entity.Category;
+import com.learning.cours.entity.Professor;
+import com.learning.cours.service.ReferenceDataCache;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the categories and professors that courses only reference by id, one
+ * bulk near-cache lookup per request instead of one query per course.
+ */
+@Component
+public class ReferenceBatchLoader {
+
+    public static final String CATEGORIES = "categoriesById";
+    public static final String PROFESSORS = "professorsById";
+
+    public ReferenceBatchLoader(BatchLoaderRegistry registry, ReferenceDataCache referenceDataCache,
+                                AsyncFieldResolver fieldResolver) {
+        registry.<String, Category>forName(CATEGORIES)
+                .registerMappedBatchLoader((ids, env) ->
+                        fieldResolver.load("Course.category", () -> referenceDataCache.findCategories(ids)));
+        registry.<String, Professor>forName(PROFESSORS)
+                .registerMappedBatchLoader((ids, env) ->
+                        fieldResolver.load("Course.professor", () -> referenceDataCache.findProfessors(ids)));
+    }
+}
@@ -1,6 +1,7 @@
 package com.learning.cours.mapper;
 
 import com.learning.cours.dto.CourseDTO;
+import com.learning.cours.dto.CourseSummaryDTO;
 import com.learning.cours.entity.Course;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -20,6 +21,8 @@ public interface CourseMapper {
         dto.setYoutubeVideoId(course.getYoutubeVideoId());
         dto.setPrice(course.getPrice());
         dto.setCreatedAt(course.getCreatedAt());
+        dto.setUpdatedAt(course.getUpdatedAt());
+        dto.setVersion(course.getVersion());
         
         if (course.getCategory() != null) {
             dto.setCategoryId(course.getCategory().getId());
@@ -40,5 +43,25 @@ public interface CourseMapper {
         return dto;
     }
     
+    default CourseSummaryDTO toSummaryDTO(Course course) {
+        if (course == null) {
+            return null;
+        }
+
+        CourseSummaryDTO dto = new CourseSummaryDTO();
+        dto.setId(course.getId());
+        dto.setTitle(course.getTitle());
+        dto.setPrice(course.getPrice());
+        if (course.getCategory() != null) {
+            dto.setCategoryId(course.getCategory().getId());
+            dto.setCategoryName(course.getCategory().getName());
+        }
+        if (course.getProfessor() != null) {
+            dto.setProfessorId(course.getProfessor().getId());
+            dto.setProfessorName(course.getProfessor().getFullName());
+        }
+        return dto;
+    }
+
     Course toEntity(CourseDTO courseDTO);
 }
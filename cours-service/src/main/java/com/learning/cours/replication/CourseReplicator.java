@@ -0,0 +1,370 @@
+package com.learning.cours.replication;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.cloud.FirestoreClient;
+import com.mongodb.DBRef;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails the Mongo {@code courses} change stream and mirrors it into the Firestore
+ * {@code courses} collection with batched, idempotent WriteBatch upserts and deletes.
+ * The resume token is checkpointed after each committed batch. On a first start, or
+ * when the checkpoint has aged out of the oplog, the collection is copied in full
+ * before tailing.
+ */
+@Component
+@Slf4j
+public class CourseReplicator {
+
+    static final String STREAM = "courses-to-firestore";
+    private static final String COLLECTION_NAME = "courses";
+    private static final int FIRESTORE_BATCH_LIMIT = 500;
+    // ChangeStreamHistoryLost and ChangeStreamFatalError: the token can no longer be resumed
+    private static final Set<Integer> UNRESUMABLE_CODES = Set.of(280, 286);
+
+    @Autowired(required = false)
+    private FirebaseApp firebaseApp;
+
+    private final MongoTemplate mongoTemplate;
+    private final ReplicationCheckpointStore checkpoints;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration reconnectDelay;
+    private final Duration idleCheckpointInterval;
+    private final Timer lagTimer;
+    private final Timer commitTimer;
+
+    private volatile boolean running;
+    private volatile Instant lastApplied = Instant.EPOCH;
+    private Thread worker;
+
+    public CourseReplicator(MongoTemplate mongoTemplate,
+                            ReplicationCheckpointStore checkpoints,
+                            MeterRegistry meterRegistry,
+                            @Value("${firestore.replication.enabled:false}") boolean enabled,
+                            @Value("${firestore.replication.batch-size:200}") int batchSize,
+                            @Value("${firestore.replication.flush-interval:500ms}") Duration flushInterval,
+                            @Value("${firestore.replication.reconnect-delay:5s}") Duration reconnectDelay,
+                            @Value("${firestore.replication.idle-checkpoint-interval:5m}") Duration idleCheckpointInterval) {
+        this.mongoTemplate = mongoTemplate;
+        this.checkpoints = checkpoints;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.batchSize = Math.min(batchSize, FIRESTORE_BATCH_LIMIT);
+        this.flushInterval = flushInterval;
+        this.reconnectDelay = reconnectDelay;
+        this.idleCheckpointInterval = idleCheckpointInterval;
+        this.lagTimer = Timer.builder("course.replication.lag")
+                .description("Delay between a Mongo change and its commit to Firestore")
+                .register(meterRegistry);
+        this.commitTimer = Timer.builder("course.replication.commit")
+                .description("Duration of Firestore WriteBatch commits")
+                .register(meterRegistry);
+        Gauge.builder("course.replication.running", this, replicator -> replicator.running ? 1 : 0)
+                .register(meterRegistry);
+        Gauge.builder("course.replication.staleness", this,
+                        replicator -> Duration.between(replicator.lastApplied, Instant.now()).toMillis() / 1000.0)
+                .description("Seconds since the replicator last committed a batch or checkpoint")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || firebaseApp == null) {
+            log.info("Mongo to Firestore course replication disabled");
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "course-replicator");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        CollectionReference target = FirestoreClient.getFirestore(firebaseApp).collection(COLLECTION_NAME);
+        while (running) {
+            try {
+                replicate(target);
+            } catch (MongoCommandException e) {
+                if (UNRESUMABLE_CODES.contains(e.getErrorCode())) {
+                    log.warn("Course change stream cannot resume ({}); a full copy will run", e.getErrorMessage());
+                    checkpoints.clear(STREAM);
+                } else {
+                    failed(e);
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                failed(e);
+            }
+        }
+    }
+
+    private void replicate(CollectionReference target) throws Exception {
+        MongoCollection<Document> source = mongoTemplate.getCollection(COLLECTION_NAME);
+        BsonDocument checkpoint = checkpoints.load(STREAM).orElse(null);
+        var watch = source.watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .batchSize(batchSize)
+                .maxAwaitTime(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        if (checkpoint != null) {
+            watch.startAfter(checkpoint);
+        }
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = watch.cursor()) {
+            if (checkpoint == null) {
+                // The cursor is opened first so that writes made during the copy are replayed afterwards.
+                // A copy cut short by shutdown leaves no checkpoint, so the next start copies again.
+                if (!copyAll(source, target)) {
+                    return;
+                }
+                checkpoint(cursor.getResumeToken());
+            }
+            log.info("Replicating Mongo '{}' to Firestore", COLLECTION_NAME);
+
+            List<ChangeStreamDocument<Document>> pending = new ArrayList<>();
+            long flushAt = System.nanoTime() + flushInterval.toNanos();
+            long idleCheckpointAt = System.nanoTime() + idleCheckpointInterval.toNanos();
+            boolean applied = false;
+            BsonDocument checkpointed = cursor.getResumeToken();
+            while (running) {
+                ChangeStreamDocument<Document> event = cursor.tryNext();
+                boolean invalidated = event != null && event.getOperationType() == OperationType.INVALIDATE;
+                if (event != null && !invalidated) {
+                    pending.add(event);
+                }
+                boolean due = event == null || invalidated || System.nanoTime() >= flushAt;
+                if (pending.size() >= batchSize || (!pending.isEmpty() && due)) {
+                    apply(target, pending);
+                    pending.clear();
+                    applied = true;
+                    flushAt = System.nanoTime() + flushInterval.toNanos();
+                }
+                // An idle stream still advances its token on every empty batch; that is only
+                // saved every idle-checkpoint-interval, to keep it from aging out of the oplog
+                BsonDocument token = invalidated ? event.getResumeToken() : cursor.getResumeToken();
+                boolean idleDue = System.nanoTime() >= idleCheckpointAt;
+                if (pending.isEmpty() && token != null && !token.equals(checkpointed)
+                        && (applied || invalidated || idleDue)) {
+                    checkpoint(token);
+                    checkpointed = token;
+                    applied = false;
+                    idleCheckpointAt = System.nanoTime() + idleCheckpointInterval.toNanos();
+                }
+                if (invalidated) {
+                    log.info("Course change stream invalidated; reopening after the invalidate event");
+                    return;
+                }
+            }
+        }
+    }
+
+    private void apply(CollectionReference target, List<ChangeStreamDocument<Document>> events) throws Exception {
+        // Only the last change per course matters, and every write is a full overwrite or a delete
+        Map<String, ChangeStreamDocument<Document>> latest = new LinkedHashMap<>();
+        for (ChangeStreamDocument<Document> event : events) {
+            String id = documentId(event);
+            if (id != null) {
+                latest.remove(id);
+                latest.put(id, event);
+            }
+        }
+
+        Firestore firestore = target.getFirestore();
+        WriteBatch batch = firestore.batch();
+        int operations = 0;
+        for (Map.Entry<String, ChangeStreamDocument<Document>> entry : latest.entrySet()) {
+            ChangeStreamDocument<Document> event = entry.getValue();
+            Document fullDocument = event.getFullDocument();
+            if (event.getOperationType() == OperationType.DELETE || fullDocument == null) {
+                batch.delete(target.document(entry.getKey()));
+            } else {
+                batch.set(target.document(entry.getKey()), toFirestore(fullDocument));
+            }
+            count(event.getOperationType());
+            if (++operations == FIRESTORE_BATCH_LIMIT) {
+                commit(batch);
+                batch = firestore.batch();
+                operations = 0;
+            }
+        }
+        if (operations > 0) {
+            commit(batch);
+        }
+
+        ChangeStreamDocument<Document> last = events.get(events.size() - 1);
+        if (last.getClusterTime() != null) {
+            Instant changedAt = Instant.ofEpochSecond(last.getClusterTime().getTime());
+            lagTimer.record(Duration.between(changedAt, Instant.now()).abs());
+        }
+    }
+
+    // False when stopped before the end of the collection
+    private boolean copyAll(MongoCollection<Document> source, CollectionReference target) throws Exception {
+        log.info("Copying Mongo '{}' to Firestore before tailing changes", COLLECTION_NAME);
+        Firestore firestore = target.getFirestore();
+        WriteBatch batch = firestore.batch();
+        int operations = 0;
+        long copied = 0;
+        try (MongoCursor<Document> documents = source.find().batchSize(batchSize).iterator()) {
+            while (documents.hasNext() && running) {
+                Document document = documents.next();
+                batch.set(target.document(document.get("_id").toString()), toFirestore(document));
+                copied++;
+                if (++operations == batchSize) {
+                    commit(batch);
+                    batch = firestore.batch();
+                    operations = 0;
+                }
+            }
+        }
+        if (operations > 0) {
+            commit(batch);
+        }
+        if (!running) {
+            log.info("Course copy to Firestore stopped after {} courses; it restarts on the next start", copied);
+            return false;
+        }
+        log.info("Copied {} courses to Firestore", copied);
+        return true;
+    }
+
+    private void commit(WriteBatch batch) throws Exception {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        batch.commit().get();
+        sample.stop(commitTimer);
+        lastApplied = Instant.now();
+    }
+
+    private void checkpoint(BsonDocument token) {
+        if (token != null) {
+            checkpoints.save(STREAM, token);
+            lastApplied = Instant.now();
+        }
+    }
+
+    private void count(OperationType operationType) {
+        Counter.builder("course.replication.events")
+                .description("Course changes applied to Firestore")
+                .tag("operation", operationType.getValue())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void failed(Exception e) {
+        Counter.builder("course.replication.errors").register(meterRegistry).increment();
+        log.warn("Course replication interrupted, retrying in {}: {}", reconnectDelay, e.getMessage());
+        try {
+            Thread.sleep(reconnectDelay.toMillis());
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static String documentId(ChangeStreamDocument<Document> event) {
+        BsonDocument key = event.getDocumentKey();
+        if (key == null || !key.containsKey("_id")) {
+            return null;
+        }
+        BsonValue id = key.get("_id");
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.isString()
+                ? id.asString().getValue() : id.toString();
+    }
+
+    static Map<String, Object> toFirestore(Document course) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("title", course.getString("title"));
+        data.put("description", course.getString("description"));
+        data.put("youtubeVideoId", course.getString("youtubeVideoId"));
+
+        Object price = course.get("price");
+        if (price instanceof Decimal128 decimal) {
+            data.put("price", decimal.bigDecimalValue().doubleValue());
+        } else if (price instanceof Number number) {
+            data.put("price", number.doubleValue());
+        }
+        if (course.get("createdAt") instanceof Date createdAt) {
+            data.put("createdAt", Timestamp.of(createdAt));
+        }
+        data.put("categoryId", referenceId(course.get("category")));
+        data.put("professorId", referenceId(course.get("professor")));
+        if (course.get("category") instanceof Document category) {
+            data.put("category", snapshot(category, "name"));
+        }
+        if (course.get("professor") instanceof Document professor) {
+            data.put("professor", snapshot(professor, "fullName", "avatarUrl"));
+        }
+        return data;
+    }
+
+    private static Map<String, Object> snapshot(Document reference, String... fields) {
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("id", referenceId(reference));
+        for (String field : fields) {
+            if (reference.get(field) != null) {
+                snapshot.put(field, reference.get(field));
+            }
+        }
+        return snapshot;
+    }
+
+    private static String referenceId(Object reference) {
+        if (reference instanceof DBRef dbRef) {
+            return dbRef.getId().toString();
+        }
+        if (reference instanceof Document document && document.get("_id") != null) {
+            return document.get("_id").toString();
+        }
+        return null;
+    }
+}
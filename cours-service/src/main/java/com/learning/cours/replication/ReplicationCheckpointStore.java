@@ -0,0 +1,46 @@
+package com.learning.cours.replication;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Persists change stream resume tokens in Mongo, one document per replication stream,
+ * so a restarted replicator continues where the previous run stopped.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReplicationCheckpointStore {
+
+    private static final String COLLECTION_NAME = "replication_checkpoints";
+
+    private final MongoTemplate mongoTemplate;
+
+    public Optional<BsonDocument> load(String stream) {
+        Document checkpoint = mongoTemplate.findById(stream, Document.class, COLLECTION_NAME);
+        if (checkpoint == null || checkpoint.get("resumeToken") == null) {
+            return Optional.empty();
+        }
+        return Optional.of(BsonDocument.parse(checkpoint.get("resumeToken", Document.class).toJson()));
+    }
+
+    public void save(String stream, BsonDocument resumeToken) {
+        Update update = new Update()
+                .set("resumeToken", Document.parse(resumeToken.toJson()))
+                .set("updatedAt", Date.from(Instant.now()));
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(stream)), update, COLLECTION_NAME);
+    }
+
+    public void clear(String stream) {
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is(stream)), COLLECTION_NAME);
+    }
+}
@@ -2,6 +2,7 @@ package com.learning.cours.repository;
 
 import com.learning.cours.entity.Category;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.data.rest.core.annotation.RestResource;
 
@@ -12,4 +13,9 @@ public interface CategoryRepository extends MongoRepository<Category, String> {
     
     @RestResource(path = "by-name")
     List<Category> findByNameContainingIgnoreCase(String name);
+
+    // Whole words, through the name text index
+    @RestResource(path = "by-name-words")
+    @Query("{ '$text': { '$search': ?0 } }")
+    List<Category> searchByName(String name);
 }
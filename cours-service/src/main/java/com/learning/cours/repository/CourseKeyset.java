@@ -0,0 +1,105 @@
+package com.learning.cours.repository;
+
+import com.learning.cours.dto.CourseFilter;
+import com.learning.cours.entity.Course;
+import com.learning.cours.exception.BadRequestException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset ordering shared by the Mongo and Firestore course pages: courses are ordered
+ * by id, or by (price, id) when the filter has a price range, since Firestore requires
+ * the first ordering to be on the range field. The REST catalog pages by
+ * (createdAt, id) instead.
+ */
+final class CourseKeyset {
+
+    static final String ID = "id";
+    static final String PRICE = "price";
+    static final String CREATED_AT = "createdAt";
+    // Marks cursors issued by Firestore, whose ids and order need not match Mongo's
+    static final String SOURCE = "source";
+    static final String FIRESTORE = "firestore";
+
+    private CourseKeyset() {
+    }
+
+    static boolean orderedByPrice(CourseFilter filter) {
+        return filter != null && filter.hasPriceRange();
+    }
+
+    static String id(KeysetScrollPosition position) {
+        Object id = position.getKeys().get(ID);
+        return id != null ? id.toString() : null;
+    }
+
+    // Cursors come from clients, so a key that does not parse is their error
+    static BigDecimal price(KeysetScrollPosition position) {
+        Object price = position.getKeys().get(PRICE);
+        try {
+            return price != null ? new BigDecimal(price.toString()) : null;
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor price: " + price);
+        }
+    }
+
+    static boolean issuedByFirestore(KeysetScrollPosition position) {
+        return position != null && FIRESTORE.equals(position.getKeys().get(SOURCE));
+    }
+
+    static LocalDateTime createdAt(KeysetScrollPosition position) {
+        Object createdAt = position.getKeys().get(CREATED_AT);
+        try {
+            return createdAt != null ? LocalDateTime.parse(createdAt.toString()) : null;
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor createdAt: " + createdAt);
+        }
+    }
+
+    static Window<Course> recentWindow(List<Course> fetched, int limit) {
+        boolean hasNext = fetched.size() > limit;
+        List<Course> courses = hasNext ? fetched.subList(0, limit) : fetched;
+        return Window.from(courses, index -> recentPositionOf(courses.get(index)), hasNext);
+    }
+
+    static ScrollPosition recentPositionOf(Course course) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(CREATED_AT, course.getCreatedAt() != null ? course.getCreatedAt().toString() : null);
+        keys.put(ID, course.getId());
+        return ScrollPosition.forward(keys);
+    }
+
+    static Window<Course> window(List<Course> fetched, int limit, boolean byPrice) {
+        return window(fetched, limit, byPrice, false);
+    }
+
+    static Window<Course> firestoreWindow(List<Course> fetched, int limit, boolean byPrice) {
+        return window(fetched, limit, byPrice, true);
+    }
+
+    private static Window<Course> window(List<Course> fetched, int limit, boolean byPrice, boolean firestore) {
+        boolean hasNext = fetched.size() > limit;
+        List<Course> courses = hasNext ? fetched.subList(0, limit) : fetched;
+        return Window.from(courses, index -> positionOf(courses.get(index), byPrice, firestore), hasNext);
+    }
+
+    private static ScrollPosition positionOf(Course course, boolean byPrice, boolean firestore) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        if (byPrice) {
+            keys.put(PRICE, course.getPrice() != null ? course.getPrice().toPlainString() : null);
+        }
+        keys.put(ID, course.getId());
+        if (firestore) {
+            keys.put(SOURCE, FIRESTORE);
+        }
+        return ScrollPosition.forward(keys);
+    }
+}
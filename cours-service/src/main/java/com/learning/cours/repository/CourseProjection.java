@@ -0,0 +1,54 @@
+package com.learning.cours.repository;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maps the Course properties a caller asked for to the stored fields that have to
+ * be read. A {@code null} field set means the whole course.
+ */
+final class CourseProjection {
+
+    private static final List<String> SCALAR_FIELDS = List.of("title", "description", "youtubeVideoId", "price", "createdAt");
+
+    private CourseProjection() {
+    }
+
+    static boolean includes(Set<String> fields, String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    static String[] mongoFields(Set<String> fields, boolean byPrice) {
+        Set<String> stored = scalarFields(fields, byPrice);
+        if (fields.contains("category")) {
+            stored.add("category");
+        }
+        if (fields.contains("professor")) {
+            stored.add("professor");
+        }
+        return stored.toArray(String[]::new);
+    }
+
+    static String[] firestoreFields(Set<String> fields, boolean byPrice) {
+        Set<String> stored = scalarFields(fields, byPrice);
+        if (fields.contains("category")) {
+            stored.add("category");
+            stored.add("categoryId");
+        }
+        if (fields.contains("professor")) {
+            stored.add("professor");
+            stored.add("professorId");
+        }
+        return stored.toArray(String[]::new);
+    }
+
+    private static Set<String> scalarFields(Set<String> fields, boolean byPrice) {
+        Set<String> stored = new LinkedHashSet<>();
+        SCALAR_FIELDS.stream().filter(fields::contains).forEach(stored::add);
+        if (byPrice) {
+            stored.add("price");
+        }
+        return stored;
+    }
+}
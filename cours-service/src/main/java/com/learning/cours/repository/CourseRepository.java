@@ -3,29 +3,43 @@ package com.learning.cours.repository;
 import com.learning.cours.entity.Course;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.data.rest.core.annotation.RestResource;
 
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @RepositoryRestResource(path = "courses")
-public interface CourseRepository extends MongoRepository<Course, String> {
+public interface CourseRepository extends MongoRepository<Course, String>, CourseRepositoryCustom {
     
+    // Fetches size + 1 courses instead of running a count
+    @RestResource(path = "slice")
+    Slice<Course> findAllBy(Pageable pageable);
+
+    @RestResource(exported = false)
+    Optional<CourseVersion> findVersionById(String id);
+
+    @RestResource(exported = false)
+    Stream<CourseVersion> findAllVersionsBy();
+
+    // A null version matches courses written before versioning
+    @RestResource(exported = false)
+    long deleteByIdAndVersion(String id, Long version);
+
     @RestResource(path = "by-title")
     Page<Course> findByTitleContainingIgnoreCase(String title, Pageable pageable);
+
+    // Whole words, through the title text index
+    @RestResource(path = "by-title-words")
+    @Query("{ '$text': { '$search': ?0 } }")
+    Page<Course> searchByTitle(String title, Pageable pageable);
     
     @RestResource(path = "by-category")
     Page<Course> findByCategoryId(String categoryId, Pageable pageable);
     
     @RestResource(path = "by-professor")
     Page<Course> findByProfessorId(String professorId, Pageable pageable);
-    
-    @Query("{ $or: [ " +
-           "{ 'title': { $regex: ?0, $options: 'i' } }, " +
-           "{ 'description': { $regex: ?0, $options: 'i' } }, " +
-           "{ 'professor.fullName': { $regex: ?0, $options: 'i' } }, " +
-           "{ 'category.name': { $regex: ?0, $options: 'i' } } " +
-           "] }")
-    @RestResource(path = "search")
-    Page<Course> searchCourses(String keyword, Pageable pageable);
 }
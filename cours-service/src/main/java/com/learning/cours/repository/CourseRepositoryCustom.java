@@ -0,0 +1,34 @@
+package com.learning.cours.repository;
+
+import com.learning.cours.dto.CourseFilter;
+import com.learning.cours.entity.Course;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.rest.core.annotation.RestResource;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public interface CourseRepositoryCustom {
+
+    Window<Course> findPage(CourseFilter filter, KeysetScrollPosition after, int limit, Set<String> fields);
+
+    /**
+     * Courses ordered by (createdAt, id) in {@code direction}, starting after the given
+     * position. Seeks through the createdAt/_id index instead of skipping.
+     */
+    @RestResource(exported = false)
+    Window<Course> findRecent(KeysetScrollPosition after, int limit, Sort.Direction direction);
+
+    @RestResource(exported = false)
+    long estimatedCount();
+
+    Optional<Course> findById(String id, Set<String> fields);
+
+    /** The courses among {@code ids} that exist, in no particular order, with one $in query. */
+    @RestResource(exported = false)
+    List<Course> findAllById(Collection<String> ids, Set<String> fields);
+}
@@ -0,0 +1,130 @@
+package com.learning.cours.repository;
+
+import com.learning.cours.dto.CourseFilter;
+import com.learning.cours.entity.Course;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class CourseRepositoryCustomImpl implements CourseRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Window<Course> findPage(CourseFilter filter, KeysetScrollPosition after, int limit, Set<String> fields) {
+        boolean byPrice = CourseKeyset.orderedByPrice(filter);
+        return CourseKeyset.window(mongoTemplate.find(pageQuery(filter, after, limit, fields), Course.class), limit,
+                byPrice);
+    }
+
+    // Shared with ReactiveCourseRepository so that both read the same pages
+    static Query pageQuery(CourseFilter filter, KeysetScrollPosition after, int limit, Set<String> fields) {
+        boolean byPrice = CourseKeyset.orderedByPrice(filter);
+        List<Criteria> criteria = new ArrayList<>();
+
+        if (filter != null) {
+            if (filter.getCategoryId() != null) {
+                criteria.add(Criteria.where("category.id").is(filter.getCategoryId()));
+            }
+            if (filter.getProfessorId() != null) {
+                criteria.add(Criteria.where("professor.id").is(filter.getProfessorId()));
+            }
+            if (filter.hasPriceRange()) {
+                Criteria price = Criteria.where("price");
+                if (filter.getPriceMin() != null) {
+                    price = price.gte(filter.getPriceMin());
+                }
+                if (filter.getPriceMax() != null) {
+                    price = price.lte(filter.getPriceMax());
+                }
+                criteria.add(price);
+            }
+        }
+
+        if (after != null) {
+            String afterId = CourseKeyset.id(after);
+            BigDecimal afterPrice = CourseKeyset.price(after);
+            if (byPrice && afterPrice != null) {
+                criteria.add(new Criteria().orOperator(
+                        Criteria.where("price").gt(afterPrice),
+                        Criteria.where("price").is(afterPrice).and("id").gt(afterId)));
+            } else {
+                criteria.add(Criteria.where("id").gt(afterId));
+            }
+        }
+
+        Query query = criteria.isEmpty()
+                ? new Query()
+                : new Query(new Criteria().andOperator(criteria));
+        query.with(byPrice ? Sort.by(Sort.Direction.ASC, "price", "id") : Sort.by(Sort.Direction.ASC, "id"));
+        query.limit(limit + 1);
+        if (fields != null) {
+            query.fields().include(CourseProjection.mongoFields(fields, byPrice));
+        }
+        return query;
+    }
+
+    @Override
+    public Window<Course> findRecent(KeysetScrollPosition after, int limit, Sort.Direction direction) {
+        Query query = new Query();
+        if (after != null) {
+            query.addCriteria(after(CourseKeyset.createdAt(after), CourseKeyset.id(after), direction));
+        }
+        query.with(Sort.by(direction, "createdAt", "id"));
+        query.limit(limit + 1);
+        return CourseKeyset.recentWindow(mongoTemplate.find(query, Course.class), limit);
+    }
+
+    // Courses without createdAt sort as null: before every date ascending, after every date descending
+    private static Criteria after(LocalDateTime createdAt, String id, Sort.Direction direction) {
+        boolean descending = direction.isDescending();
+        Criteria sameDate = descending
+                ? Criteria.where("createdAt").is(createdAt).and("id").lt(id)
+                : Criteria.where("createdAt").is(createdAt).and("id").gt(id);
+        if (createdAt == null) {
+            return descending
+                    ? sameDate
+                    : new Criteria().orOperator(sameDate, Criteria.where("createdAt").ne(null));
+        }
+        return descending
+                ? new Criteria().orOperator(Criteria.where("createdAt").lt(createdAt), sameDate,
+                        Criteria.where("createdAt").is(null))
+                : new Criteria().orOperator(Criteria.where("createdAt").gt(createdAt), sameDate);
+    }
+
+    @Override
+    public long estimatedCount() {
+        return mongoTemplate.estimatedCount(Course.class);
+    }
+
+    @Override
+    public Optional<Course> findById(String id, Set<String> fields) {
+        Query query = new Query(Criteria.where("id").is(id));
+        if (fields != null) {
+            query.fields().include(CourseProjection.mongoFields(fields, false));
+        }
+        return Optional.ofNullable(mongoTemplate.findOne(query, Course.class));
+    }
+
+    @Override
+    public List<Course> findAllById(Collection<String> ids, Set<String> fields) {
+        Query query = new Query(Criteria.where("id").in(ids));
+        if (fields != null) {
+            query.fields().include(CourseProjection.mongoFields(fields, false));
+        }
+        return mongoTemplate.find(query, Course.class);
+    }
+}
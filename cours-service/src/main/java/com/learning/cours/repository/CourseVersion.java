@@ -0,0 +1,18 @@
+package com.learning.cours.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version-only view of a course, enough to answer conditional requests without
+ * reading the document body.
+ */
+public interface CourseVersion {
+
+    String getId();
+
+    Long getVersion();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,265 @@
+package com.learning.cours.repository;
+
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.FirestoreException;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.cloud.FirestoreClient;
+import com.learning.cours.dto.CourseFilter;
+import com.learning.cours.entity.Category;
+import com.learning.cours.entity.Course;
+import com.learning.cours.entity.Professor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * In-process replica of the Firestore {@code courses} collection. It is bootstrapped
+ * by the first snapshot of a collection listener and then kept current from document
+ * changes. Each change batch publishes a new immutable snapshot, ordered by id and by
+ * (price, id), so reads never lock and price-ordered pages never sort. Callers get
+ * copies, so they cannot change the replica. While the listener is down the replica
+ * reports itself as not live and callers read Firestore directly.
+ */
+@Component
+@Slf4j
+public class FirestoreCourseCatalog {
+
+    private static final String COLLECTION_NAME = "courses";
+
+    private static final Comparator<Course> BY_PRICE_THEN_ID = Comparator
+            .comparing(Course::getPrice, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Course::getId);
+
+    private record Snapshot(NavigableMap<String, Course> byId, NavigableSet<Course> byPrice) {
+    }
+
+    private static final Snapshot EMPTY = new Snapshot(Collections.emptyNavigableMap(), Collections.emptyNavigableSet());
+
+    @Autowired(required = false)
+    private FirebaseApp firebaseApp;
+
+    private final boolean enabled;
+    private final Duration reconnectDelay;
+    private final Timer lagTimer;
+    private final ScheduledExecutorService reconnectScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "course-catalog-reconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Snapshot courses = EMPTY;
+    private volatile boolean live;
+    private volatile Instant lastUpdate = Instant.EPOCH;
+    private ListenerRegistration registration;
+
+    public FirestoreCourseCatalog(MeterRegistry meterRegistry,
+                                  @Value("${firestore.catalog.enabled:true}") boolean enabled,
+                                  @Value("${firestore.catalog.reconnect-delay:5s}") Duration reconnectDelay) {
+        this.enabled = enabled;
+        this.reconnectDelay = reconnectDelay;
+        this.lagTimer = Timer.builder("course.catalog.lag")
+                .description("Delay between a Firestore snapshot read time and its application to the catalog")
+                .register(meterRegistry);
+        Gauge.builder("course.catalog.size", this, catalog -> catalog.courses.byId().size())
+                .register(meterRegistry);
+        Gauge.builder("course.catalog.live", this, catalog -> catalog.live ? 1 : 0)
+                .description("1 while the catalog is served from the snapshot listener")
+                .register(meterRegistry);
+        Gauge.builder("course.catalog.staleness", this,
+                        catalog -> Duration.between(catalog.lastUpdate, Instant.now()).toMillis() / 1000.0)
+                .description("Seconds since the catalog last applied a Firestore snapshot")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || firebaseApp == null) {
+            log.info("Firestore course catalog disabled; reads go directly to Firestore");
+            return;
+        }
+        listen();
+    }
+
+    public boolean isLive() {
+        return live;
+    }
+
+    public List<Course> findAll() {
+        return courses.byId().values().stream().map(FirestoreCourseCatalog::copy).toList();
+    }
+
+    public Optional<Course> findById(String id) {
+        return Optional.ofNullable(courses.byId().get(id)).map(FirestoreCourseCatalog::copy);
+    }
+
+    public Window<Course> findPage(CourseFilter filter, KeysetScrollPosition after, int limit) {
+        boolean byPrice = CourseKeyset.orderedByPrice(filter);
+        Snapshot current = courses;
+
+        Stream<Course> candidates;
+        if (byPrice) {
+            if (after != null) {
+                Course cursor = new Course();
+                cursor.setId(CourseKeyset.id(after));
+                cursor.setPrice(CourseKeyset.price(after));
+                candidates = current.byPrice().tailSet(cursor, false).stream();
+            } else {
+                candidates = current.byPrice().stream();
+            }
+        } else {
+            candidates = after != null
+                    ? current.byId().tailMap(CourseKeyset.id(after), false).values().stream()
+                    : current.byId().values().stream();
+        }
+
+        List<Course> page = candidates.filter(matches(filter))
+                .limit(limit + 1L)
+                .map(FirestoreCourseCatalog::copy)
+                .toList();
+        return CourseKeyset.firestoreWindow(page, limit, byPrice);
+    }
+
+    private static Predicate<Course> matches(CourseFilter filter) {
+        if (filter == null) {
+            return course -> true;
+        }
+        return course -> {
+            if (filter.getCategoryId() != null && (course.getCategory() == null
+                    || !filter.getCategoryId().equals(course.getCategory().getId()))) {
+                return false;
+            }
+            if (filter.getProfessorId() != null && (course.getProfessor() == null
+                    || !filter.getProfessorId().equals(course.getProfessor().getId()))) {
+                return false;
+            }
+            BigDecimal price = course.getPrice();
+            if (filter.getPriceMin() != null && (price == null || price.compareTo(filter.getPriceMin()) < 0)) {
+                return false;
+            }
+            return filter.getPriceMax() == null || (price != null && price.compareTo(filter.getPriceMax()) <= 0);
+        };
+    }
+
+    private synchronized void listen() {
+        try {
+            registration = FirestoreClient.getFirestore(firebaseApp)
+                    .collection(COLLECTION_NAME)
+                    .addSnapshotListener(this::onSnapshot);
+            log.info("Listening to Firestore '{}' for the in-memory course catalog", COLLECTION_NAME);
+        } catch (Exception e) {
+            log.warn("Could not start the course catalog listener: {}", e.getMessage());
+            scheduleReconnect();
+        }
+    }
+
+    private void onSnapshot(QuerySnapshot snapshot, FirestoreException error) {
+        if (error != null) {
+            log.warn("Course catalog listener failed, falling back to direct Firestore reads: {}", error.getMessage());
+            live = false;
+            scheduleReconnect();
+            return;
+        }
+        if (snapshot == null) {
+            return;
+        }
+
+        NavigableMap<String, Course> next;
+        if (!live) {
+            next = new TreeMap<>();
+            for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                put(next, document);
+            }
+            log.info("Course catalog bootstrapped with {} courses", next.size());
+        } else {
+            next = new TreeMap<>(courses.byId());
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    next.remove(change.getDocument().getId());
+                } else {
+                    put(next, change.getDocument());
+                }
+            }
+        }
+
+        NavigableSet<Course> byPrice = new TreeSet<>(BY_PRICE_THEN_ID);
+        byPrice.addAll(next.values());
+        courses = new Snapshot(Collections.unmodifiableNavigableMap(next), Collections.unmodifiableNavigableSet(byPrice));
+        lastUpdate = Instant.now();
+        live = true;
+        if (snapshot.getReadTime() != null) {
+            Instant readTime = snapshot.getReadTime().toDate().toInstant();
+            lagTimer.record(Duration.between(readTime, lastUpdate).abs());
+        }
+    }
+
+    private static void put(NavigableMap<String, Course> target, QueryDocumentSnapshot document) {
+        Course course = FirestoreCourseMapper.toCourse(document.getData(), document.getId(), null);
+        if (course != null) {
+            target.put(course.getId(), course);
+        }
+    }
+
+    private static Course copy(Course course) {
+        Course copy = new Course(course.getId(), course.getTitle(), course.getDescription(), null, null,
+                course.getYoutubeVideoId(), course.getPrice(), course.getCreatedAt(), course.getVersion(),
+                course.getUpdatedAt(), new ArrayList<>(course.getLessons()));
+        Category category = course.getCategory();
+        if (category != null) {
+            copy.setCategory(new Category(category.getId(), category.getName(), category.getDescription()));
+        }
+        Professor professor = course.getProfessor();
+        if (professor != null) {
+            copy.setProfessor(new Professor(professor.getId(), professor.getFullName(), professor.getEmail(),
+                    professor.getBio(), professor.getAvatarUrl()));
+        }
+        return copy;
+    }
+
+    private synchronized void scheduleReconnect() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        reconnectScheduler.schedule(this::listen, reconnectDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        live = false;
+        reconnectScheduler.shutdownNow();
+        if (registration != null) {
+            registration.remove();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.learning.cours.repository;
+
+import com.learning.cours.entity.Category;
+import com.learning.cours.entity.Course;
+import com.learning.cours.entity.Professor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.util.Set;
+
+@Slf4j
+final class FirestoreCourseMapper {
+
+    private FirestoreCourseMapper() {
+    }
+
+    static Course toCourse(java.util.Map<String, Object> data, String id, Set<String> fields) {
+        try {
+            Course course = new Course();
+            course.setId(id);
+            course.setTitle((String) data.getOrDefault("title", ""));
+            course.setDescription((String) data.getOrDefault("description", ""));
+            course.setYoutubeVideoId((String) data.getOrDefault("youtubeVideoId", ""));
+            
+            Object priceObj = data.get("price");
+            if (priceObj != null) {
+                if (priceObj instanceof Number) {
+                    course.setPrice(BigDecimal.valueOf(((Number) priceObj).doubleValue()));
+                } else if (priceObj instanceof String) {
+                    course.setPrice(new BigDecimal((String) priceObj));
+                }
+            }
+            
+            Object createdAtObj = data.get("createdAt");
+            if (createdAtObj != null) {
+                if (createdAtObj instanceof com.google.cloud.Timestamp) {
+                    course.setCreatedAt(((com.google.cloud.Timestamp) createdAtObj).toDate().toInstant()
+                            .atZone(ZoneId.systemDefault()).toLocalDateTime());
+                } else if (createdAtObj instanceof java.util.Date) {
+                    course.setCreatedAt(((java.util.Date) createdAtObj).toInstant()
+                            .atZone(ZoneId.systemDefault()).toLocalDateTime());
+                }
+            }
+            
+            if (CourseProjection.includes(fields, "category")) {
+                Object categoryObj = data.get("category");
+                if (categoryObj instanceof java.util.Map) {
+                    @SuppressWarnings("unchecked")
+                    java.util.Map<String, Object> categoryMap = (java.util.Map<String, Object>) categoryObj;
+                    Category category = new Category();
+                    category.setId((String) categoryMap.getOrDefault("id", ""));
+                    category.setName((String) categoryMap.getOrDefault("name", ""));
+                    category.setDescription((String) categoryMap.getOrDefault("description", ""));
+                    course.setCategory(category);
+                } else {
+                    Object categoryIdObj = data.get("categoryId");
+                    if (categoryIdObj != null) {
+                        // Only the id is stored; full reads and the GraphQL resolver load the rest
+                        Category category = new Category();
+                        category.setId(categoryIdObj.toString());
+                        course.setCategory(category);
+                    } else {
+                        // Create default category if missing
+                        Category defaultCategory = new Category();
+                        defaultCategory.setId("0");
+                        defaultCategory.setName("Uncategorized");
+                        course.setCategory(defaultCategory);
+                    }
+                }
+            }
+
+            if (CourseProjection.includes(fields, "professor")) {
+                Object professorObj = data.get("professor");
+                if (professorObj instanceof java.util.Map) {
+                    @SuppressWarnings("unchecked")
+                    java.util.Map<String, Object> professorMap = (java.util.Map<String, Object>) professorObj;
+                    Professor professor = new Professor();
+                    professor.setId((String) professorMap.getOrDefault("id", ""));
+                    professor.setFullName((String) professorMap.getOrDefault("fullName", ""));
+                    professor.setEmail((String) professorMap.getOrDefault("email", ""));
+                    professor.setBio((String) professorMap.getOrDefault("bio", ""));
+                    professor.setAvatarUrl((String) professorMap.getOrDefault("avatarUrl", ""));
+                    course.setProfessor(professor);
+                } else {
+                    Object professorIdObj = data.get("professorId");
+                    if (professorIdObj != null) {
+                        // Only the id is stored; full reads and the GraphQL resolver load the rest
+                        Professor professor = new Professor();
+                        professor.setId(professorIdObj.toString());
+                        course.setProfessor(professor);
+                    } else {
+                        // Create default professor if missing
+                        Professor defaultProfessor = new Professor();
+                        defaultProfessor.setId("0");
+                        defaultProfessor.setFullName("Unknown Professor");
+                        defaultProfessor.setEmail("");
+                        course.setProfessor(defaultProfessor);
+                    }
+                }
+            }
+
+            return course;
+        } catch (Exception e) {
+            log.error("Error converting Firestore data to Course: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+}
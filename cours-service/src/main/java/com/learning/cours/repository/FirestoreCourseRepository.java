@@ -1,36 +1,60 @@
 package com.learning.cours.repository;
 
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldMask;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Filter;
 import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.cloud.FirestoreClient;
+import com.learning.cours.dto.CourseFilter;
 import com.learning.cours.entity.Category;
 import com.learning.cours.entity.Course;
 import com.learning.cours.entity.Professor;
+import com.learning.cours.service.ReferenceDataCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.math.BigDecimal;
-import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 
 @Repository
 @Slf4j
 public class FirestoreCourseRepository {
 
-    private final CategoryRepository categoryRepository;
-    private final ProfessorRepository professorRepository;
     private static final String COLLECTION_NAME = "courses";
     
+    private final FirestoreCourseCatalog catalog;
+    private final ReferenceDataCache referenceDataCache;
+
     @Autowired(required = false)
     private FirebaseApp firebaseApp;
-    
-    public FirestoreCourseRepository(CategoryRepository categoryRepository, ProfessorRepository professorRepository) {
-        this.categoryRepository = categoryRepository;
-        this.professorRepository = professorRepository;
+
+    public FirestoreCourseRepository(FirestoreCourseCatalog catalog, ReferenceDataCache referenceDataCache) {
+        this.catalog = catalog;
+        this.referenceDataCache = referenceDataCache;
     }
     
     private Firestore getFirestore() {
@@ -44,38 +68,202 @@ public class FirestoreCourseRepository {
         }
     }
 
-    public List<Course> findAll() {
+    /**
+     * Whether a page cursor was issued by {@link #findPage}. Such a cursor is only
+     * followed here, since Mongo need not hold the same ids in the same order.
+     */
+    public static boolean issued(KeysetScrollPosition after) {
+        return CourseKeyset.issuedByFirestore(after);
+    }
+
+    /**
+     * A page of courses. Failures are thrown so that the caller can fall back to Mongo
+     * for a first page.
+     */
+    public Window<Course> findPage(CourseFilter filter, KeysetScrollPosition after, int limit, Set<String> fields) {
+        if (catalog.isLive()) {
+            Window<Course> window = catalog.findPage(filter, after, limit);
+            withReferences(window.getContent(), fields);
+            return window;
+        }
+        boolean byPrice = CourseKeyset.orderedByPrice(filter);
         try {
-            Firestore firestore = getFirestore();
-            List<Course> courses = new ArrayList<>();
-            firestore.collection(COLLECTION_NAME)
-                    .get()
-                    .get()
-                    .getDocuments()
-                    .forEach(document -> {
-                        Course course = convertToCourse(document.getData(), document.getId());
-                        if (course != null) {
-                            courses.add(course);
-                        }
-                    });
-            log.info("Found {} courses in Firestore", courses.size());
-            return courses;
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("Error finding all courses in Firestore", e);
-            return new ArrayList<>();
-        } catch (Exception e) {
-            log.error("Firebase not initialized or Firestore error", e);
-            return new ArrayList<>();
+            List<Course> courses = toCourses(pageQuery(filter, after, limit, fields).get().get(), fields);
+            withReferences(courses, fields);
+            return CourseKeyset.firestoreWindow(courses, limit, byPrice);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Firestore course page failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Firestore course page interrupted", e);
+        }
+    }
+
+    /**
+     * Non-blocking {@link #findPage}: the query future is adapted to a Mono, and
+     * failures are signalled so that the caller can fall back to Mongo.
+     */
+    public Mono<Window<Course>> findPageAsync(CourseFilter filter, KeysetScrollPosition after, int limit,
+                                              Set<String> fields) {
+        if (catalog.isLive()) {
+            return Mono.just(catalog.findPage(filter, after, limit))
+                    .flatMap(window -> withReferencesAsync(window.getContent(), fields).thenReturn(window));
+        }
+        boolean byPrice = CourseKeyset.orderedByPrice(filter);
+        return mono(() -> pageQuery(filter, after, limit, fields).get())
+                .flatMap(snapshot -> withReferencesAsync(toCourses(snapshot, fields), fields))
+                .map(courses -> CourseKeyset.firestoreWindow(courses, limit, byPrice));
+    }
+
+    private Query pageQuery(CourseFilter filter, KeysetScrollPosition after, int limit, Set<String> fields) {
+        boolean byPrice = CourseKeyset.orderedByPrice(filter);
+        Query query = getFirestore().collection(COLLECTION_NAME);
+        if (filter != null) {
+            // Courses hold either a bare id field or an embedded map, as FirestoreCourseMapper reads them;
+            // with a price range, each pairing needs its index from firestore.indexes.json
+            if (filter.getCategoryId() != null) {
+                query = query.where(Filter.or(Filter.equalTo("categoryId", filter.getCategoryId()),
+                        Filter.equalTo("category.id", filter.getCategoryId())));
+            }
+            if (filter.getProfessorId() != null) {
+                query = query.where(Filter.or(Filter.equalTo("professorId", filter.getProfessorId()),
+                        Filter.equalTo("professor.id", filter.getProfessorId())));
+            }
+            if (filter.getPriceMin() != null) {
+                query = query.whereGreaterThanOrEqualTo("price", filter.getPriceMin().doubleValue());
+            }
+            if (filter.getPriceMax() != null) {
+                query = query.whereLessThanOrEqualTo("price", filter.getPriceMax().doubleValue());
+            }
+        }
+        if (byPrice) {
+            query = query.orderBy("price");
+        }
+        query = query.orderBy(FieldPath.documentId());
+        if (fields != null) {
+            query = query.select(CourseProjection.firestoreFields(fields, byPrice));
+        }
+
+        if (after != null) {
+            BigDecimal afterPrice = CourseKeyset.price(after);
+            query = byPrice && afterPrice != null
+                    ? query.startAfter(afterPrice.doubleValue(), CourseKeyset.id(after))
+                    : query.startAfter(CourseKeyset.id(after));
         }
+        return query.limit(limit + 1);
+    }
+
+    private static List<Course> toCourses(QuerySnapshot snapshot, Set<String> fields) {
+        List<Course> courses = new ArrayList<>();
+        snapshot.getDocuments().forEach(document -> {
+            Course course = FirestoreCourseMapper.toCourse(document.getData(), document.getId(), fields);
+            if (course != null) {
+                courses.add(course);
+            }
+        });
+        return courses;
+    }
+
+    /**
+     * A page of {@link #findAllAfter}. {@code lastId} is the id of the last document
+     * read, mapped or not, and {@code last} is set when the collection ends here.
+     */
+    public record ExportPage(List<Course> courses, String lastId, boolean last) {
+    }
+
+    /**
+     * One page of the collection in document id order after {@code afterId}. Unlike
+     * {@link #findPage}, failures are thrown so that a caller walking the whole
+     * collection can tell an error from the end. Documents that cannot be mapped are
+     * skipped without ending the walk.
+     */
+    public ExportPage findAllAfter(String afterId, int limit) throws ExecutionException, InterruptedException {
+        if (catalog.isLive()) {
+            KeysetScrollPosition after = afterId != null ? ScrollPosition.forward(Map.of(CourseKeyset.ID, afterId)) : null;
+            Window<Course> window = catalog.findPage(null, after, limit);
+            String lastId = window.isEmpty() ? afterId : window.getContent().get(window.size() - 1).getId();
+            return new ExportPage(withReferences(window.getContent(), null), lastId, !window.hasNext());
+        }
+        Query query = getFirestore().collection(COLLECTION_NAME).orderBy(FieldPath.documentId()).limit(limit);
+        if (afterId != null) {
+            query = query.startAfter(afterId);
+        }
+        QuerySnapshot snapshot = query.get().get();
+        List<Course> courses = withReferences(toCourses(snapshot, null), null);
+        if (courses.size() < snapshot.size()) {
+            log.warn("Skipped {} Firestore courses that could not be read", snapshot.size() - courses.size());
+        }
+        String lastId = snapshot.isEmpty() ? afterId : snapshot.getDocuments().get(snapshot.size() - 1).getId();
+        return new ExportPage(courses, lastId, snapshot.size() < limit);
+    }
+
+    /**
+     * The courses among {@code ids} that exist, read with a single getAll. Failures are
+     * thrown so that the caller can fall back to another source.
+     */
+    public List<Course> findAllById(Collection<String> ids, Set<String> fields) {
+        if (catalog.isLive()) {
+            return withReferences(ids.stream().map(catalog::findById).flatMap(Optional::stream).toList(), fields);
+        }
+        try {
+            return withReferences(toCourses(getAll(ids, fields).get(), fields), fields);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Firestore getAll failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Firestore getAll interrupted", e);
+        }
+    }
+
+    public Flux<Course> findAllByIdAsync(Collection<String> ids, Set<String> fields) {
+        if (catalog.isLive()) {
+            return Flux.fromIterable(findAllById(ids, fields));
+        }
+        return mono(() -> getAll(ids, fields))
+                .flatMap(documents -> withReferencesAsync(toCourses(documents, fields), fields))
+                .flatMapIterable(courses -> courses);
+    }
+
+    private ApiFuture<List<DocumentSnapshot>> getAll(Collection<String> ids, Set<String> fields) {
+        Firestore firestore = getFirestore();
+        DocumentReference[] references = ids.stream()
+                .map(id -> firestore.collection(COLLECTION_NAME).document(id))
+                .toArray(DocumentReference[]::new);
+        return fields != null
+                ? firestore.getAll(references, FieldMask.of(CourseProjection.firestoreFields(fields, false)))
+                : firestore.getAll(references);
+    }
+
+    private static List<Course> toCourses(List<DocumentSnapshot> documents, Set<String> fields) {
+        List<Course> courses = new ArrayList<>();
+        for (DocumentSnapshot document : documents) {
+            if (document.exists()) {
+                Course course = FirestoreCourseMapper.toCourse(document.getData(), document.getId(), fields);
+                if (course != null) {
+                    courses.add(course);
+                }
+            }
+        }
+        return courses;
     }
 
     public Optional<Course> findById(String id) {
+        return findById(id, null);
+    }
+
+    public Optional<Course> findById(String id, Set<String> fields) {
+        if (catalog.isLive()) {
+            return catalog.findById(id).map(course -> withReferences(course, fields));
+        }
         try {
             Firestore firestore = getFirestore();
-            var document = firestore.collection(COLLECTION_NAME).document(id).get().get();
+            var reference = firestore.collection(COLLECTION_NAME).document(id);
+            var document = fields != null
+                    ? reference.get(FieldMask.of(CourseProjection.firestoreFields(fields, false))).get()
+                    : reference.get().get();
             if (document.exists()) {
-                Course course = convertToCourse(document.getData(), document.getId());
-                return Optional.ofNullable(course);
+                Course course = FirestoreCourseMapper.toCourse(document.getData(), document.getId(), fields);
+                return Optional.ofNullable(course).map(found -> withReferences(found, fields));
             }
             return Optional.empty();
         } catch (InterruptedException | ExecutionException e) {
@@ -87,88 +275,83 @@ public class FirestoreCourseRepository {
         }
     }
 
-    private Course convertToCourse(java.util.Map<String, Object> data, String id) {
-        try {
-            Course course = new Course();
-            course.setId(id);
-            course.setTitle((String) data.getOrDefault("title", ""));
-            course.setDescription((String) data.getOrDefault("description", ""));
-            course.setYoutubeVideoId((String) data.getOrDefault("youtubeVideoId", ""));
-            
-            Object priceObj = data.get("price");
-            if (priceObj != null) {
-                if (priceObj instanceof Number) {
-                    course.setPrice(BigDecimal.valueOf(((Number) priceObj).doubleValue()));
-                } else if (priceObj instanceof String) {
-                    course.setPrice(new BigDecimal((String) priceObj));
-                }
+    /**
+     * Non-blocking {@link #findById(String, Set)}. Unlike the blocking read, failures
+     * are signalled so that the caller can fall back to another source.
+     */
+    public Mono<Course> findByIdAsync(String id, Set<String> fields) {
+        if (catalog.isLive()) {
+            return Mono.justOrEmpty(catalog.findById(id))
+                    .flatMap(course -> withReferencesAsync(List.of(course), fields).thenReturn(course));
+        }
+        return mono(() -> {
+            DocumentReference reference = getFirestore().collection(COLLECTION_NAME).document(id);
+            return fields != null
+                    ? reference.get(FieldMask.of(CourseProjection.firestoreFields(fields, false)))
+                    : reference.get();
+        }).mapNotNull(document -> document.exists()
+                ? FirestoreCourseMapper.toCourse(document.getData(), document.getId(), fields)
+                : null)
+                .flatMap(course -> withReferencesAsync(List.of(course), fields).thenReturn(course));
+    }
+
+    /**
+     * Full reads (no {@code fields}) replace the id-only category and professor that
+     * Firestore courses may hold with the whole documents, looked up in bulk. Projected
+     * reads keep the ids; the GraphQL resolvers load what is selected.
+     */
+    private List<Course> withReferences(List<Course> courses, Set<String> fields) {
+        if (fields != null || courses.isEmpty()) {
+            return courses;
+        }
+        List<String> categoryIds = courses.stream().map(Course::getCategory)
+                .filter(category -> category != null && category.getName() == null)
+                .map(Category::getId).filter(Objects::nonNull).distinct().toList();
+        List<String> professorIds = courses.stream().map(Course::getProfessor)
+                .filter(professor -> professor != null && professor.getFullName() == null)
+                .map(Professor::getId).filter(Objects::nonNull).distinct().toList();
+        Map<String, Category> categories = categoryIds.isEmpty() ? Map.of() : referenceDataCache.findCategories(categoryIds);
+        Map<String, Professor> professors = professorIds.isEmpty() ? Map.of() : referenceDataCache.findProfessors(professorIds);
+        for (Course course : courses) {
+            if (course.getCategory() != null && categories.containsKey(course.getCategory().getId())) {
+                course.setCategory(categories.get(course.getCategory().getId()));
             }
-            
-            Object createdAtObj = data.get("createdAt");
-            if (createdAtObj != null) {
-                if (createdAtObj instanceof com.google.cloud.Timestamp) {
-                    course.setCreatedAt(((com.google.cloud.Timestamp) createdAtObj).toDate().toInstant()
-                            .atZone(ZoneId.systemDefault()).toLocalDateTime());
-                } else if (createdAtObj instanceof java.util.Date) {
-                    course.setCreatedAt(((java.util.Date) createdAtObj).toInstant()
-                            .atZone(ZoneId.systemDefault()).toLocalDateTime());
-                }
+            if (course.getProfessor() != null && professors.containsKey(course.getProfessor().getId())) {
+                course.setProfessor(professors.get(course.getProfessor().getId()));
             }
-            
-            Object categoryObj = data.get("category");
-            if (categoryObj instanceof java.util.Map) {
-                @SuppressWarnings("unchecked")
-                java.util.Map<String, Object> categoryMap = (java.util.Map<String, Object>) categoryObj;
-                Category category = new Category();
-                category.setId((String) categoryMap.getOrDefault("id", ""));
-                category.setName((String) categoryMap.getOrDefault("name", ""));
-                category.setDescription((String) categoryMap.getOrDefault("description", ""));
-                course.setCategory(category);
-            } else {
-                Object categoryIdObj = data.get("categoryId");
-                if (categoryIdObj != null) {
-                    String categoryId = categoryIdObj.toString();
-                    categoryRepository.findById(categoryId).ifPresent(course::setCategory);
-                } else {
-                    // Create default category if missing
-                    Category defaultCategory = new Category();
-                    defaultCategory.setId("0");
-                    defaultCategory.setName("Uncategorized");
-                    course.setCategory(defaultCategory);
+        }
+        return courses;
+    }
+
+    private Course withReferences(Course course, Set<String> fields) {
+        withReferences(List.of(course), fields);
+        return course;
+    }
+
+    // The lookups may read Mongo, so they run off the Firestore callback thread
+    private Mono<List<Course>> withReferencesAsync(List<Course> courses, Set<String> fields) {
+        if (fields != null || courses.isEmpty()) {
+            return Mono.just(courses);
+        }
+        return Mono.fromCallable(() -> withReferences(courses, fields)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Completes on the Firestore client's callback thread, so no request thread waits for the RPC
+    private static <T> Mono<T> mono(Supplier<ApiFuture<T>> call) {
+        return Mono.create(sink -> {
+            ApiFuture<T> future = call.get();
+            ApiFutures.addCallback(future, new ApiFutureCallback<>() {
+                @Override
+                public void onFailure(Throwable throwable) {
+                    sink.error(throwable);
                 }
-            }
-            
-            Object professorObj = data.get("professor");
-            if (professorObj instanceof java.util.Map) {
-                @SuppressWarnings("unchecked")
-                java.util.Map<String, Object> professorMap = (java.util.Map<String, Object>) professorObj;
-                Professor professor = new Professor();
-                professor.setId((String) professorMap.getOrDefault("id", ""));
-                professor.setFullName((String) professorMap.getOrDefault("fullName", ""));
-                professor.setEmail((String) professorMap.getOrDefault("email", ""));
-                professor.setBio((String) professorMap.getOrDefault("bio", ""));
-                professor.setAvatarUrl((String) professorMap.getOrDefault("avatarUrl", ""));
-                course.setProfessor(professor);
-            } else {
-                Object professorIdObj = data.get("professorId");
-                if (professorIdObj != null) {
-                    String professorId = professorIdObj.toString();
-                    professorRepository.findById(professorId).ifPresent(course::setProfessor);
-                } else {
-                    // Create default professor if missing
-                    Professor defaultProfessor = new Professor();
-                    defaultProfessor.setId("0");
-                    defaultProfessor.setFullName("Unknown Professor");
-                    defaultProfessor.setEmail("");
-                    course.setProfessor(defaultProfessor);
+
+                @Override
+                public void onSuccess(T result) {
+                    sink.success(result);
                 }
-            }
-            
-            return course;
-        } catch (Exception e) {
-            log.error("Error converting Firestore data to Course: {}", e.getMessage(), e);
-            return null;
-        }
+            }, MoreExecutors.directExecutor());
+            sink.onCancel(() -> future.cancel(false));
+        });
     }
 }
-
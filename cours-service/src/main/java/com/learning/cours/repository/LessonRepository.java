@@ -2,14 +2,22 @@ package com.learning.cours.repository;
 
 import com.learning.cours.entity.Lesson;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.data.rest.core.annotation.RestResource;
 
+import java.util.Collection;
 import java.util.List;
 
 @RepositoryRestResource(path = "lessons")
 public interface LessonRepository extends MongoRepository<Lesson, String> {
     
+    // Listings never read content, even where it is still stored inline
     @RestResource(path = "by-course")
+    @Query(value = "{ 'courseId': ?0 }", fields = "{ 'content': 0 }")
     List<Lesson> findByCourseId(String courseId);
+
+    @RestResource(exported = false)
+    @Query(value = "{ 'courseId': { $in: ?0 } }", fields = "{ 'content': 0 }")
+    List<Lesson> findByCourseIdIn(Collection<String> courseIds);
 }
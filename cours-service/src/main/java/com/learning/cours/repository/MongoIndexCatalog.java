@@ -0,0 +1,108 @@
+package com.learning.cours.repository;
+
+import com.learning.cours.entity.Category;
+import com.learning.cours.entity.Course;
+import com.learning.cours.entity.CoursePopularity;
+import com.learning.cours.entity.Lesson;
+import com.learning.cours.entity.Professor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition.TextIndexDefinitionBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The indexes the cours-service query paths rely on, created at startup. The
+ * whole-word title and name finders go through text indexes; the substring finders
+ * use a case-insensitive regex, which no index can bound. MongoQueryPlanTest runs the
+ * other repository queries against these indexes and fails on any plan that scans a
+ * collection or index, or sorts in memory.
+ */
+@Component
+@Slf4j
+public class MongoIndexCatalog implements ApplicationRunner {
+
+    /** Fields GET /api/courses may sort by; each one leads an index below, popularity on course_popularity. */
+    public static final Set<String> COURSE_SORT_FIELDS = Set.of("createdAt", "title", "price", "popularity");
+
+    private record IndexSpec(Class<?> type, IndexDefinition index) {
+    }
+
+    private static final List<IndexSpec> INDEXES = List.of(
+            new IndexSpec(Course.class, new Index().named("createdAt_id")
+                    .on("createdAt", Sort.Direction.DESC).on("_id", Sort.Direction.DESC)),
+            new IndexSpec(Course.class, new Index().named("title_id")
+                    .on("title", Sort.Direction.ASC).on("_id", Sort.Direction.ASC)),
+            new IndexSpec(Course.class, new Index().named("price_id")
+                    .on("price", Sort.Direction.ASC).on("_id", Sort.Direction.ASC)),
+            new IndexSpec(Course.class, new Index().named("category_id")
+                    .on("category._id", Sort.Direction.ASC).on("_id", Sort.Direction.ASC)),
+            new IndexSpec(Course.class, new Index().named("professor_id")
+                    .on("professor._id", Sort.Direction.ASC).on("_id", Sort.Direction.ASC)),
+            new IndexSpec(Course.class, new Index().named("category_createdAt_id")
+                    .on("category._id", Sort.Direction.ASC)
+                    .on("createdAt", Sort.Direction.DESC).on("_id", Sort.Direction.DESC)),
+            new IndexSpec(Course.class, new Index().named("professor_createdAt_id")
+                    .on("professor._id", Sort.Direction.ASC)
+                    .on("createdAt", Sort.Direction.DESC).on("_id", Sort.Direction.DESC)),
+            new IndexSpec(Course.class, new Index().named("category_price_id")
+                    .on("category._id", Sort.Direction.ASC)
+                    .on("price", Sort.Direction.ASC).on("_id", Sort.Direction.ASC)),
+            new IndexSpec(Course.class, new Index().named("professor_price_id")
+                    .on("professor._id", Sort.Direction.ASC)
+                    .on("price", Sort.Direction.ASC).on("_id", Sort.Direction.ASC)),
+            new IndexSpec(CoursePopularity.class, new Index().named("popularity_id")
+                    .on("popularity", Sort.Direction.DESC).on("_id", Sort.Direction.DESC)),
+            new IndexSpec(CoursePopularity.class, new Index().named("updatedAt")
+                    .on("updatedAt", Sort.Direction.ASC)),
+            new IndexSpec(Course.class, new TextIndexDefinitionBuilder().named("title_text")
+                    .onField("title").build()),
+            new IndexSpec(Lesson.class, new Index().named("courseId")
+                    .on("courseId", Sort.Direction.ASC)),
+            new IndexSpec(Category.class, new TextIndexDefinitionBuilder().named("name_text")
+                    .onField("name").build()),
+            new IndexSpec(Professor.class, new TextIndexDefinitionBuilder().named("fullName_text")
+                    .onField("fullName").build()),
+            new IndexSpec(Professor.class, new Index().named("email").unique()
+                    .on("email", Sort.Direction.ASC)));
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean createOnStartup;
+
+    public MongoIndexCatalog(MongoTemplate mongoTemplate,
+                             @Value("${mongo-indexes.create-on-startup:true}") boolean createOnStartup) {
+        this.mongoTemplate = mongoTemplate;
+        this.createOnStartup = createOnStartup;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (createOnStartup) {
+            createIndexes();
+        }
+    }
+
+    private void createIndexes() {
+        for (IndexSpec spec : INDEXES) {
+            try {
+                mongoTemplate.indexOps(spec.type()).ensureIndex(spec.index());
+            } catch (DataAccessResourceFailureException e) {
+                log.warn("Mongo unreachable, indexes not created: {}", e.getMessage());
+                return;
+            } catch (Exception e) {
+                log.warn("Index {} on {} not created: {}", spec.index().getIndexOptions().get("name"),
+                        mongoTemplate.getCollectionName(spec.type()), e.getMessage());
+            }
+        }
+        log.info("Ensured {} Mongo indexes", INDEXES.size());
+    }
+}
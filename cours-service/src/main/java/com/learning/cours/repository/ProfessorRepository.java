@@ -2,6 +2,7 @@ package com.learning.cours.repository;
 
 import com.learning.cours.entity.Professor;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.data.rest.core.annotation.RestResource;
 
@@ -16,4 +17,9 @@ public interface ProfessorRepository extends MongoRepository<Professor, String>
     
     @RestResource(path = "by-name")
     List<Professor> findByFullNameContainingIgnoreCase(String name);
+
+    // Whole words, through the fullName text index
+    @RestResource(path = "by-name-words")
+    @Query("{ '$text': { '$search': ?0 } }")
+    List<Professor> searchByFullName(String name);
 }
@@ -0,0 +1,81 @@
+package com.learning.cours.repository;
+
+import com.learning.cours.dto.CourseFilter;
+import com.learning.cours.entity.Course;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Non-blocking course reads for the reactive read mode, with the same queries as
+ * {@link CourseRepository}. Writes always go through the blocking repository.
+ */
+@Repository
+@ConditionalOnProperty(name = "course-read.reactive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReactiveCourseRepository {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public Flux<Course> findAll(Pageable pageable) {
+        return reactiveMongoTemplate.find(new Query().with(pageable), Course.class);
+    }
+
+    public Mono<Long> count() {
+        return reactiveMongoTemplate.count(new Query(), Course.class);
+    }
+
+    public Mono<CourseVersion> findVersionById(String id) {
+        return reactiveMongoTemplate.query(Course.class)
+                .as(CourseVersion.class)
+                .matching(Query.query(Criteria.where("id").is(id)))
+                .one();
+    }
+
+    public Mono<Course> findById(String id, Set<String> fields) {
+        Query query = new Query(Criteria.where("id").is(id));
+        if (fields != null) {
+            query.fields().include(CourseProjection.mongoFields(fields, false));
+        }
+        return reactiveMongoTemplate.findOne(query, Course.class);
+    }
+
+    public Flux<Course> findAllById(Collection<String> ids, Set<String> fields) {
+        Query query = new Query(Criteria.where("id").in(ids));
+        if (fields != null) {
+            query.fields().include(CourseProjection.mongoFields(fields, false));
+        }
+        return reactiveMongoTemplate.find(query, Course.class);
+    }
+
+    public Flux<Course> findByTitleContainingIgnoreCase(String title, Pageable pageable) {
+        return reactiveMongoTemplate.find(titleQuery(title).with(pageable), Course.class);
+    }
+
+    public Mono<Long> countByTitleContainingIgnoreCase(String title) {
+        return reactiveMongoTemplate.count(titleQuery(title), Course.class);
+    }
+
+    public Mono<Window<Course>> findPage(CourseFilter filter, KeysetScrollPosition after, int limit,
+                                         Set<String> fields) {
+        return reactiveMongoTemplate.find(CourseRepositoryCustomImpl.pageQuery(filter, after, limit, fields), Course.class)
+                .collectList()
+                .map(courses -> CourseKeyset.window(courses, limit, CourseKeyset.orderedByPrice(filter)));
+    }
+
+    private static Query titleQuery(String title) {
+        return new Query(Criteria.where("title").regex(Pattern.quote(title), "i"));
+    }
+}
@@ -0,0 +1,42 @@
+package com.learning.cours.search;
+
+import com.learning.cours.security.InternalServiceTokenFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+
+/**
+ * Reads the anonymized co-enrollment export of inscription-service: one list of
+ * course ids per student who follows several courses.
+ */
+@Component
+public class CoEnrollmentSource {
+
+    private static final ParameterizedTypeReference<List<List<String>>> BASKETS = new ParameterizedTypeReference<>() {
+    };
+
+    private final RestClient restClient;
+    private final String url;
+    private final String serviceToken;
+
+    public CoEnrollmentSource(RestClient.Builder loadBalancedRestClientBuilder,
+                              @Value("${course-related.co-enrollment-url:http://inscription-service/internal/enrollments/course-baskets}")
+                              String url,
+                              @Value("${internal.service-token:}") String serviceToken) {
+        this.restClient = loadBalancedRestClientBuilder.build();
+        this.url = url;
+        this.serviceToken = serviceToken;
+    }
+
+    public List<List<String>> fetchCourseBaskets() {
+        List<List<String>> baskets = restClient.get()
+                .uri(url)
+                .header(InternalServiceTokenFilter.HEADER, serviceToken)
+                .retrieve()
+                .body(BASKETS);
+        return baskets != null ? baskets : List.of();
+    }
+}
@@ -0,0 +1,401 @@
+package com.learning.cours.search;
+
+import com.learning.cours.dto.CourseFilter;
+import com.learning.cours.event.CourseChangedEvent;
+import com.mongodb.DBRef;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Facet index over dense course ordinals. It keeps one Roaring bitmap for each
+ * category, professor and price bucket. Filters are bitmap intersections. Each facet
+ * is counted against the filters of the other facets, so the UI can show how many
+ * results every alternative value would give.
+ *
+ * <p>Ordinals follow {@code createdAt} at load time and new courses are appended, so
+ * iterating a bitmap in reverse lists the newest courses first. Deleted ordinals are
+ * not reused; once they make up half of the index the live ones are renumbered in
+ * order. Changes from {@link CourseChangedEvent} are applied copy-on-write on the
+ * worker thread, and each refresh publishes a new immutable snapshot.
+ */
+@Component
+@Slf4j
+public class CourseFacetIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String PROFESSOR = "professor";
+    public static final String PRICE = "price";
+
+    private static final String COLLECTION_NAME = "courses";
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+    private static final int MIN_COMPACTION_GARBAGE = 1024;
+
+    public record FacetResult(List<String> courseIds, long total, Map<String, Map<String, Long>> counts) {
+    }
+
+    private record Entry(String id, String categoryId, String professorId, BigDecimal price) {
+    }
+
+    private record Snapshot(Entry[] entries, int size, RoaringBitmap live,
+                            Map<String, RoaringBitmap> categories,
+                            Map<String, RoaringBitmap> professors,
+                            Map<String, RoaringBitmap> prices) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final Duration refreshInterval;
+    private final BigDecimal[] bucketBounds;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "course-facet-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Snapshot snapshot;
+    private volatile boolean ready;
+
+    // Owned by the worker thread
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private Instant retryAt = Instant.EPOCH;
+
+    public CourseFacetIndex(MongoTemplate mongoTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${course-facets.enabled:true}") boolean enabled,
+                            @Value("${course-facets.refresh-interval:1s}") Duration refreshInterval,
+                            @Value("${course-facets.price-buckets:0,20,50,100,200}") List<BigDecimal> bucketBounds) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.refreshInterval = refreshInterval;
+        this.bucketBounds = bucketBounds.stream().sorted().toArray(BigDecimal[]::new);
+        this.snapshot = new Snapshot(new Entry[0], 0, new RoaringBitmap(), Map.of(), Map.of(), Map.of());
+        Gauge.builder("course.facets.documents", this, index -> index.snapshot.live().getCardinality())
+                .register(meterRegistry);
+        Gauge.builder("course.facets.bytes", this, CourseFacetIndex::sizeInBytes)
+                .description("Serialized size of all facet bitmaps")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Course facet index disabled");
+            return;
+        }
+        worker.scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        pending.add(event.courseId());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Filters by category, professor and price bucket with bitmap intersections. The
+     * optional price range of {@code filter} is checked per course and becomes one more
+     * bitmap. Returns the requested page, newest first, together with the counts of
+     * every facet.
+     */
+    public FacetResult query(CourseFilter filter, String priceBucket, int offset, int limit) {
+        Snapshot current = snapshot;
+        RoaringBitmap byCategory = select(current.categories(), filter != null ? filter.getCategoryId() : null);
+        RoaringBitmap byProfessor = select(current.professors(), filter != null ? filter.getProfessorId() : null);
+        RoaringBitmap byPrice = select(current.prices(), priceBucket);
+        RoaringBitmap byRange = filter != null && filter.hasPriceRange() ? inRange(current, filter) : null;
+
+        RoaringBitmap matching = intersect(current.live(), byCategory, byProfessor, byPrice, byRange);
+
+        Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+        counts.put(CATEGORY, count(current.categories(), intersect(current.live(), byProfessor, byPrice, byRange)));
+        counts.put(PROFESSOR, count(current.professors(), intersect(current.live(), byCategory, byPrice, byRange)));
+        counts.put(PRICE, count(current.prices(), intersect(current.live(), byCategory, byProfessor, byRange)));
+
+        List<String> page = new ArrayList<>(Math.max(0, Math.min(limit, matching.getCardinality())));
+        IntIterator newestFirst = matching.getReverseIntIterator();
+        for (int skipped = 0; skipped < offset && newestFirst.hasNext(); skipped++) {
+            newestFirst.next();
+        }
+        while (page.size() < limit && newestFirst.hasNext()) {
+            page.add(current.entries()[newestFirst.next()].id());
+        }
+        return new FacetResult(page, matching.getLongCardinality(), counts);
+    }
+
+    private String bucketLabel(int bucket) {
+        if (bucket < 0) {
+            return null;
+        }
+        if (bucket == bucketBounds.length - 1) {
+            return bucketBounds[bucket].toPlainString() + "+";
+        }
+        return bucketBounds[bucket].toPlainString() + "-" + bucketBounds[bucket + 1].toPlainString();
+    }
+
+    private static RoaringBitmap select(Map<String, RoaringBitmap> facet, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return facet.getOrDefault(value, new RoaringBitmap());
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap live, RoaringBitmap... filters) {
+        RoaringBitmap result = live;
+        for (RoaringBitmap filter : filters) {
+            if (filter != null) {
+                result = RoaringBitmap.and(result, filter);
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Long> count(Map<String, RoaringBitmap> facet, RoaringBitmap base) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        facet.forEach((value, bitmap) -> {
+            int count = RoaringBitmap.andCardinality(bitmap, base);
+            if (count > 0) {
+                counts.put(value, (long) count);
+            }
+        });
+        return counts;
+    }
+
+    private static RoaringBitmap inRange(Snapshot current, CourseFilter filter) {
+        RoaringBitmap result = new RoaringBitmap();
+        current.live().forEach((int ordinal) -> {
+            BigDecimal price = current.entries()[ordinal].price();
+            if (price != null
+                    && (filter.getPriceMin() == null || price.compareTo(filter.getPriceMin()) >= 0)
+                    && (filter.getPriceMax() == null || price.compareTo(filter.getPriceMax()) <= 0)) {
+                result.add(ordinal);
+            }
+        });
+        return result;
+    }
+
+    private void refresh() {
+        try {
+            if (!ready) {
+                if (Instant.now().isAfter(retryAt)) {
+                    load();
+                }
+                return;
+            }
+            if (!pending.isEmpty()) {
+                applyPending();
+            }
+        } catch (Exception e) {
+            log.warn("Course facet index refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private void load() {
+        try {
+            Query query = projection(new Query()).with(Sort.by("createdAt", "_id"));
+            List<Entry> entries = mongoTemplate.find(query, Document.class, COLLECTION_NAME).stream()
+                    .map(this::entry)
+                    .toList();
+            ordinals.clear();
+            snapshot = apply(empty(entries.size()), entries, Set.of());
+            ready = true;
+            log.info("Course facet index loaded with {} courses", entries.size());
+        } catch (Exception e) {
+            retryAt = Instant.now().plus(RETRY_DELAY);
+            log.warn("Course facet index unavailable, retrying in {}: {}", RETRY_DELAY, e.getMessage());
+        }
+    }
+
+    private void applyPending() {
+        Set<String> ids = new HashSet<>(pending);
+        pending.removeAll(ids);
+        try {
+            Query query = projection(Query.query(Criteria.where("_id").in(ids)));
+            List<Entry> entries = mongoTemplate.find(query, Document.class, COLLECTION_NAME).stream()
+                    .map(this::entry)
+                    .toList();
+            Set<String> removed = new HashSet<>(ids);
+            entries.forEach(entry -> removed.remove(entry.id()));
+            Snapshot updated = apply(snapshot, entries, removed);
+            int garbage = updated.size() - updated.live().getCardinality();
+            snapshot = garbage >= MIN_COMPACTION_GARBAGE && garbage * 2 >= updated.size() ? compact(updated) : updated;
+        } catch (RuntimeException e) {
+            pending.addAll(ids);
+            throw e;
+        }
+    }
+
+    // Renumbers the live entries densely, oldest first
+    private Snapshot compact(Snapshot current) {
+        List<Entry> live = new ArrayList<>(current.live().getCardinality());
+        current.live().forEach((int ordinal) -> live.add(current.entries()[ordinal]));
+        ordinals.clear();
+        log.debug("Compacting the course facet index from {} to {} ordinals", current.size(), live.size());
+        return apply(empty(live.size()), live, Set.of());
+    }
+
+    private static Snapshot empty(int capacity) {
+        return new Snapshot(new Entry[Math.max(16, capacity)], 0, new RoaringBitmap(), Map.of(), Map.of(), Map.of());
+    }
+
+    private Snapshot apply(Snapshot current, List<Entry> changed, Set<String> removed) {
+        // Published snapshots share the array with readers, so changes go to a copy
+        Entry[] entries = Arrays.copyOf(current.entries(),
+                Math.max(current.entries().length, current.size() + changed.size()));
+        int size = current.size();
+        RoaringBitmap live = current.live().clone();
+        Map<String, RoaringBitmap> categories = new HashMap<>(current.categories());
+        Map<String, RoaringBitmap> professors = new HashMap<>(current.professors());
+        Map<String, RoaringBitmap> prices = new HashMap<>(current.prices());
+        Set<RoaringBitmap> copied = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (String id : removed) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal != null) {
+                unindex(entries[ordinal], ordinal, categories, professors, prices, copied);
+                live.remove(ordinal);
+            }
+        }
+        for (Entry entry : changed) {
+            Integer ordinal = ordinals.get(entry.id());
+            if (ordinal != null) {
+                unindex(entries[ordinal], ordinal, categories, professors, prices, copied);
+            } else {
+                ordinal = size++;
+                ordinals.put(entry.id(), ordinal);
+            }
+            entries[ordinal] = entry;
+            live.add(ordinal);
+            add(categories, entry.categoryId(), ordinal, copied);
+            add(professors, entry.professorId(), ordinal, copied);
+            add(prices, bucketLabel(bucket(entry.price())), ordinal, copied);
+        }
+        categories.values().removeIf(RoaringBitmap::isEmpty);
+        professors.values().removeIf(RoaringBitmap::isEmpty);
+        prices.values().removeIf(RoaringBitmap::isEmpty);
+        copied.forEach(RoaringBitmap::runOptimize);
+        live.runOptimize();
+        return new Snapshot(entries, size, live, Map.copyOf(categories), Map.copyOf(professors), Map.copyOf(prices));
+    }
+
+    private void unindex(Entry entry, int ordinal, Map<String, RoaringBitmap> categories,
+                         Map<String, RoaringBitmap> professors, Map<String, RoaringBitmap> prices,
+                         Set<RoaringBitmap> copied) {
+        remove(categories, entry.categoryId(), ordinal, copied);
+        remove(professors, entry.professorId(), ordinal, copied);
+        remove(prices, bucketLabel(bucket(entry.price())), ordinal, copied);
+    }
+
+    private static void add(Map<String, RoaringBitmap> facet, String value, int ordinal, Set<RoaringBitmap> copied) {
+        if (value != null) {
+            mutable(facet, value, copied).add(ordinal);
+        }
+    }
+
+    private static void remove(Map<String, RoaringBitmap> facet, String value, int ordinal, Set<RoaringBitmap> copied) {
+        if (value != null && facet.containsKey(value)) {
+            mutable(facet, value, copied).remove(ordinal);
+        }
+    }
+
+    /**
+     * Bitmaps of the published snapshot are shared with readers, so each one is cloned
+     * before its first change in a refresh.
+     */
+    private static RoaringBitmap mutable(Map<String, RoaringBitmap> facet, String value, Set<RoaringBitmap> copied) {
+        RoaringBitmap bitmap = facet.get(value);
+        if (bitmap == null || !copied.contains(bitmap)) {
+            bitmap = bitmap == null ? new RoaringBitmap() : bitmap.clone();
+            copied.add(bitmap);
+            facet.put(value, bitmap);
+        }
+        return bitmap;
+    }
+
+    private int bucket(BigDecimal price) {
+        if (price == null) {
+            return -1;
+        }
+        int bucket = -1;
+        for (int i = 0; i < bucketBounds.length && price.compareTo(bucketBounds[i]) >= 0; i++) {
+            bucket = i;
+        }
+        return bucket;
+    }
+
+    private static Query projection(Query query) {
+        query.fields().include("category", "professor", "price");
+        return query;
+    }
+
+    private Entry entry(Document document) {
+        Object price = document.get("price");
+        BigDecimal amount = price instanceof Decimal128 decimal ? decimal.bigDecimalValue()
+                : price instanceof Number number ? new BigDecimal(number.toString())
+                : null;
+        return new Entry(document.get("_id").toString(), referenceId(document.get("category")),
+                referenceId(document.get("professor")), amount);
+    }
+
+    private static String referenceId(Object reference) {
+        if (reference instanceof DBRef dbRef) {
+            return dbRef.getId().toString();
+        }
+        if (reference instanceof Document document && document.get("_id") != null) {
+            return document.get("_id").toString();
+        }
+        return null;
+    }
+
+    private long sizeInBytes() {
+        Snapshot current = snapshot;
+        long bytes = current.live().serializedSizeInBytes();
+        for (Map<String, RoaringBitmap> facet : List.of(current.categories(), current.professors(), current.prices())) {
+            for (RoaringBitmap bitmap : facet.values()) {
+                bytes += bitmap.serializedSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.shutdownNow();
+    }
+}
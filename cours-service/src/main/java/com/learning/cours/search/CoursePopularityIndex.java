@@ -0,0 +1,401 @@
+package com.learning.cours.search;
+
+import com.learning.cours.entity.Course;
+import com.learning.cours.entity.CoursePopularity;
+import com.learning.cours.event.CourseChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Course popularity, kept current from enrollment and video view signals in the
+ * {@code course_popularity} collection, whose {@code popularity_id} index serves
+ * {@code sortBy=popularity} pages as range reads.
+ *
+ * <p>Scores decay exponentially with {@code course-popularity.half-life}. A signal
+ * adds its weight scaled by {@code 2^((t - epoch) / halfLife)} instead of every score
+ * being decayed over time, so all scores keep their relative order and a signal is a
+ * single {@code $inc}. The epoch moves forward every {@value #REBASE_HALF_LIVES}
+ * half-lives and the stored scores are scaled down to it, so that the scale never
+ * grows past {@code 2^}{@value #REBASE_HALF_LIVES}. Signals are batched in memory and
+ * written every {@code course-popularity.flush-interval}; scores changed by any
+ * instance are read back every {@code course-popularity.resync-interval} for
+ * {@link #score(String)}.
+ */
+@Component
+@Slf4j
+public class CoursePopularityIndex {
+
+    public enum Signal {
+        ENROLLMENT,
+        VIEWS
+    }
+
+    /** A course and its score; also the keyset position of popularity cursors. */
+    public record Ranked(String courseId, double score) {
+    }
+
+    public record RankedPage(List<Ranked> courses, boolean hasNext) {
+    }
+
+    static final int REBASE_HALF_LIVES = 32;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+    // Writes from other instances may land with a slightly earlier updatedAt than one already read
+    private static final Duration RESYNC_OVERLAP = Duration.ofSeconds(30);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final long epochMillis;
+    private final long halfLifeMillis;
+    private final double enrollmentWeight;
+    private final double viewsWeight;
+    private final Duration flushInterval;
+    private final Duration resyncInterval;
+    private final Map<Signal, Counter> signalCounters = new EnumMap<>(Signal.class);
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "course-popularity");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, Double> scores = new ConcurrentHashMap<>();
+    // Pending writes, guarded by the index lock; increments are scaled to unflushedEpoch
+    private Map<String, Double> unflushed = new HashMap<>();
+    private long unflushedEpoch;
+    private Set<String> created = new HashSet<>();
+    private Set<String> deleted = new HashSet<>();
+    private volatile boolean ready;
+    private long rebasedEpoch = Long.MIN_VALUE;
+    private Instant retryAt = Instant.EPOCH;
+    private Instant resyncAt = Instant.EPOCH;
+    private Instant syncedUntil = Instant.EPOCH;
+
+    public CoursePopularityIndex(MongoTemplate mongoTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${course-popularity.enabled:true}") boolean enabled,
+                                 @Value("${course-popularity.epoch:2026-01-01T00:00:00Z}") Instant epoch,
+                                 @Value("${course-popularity.half-life:14d}") Duration halfLife,
+                                 @Value("${course-popularity.weights.enrollment:1.0}") double enrollmentWeight,
+                                 @Value("${course-popularity.weights.views:0.5}") double viewsWeight,
+                                 @Value("${course-popularity.flush-interval:10s}") Duration flushInterval,
+                                 @Value("${course-popularity.resync-interval:1m}") Duration resyncInterval) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.epochMillis = epoch.toEpochMilli();
+        this.halfLifeMillis = Math.max(halfLife.toMillis(), 1);
+        this.enrollmentWeight = enrollmentWeight;
+        this.viewsWeight = viewsWeight;
+        this.flushInterval = flushInterval;
+        this.resyncInterval = resyncInterval;
+        this.unflushedEpoch = currentEpoch();
+        for (Signal signal : Signal.values()) {
+            signalCounters.put(signal, Counter.builder("course.popularity.signals")
+                    .description("Popularity signals received")
+                    .tag("type", signal.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("course.popularity.courses", scores, Map::size)
+                .description("Courses with a popularity score read back")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Course popularity disabled");
+            return;
+        }
+        worker.scheduleWithFixedDelay(this::refresh, 0, flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Adds a signal to a course's score. Enrollments count linearly; view counts are
+     * damped with {@code ln(1 + views)} so that a viral video does not drown out every
+     * other signal.
+     */
+    public synchronized void record(String courseId, Signal signal, long count) {
+        double weight = switch (signal) {
+            case ENROLLMENT -> enrollmentWeight * count;
+            case VIEWS -> viewsWeight * Math.log1p(count);
+        };
+        long now = System.currentTimeMillis();
+        rescaleUnflushed(currentEpoch(now));
+        signalCounters.get(signal).increment();
+        unflushed.merge(courseId, weight * scale(now - unflushedEpoch), Double::sum);
+    }
+
+    @EventListener
+    public synchronized void onCourseChanged(CourseChangedEvent event) {
+        if (event.type() == CourseChangedEvent.Type.CREATED) {
+            created.add(event.courseId());
+        } else if (event.type() == CourseChangedEvent.Type.DELETED) {
+            delete(event.courseId());
+        }
+    }
+
+    // Inserts start at version 0; later saves leave the score alone
+    @EventListener
+    public synchronized void onAfterSave(AfterSaveEvent<?> event) {
+        if (event.getSource() instanceof Course course && course.getId() != null
+                && (course.getVersion() == null || course.getVersion() == 0)) {
+            created.add(course.getId());
+        }
+    }
+
+    @EventListener
+    public synchronized void onAfterDelete(AfterDeleteEvent<?> event) {
+        if (Course.class.equals(event.getType())
+                && (event.getSource().get("_id") instanceof ObjectId || event.getSource().get("_id") instanceof String)) {
+            delete(event.getSource().get("_id").toString());
+        }
+    }
+
+    /**
+     * The {@code limit} courses after {@code after} (from the start when null), most
+     * popular first or, ascending, least popular first, read as one range of the
+     * popularity index. Ties are broken by id, so positions are stable between pages.
+     */
+    public RankedPage page(Ranked after, int limit, Sort.Direction direction) {
+        Query query = new Query();
+        if (after != null) {
+            query.addCriteria(direction.isDescending()
+                    ? new Criteria().orOperator(Criteria.where("popularity").lt(after.score()),
+                    Criteria.where("popularity").is(after.score()).and("id").lt(after.courseId()))
+                    : new Criteria().orOperator(Criteria.where("popularity").gt(after.score()),
+                    Criteria.where("popularity").is(after.score()).and("id").gt(after.courseId())));
+        }
+        return read(query, limit, direction);
+    }
+
+    /** The {@code limit} courses from position {@code offset}, in the order of {@link #page(Ranked, int, Sort.Direction)}. */
+    public RankedPage page(long offset, int limit, Sort.Direction direction) {
+        return read(new Query().skip(offset), limit, direction);
+    }
+
+    public long size() {
+        return mongoTemplate.estimatedCount(CoursePopularity.class);
+    }
+
+    /** The last score read back for a course, 0 for an unranked one or before the index is ready. */
+    public double score(String courseId) {
+        return scores.getOrDefault(courseId, 0.0);
+    }
+
+    private RankedPage read(Query query, int limit, Sort.Direction direction) {
+        query.with(Sort.by(direction, "popularity", "id")).limit(limit + 1);
+        query.fields().include("popularity");
+        List<Ranked> page = mongoTemplate.find(query, CoursePopularity.class).stream()
+                .map(course -> new Ranked(course.getId(), course.getPopularity()))
+                .toList();
+        return page.size() > limit
+                ? new RankedPage(page.subList(0, limit), true)
+                : new RankedPage(page, false);
+    }
+
+    // Caller holds the index lock
+    private void delete(String courseId) {
+        created.remove(courseId);
+        unflushed.remove(courseId);
+        deleted.add(courseId);
+        scores.remove(courseId);
+    }
+
+    private long currentEpoch() {
+        return currentEpoch(System.currentTimeMillis());
+    }
+
+    // The start of the rebase period holding now
+    private long currentEpoch(long now) {
+        long period = halfLifeMillis * REBASE_HALF_LIVES;
+        return epochMillis + Math.floorDiv(now - epochMillis, period) * period;
+    }
+
+    private double scale(long elapsedMillis) {
+        return Math.pow(2, (double) elapsedMillis / halfLifeMillis);
+    }
+
+    // Caller holds the index lock
+    private void rescaleUnflushed(long epoch) {
+        if (epoch != unflushedEpoch) {
+            double factor = scale(unflushedEpoch - epoch);
+            unflushed.replaceAll((id, increment) -> increment * factor);
+            unflushedEpoch = epoch;
+        }
+    }
+
+    private void refresh() {
+        try {
+            if (!ready) {
+                if (Instant.now().isAfter(retryAt)) {
+                    load();
+                }
+                return;
+            }
+            rebase(currentEpoch());
+            flush();
+            if (Instant.now().isAfter(resyncAt)) {
+                resync();
+            }
+        } catch (Exception e) {
+            log.warn("Course popularity refresh failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Gives every course without a score one, carrying over the score courses stored
+     * before popularity had its own collection, then rebases and reads all scores.
+     */
+    private void load() {
+        try {
+            mongoTemplate.getCollection(mongoTemplate.getCollectionName(Course.class)).aggregate(List.of(
+                    new Document("$project", new Document("popularity", new Document("$ifNull", List.of("$popularity", 0.0)))
+                            .append("epoch", new Document("$literal", epochMillis))
+                            .append("updatedAt", "$$NOW")),
+                    new Document("$merge", new Document("into", mongoTemplate.getCollectionName(CoursePopularity.class))
+                            .append("on", "_id")
+                            .append("whenMatched", "keepExisting")
+                            .append("whenNotMatched", "insert")))).toCollection();
+            rebase(currentEpoch());
+            int loaded = resync();
+            ready = true;
+            log.info("Course popularity loaded for {} courses", loaded);
+        } catch (Exception e) {
+            retryAt = Instant.now().plus(RETRY_DELAY);
+            log.warn("Course popularity unavailable, retrying in {}: {}", RETRY_DELAY, e.getMessage());
+        }
+    }
+
+    /**
+     * Scales the scores stored against an earlier epoch down to {@code epoch}, one
+     * epoch at a time; every instance does this at most once per rebase period, and
+     * doing it again changes nothing.
+     */
+    private void rebase(long epoch) {
+        if (epoch == rebasedEpoch) {
+            return;
+        }
+        List<Long> stale = mongoTemplate.findDistinct(Query.query(Criteria.where("epoch").lt(epoch)), "epoch",
+                CoursePopularity.class, Long.class);
+        for (long previous : stale) {
+            long rescaled = mongoTemplate.updateMulti(Query.query(Criteria.where("epoch").is(previous)),
+                    new Update().multiply("popularity", scale(previous - epoch))
+                            .set("epoch", epoch)
+                            .currentDate("updatedAt"),
+                    CoursePopularity.class).getModifiedCount();
+            log.info("Course popularity rebased {} scores from {} to {}", rescaled,
+                    Instant.ofEpochMilli(previous), Instant.ofEpochMilli(epoch));
+        }
+        rebasedEpoch = epoch;
+    }
+
+    /**
+     * Reads back the scores written since the last read, by this instance or any
+     * other, so that {@link #score(String)} follows every signal.
+     */
+    private int resync() {
+        Query query = Query.query(Criteria.where("updatedAt").gt(syncedUntil.minus(RESYNC_OVERLAP)));
+        query.fields().include("popularity").include("updatedAt");
+        List<CoursePopularity> changed = mongoTemplate.find(query, CoursePopularity.class);
+        Set<String> removed;
+        synchronized (this) {
+            removed = Set.copyOf(deleted);
+        }
+        for (CoursePopularity course : changed) {
+            if (!removed.contains(course.getId())) {
+                scores.put(course.getId(), course.getPopularity());
+            }
+            if (course.getUpdatedAt() != null && course.getUpdatedAt().isAfter(syncedUntil)) {
+                syncedUntil = course.getUpdatedAt();
+            }
+        }
+        resyncAt = Instant.now().plus(resyncInterval);
+        return changed.size();
+    }
+
+    /**
+     * Writes new courses, score increments and removed courses in one ordered bulk, so
+     * that a new course exists before its first increment. Increments only apply to a
+     * score already rebased to their epoch, so that one scaled to a newer epoch is
+     * never added to an older score.
+     */
+    private void flush() {
+        Map<String, Double> increments;
+        Set<String> inserts;
+        Set<String> removals;
+        long epoch;
+        synchronized (this) {
+            rescaleUnflushed(currentEpoch());
+            if (unflushed.isEmpty() && created.isEmpty() && deleted.isEmpty()) {
+                return;
+            }
+            increments = unflushed;
+            inserts = created;
+            removals = deleted;
+            epoch = unflushedEpoch;
+            unflushed = new HashMap<>();
+            created = new HashSet<>();
+            deleted = new HashSet<>();
+        }
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, CoursePopularity.class);
+            inserts.forEach(id -> bulk.upsert(Query.query(Criteria.where("id").is(id)),
+                    new Update().setOnInsert("popularity", 0.0).setOnInsert("epoch", epoch).currentDate("updatedAt")));
+            increments.forEach((id, increment) -> bulk.updateOne(
+                    Query.query(Criteria.where("id").is(id).and("epoch").is(epoch)),
+                    new Update().inc("popularity", increment).currentDate("updatedAt")));
+            removals.forEach(id -> bulk.remove(Query.query(Criteria.where("id").is(id))));
+            bulk.execute();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                double factor = scale(epoch - unflushedEpoch);
+                increments.forEach((id, increment) -> unflushed.merge(id, increment * factor, Double::sum));
+                created.addAll(inserts);
+                deleted.addAll(removals);
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.shutdownNow();
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Unflushed course popularity lost on shutdown: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,566 @@
+package com.learning.cours.search;
+
+import com.learning.cours.entity.Course;
+import com.learning.cours.event.CourseChangedEvent;
+import com.learning.cours.repository.CourseRepository;
+import com.learning.cours.repository.CourseVersion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full-text course search over immutable, memory-mapped segments ranked with BM25.
+ *
+ * <p>Course saves and deletes, seen as Mongo mapping events so that Data REST writes
+ * are included, and writes reported through {@link CourseChangedEvent}, are collected
+ * and flushed every refresh interval. Each flush marks the previous versions of those courses as
+ * deleted and writes the current versions to a new segment. When there are more than
+ * {@code max-segments} segments, the smallest ones are merged in the background. The
+ * {@code segments} manifest is the commit point, so a restart reopens the last commit
+ * instead of re-reading Mongo. Every segment records the version of each course it
+ * holds, and the reopened index is reconciled against the versions in Mongo, so
+ * writes missed while the service was down or before a crash are reindexed. Search cost grows with the postings of the query
+ * terms, not with the size of the catalog.
+ */
+@Component
+@Slf4j
+public class CourseSearchIndex {
+
+    private static final String MANIFEST = "segments";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String DELETES_SUFFIX = ".del";
+    private static final String VERSIONS_SUFFIX = ".ver";
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int REBUILD_PAGE_SIZE = 500;
+    private static final int MAX_SEGMENT_DOCS = 50_000;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    private record SegmentView(IndexSegment segment, long[] versions, BitSet deleted, int deleteGeneration) {
+
+        int liveDocs() {
+            return segment.docCount() - deleted.cardinality();
+        }
+    }
+
+    private record Location(String segment, int ordinal) {
+    }
+
+    private record Snapshot(List<SegmentView> segments, long docCount, long totalLength) {
+
+        static Snapshot of(List<SegmentView> segments) {
+            long docCount = 0;
+            long totalLength = 0;
+            for (SegmentView view : segments) {
+                docCount += view.segment().docCount();
+                totalLength += view.segment().totalLength();
+            }
+            return new Snapshot(List.copyOf(segments), docCount, totalLength);
+        }
+    }
+
+    private final CourseRepository courseRepository;
+    private final boolean enabled;
+    private final Path directory;
+    private final Duration refreshInterval;
+    private final int maxSegments;
+    private final Timer searchTimer;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "course-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Snapshot snapshot = Snapshot.of(List.of());
+    private volatile boolean ready;
+    private volatile boolean reconcileRequested;
+
+    // Owned by the worker thread
+    private final Map<String, Location> locations = new HashMap<>();
+    private long nextSegment;
+    private Instant retryAt = Instant.EPOCH;
+
+    public CourseSearchIndex(CourseRepository courseRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${course-search.enabled:true}") boolean enabled,
+                             @Value("${course-search.directory:data/course-index}") String directory,
+                             @Value("${course-search.refresh-interval:1s}") Duration refreshInterval,
+                             @Value("${course-search.max-segments:8}") int maxSegments) {
+        this.courseRepository = courseRepository;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.refreshInterval = refreshInterval;
+        this.maxSegments = Math.max(2, maxSegments);
+        this.searchTimer = Timer.builder("course.search.latency")
+                .description("Latency of full-text course searches")
+                .register(meterRegistry);
+        Gauge.builder("course.search.segments", this, index -> index.snapshot.segments().size())
+                .register(meterRegistry);
+        Gauge.builder("course.search.documents", this,
+                        index -> index.snapshot.segments().stream().mapToInt(SegmentView::liveDocs).sum())
+                .register(meterRegistry);
+        Gauge.builder("course.search.pending", pending, Set::size)
+                .description("Course changes not yet visible to search")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Course search index disabled");
+            return;
+        }
+        worker.scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        pending.add(event.courseId());
+    }
+
+    @EventListener
+    public void onAfterSave(AfterSaveEvent<?> event) {
+        if (event.getSource() instanceof Course course && course.getId() != null) {
+            pending.add(course.getId());
+        }
+    }
+
+    // A delete by id names its course; any other filter is resolved against Mongo
+    @EventListener
+    public void onAfterDelete(AfterDeleteEvent<?> event) {
+        if (!Course.class.equals(event.getType())) {
+            return;
+        }
+        Object id = event.getSource().get("_id");
+        if (id instanceof ObjectId || id instanceof String) {
+            pending.add(id.toString());
+        } else {
+            reconcileRequested = true;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public SearchResult search(String query, int offset, int limit) {
+        Snapshot current = snapshot;
+        List<String> terms = TextAnalyzer.tokens(query).stream().distinct().toList();
+        if (terms.isEmpty() || current.docCount() == 0 || limit <= 0) {
+            return SearchResult.empty();
+        }
+        Timer.Sample sample = Timer.start();
+        double averageLength = Math.max(1.0, (double) current.totalLength() / current.docCount());
+        Map<String, Double> scores = new HashMap<>();
+
+        for (String term : terms) {
+            int[] termIndexes = new int[current.segments().size()];
+            long docFrequency = 0;
+            for (int i = 0; i < termIndexes.length; i++) {
+                IndexSegment segment = current.segments().get(i).segment();
+                termIndexes[i] = segment.findTerm(term);
+                if (termIndexes[i] >= 0) {
+                    docFrequency += segment.docFrequency(termIndexes[i]);
+                }
+            }
+            if (docFrequency == 0) {
+                continue;
+            }
+            double idf = Math.log(1 + (current.docCount() - docFrequency + 0.5) / (docFrequency + 0.5));
+            for (int i = 0; i < termIndexes.length; i++) {
+                if (termIndexes[i] < 0) {
+                    continue;
+                }
+                SegmentView view = current.segments().get(i);
+                IndexSegment segment = view.segment();
+                segment.forEachPosting(termIndexes[i], (ordinal, frequency) -> {
+                    if (view.deleted().get(ordinal)) {
+                        return;
+                    }
+                    double norm = K1 * (1 - B + B * segment.length(ordinal) / averageLength);
+                    double score = idf * frequency * (K1 + 1) / (frequency + norm);
+                    scores.merge(segment.id(ordinal), score, Double::sum);
+                });
+            }
+        }
+
+        Comparator<Map.Entry<String, Double>> ranking = Map.Entry.<String, Double>comparingByValue()
+                .reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+        int wanted = (int) Math.min((long) offset + limit, scores.size());
+        PriorityQueue<Map.Entry<String, Double>> top = new PriorityQueue<>(Math.max(1, wanted), ranking.reversed());
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            top.offer(entry);
+            if (top.size() > wanted) {
+                top.poll();
+            }
+        }
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>(top);
+        ranked.sort(ranking);
+        List<SearchHit> hits = ranked.stream()
+                .skip(offset)
+                .map(entry -> new SearchHit(entry.getKey(), entry.getValue()))
+                .toList();
+        sample.stop(searchTimer);
+        return new SearchResult(hits, scores.size());
+    }
+
+    void refresh() {
+        try {
+            if (!ready) {
+                if (Instant.now().isAfter(retryAt)) {
+                    open();
+                }
+                return;
+            }
+            if (reconcileRequested) {
+                reconcileRequested = false;
+                try {
+                    reconcile();
+                } catch (RuntimeException e) {
+                    reconcileRequested = true;
+                    throw e;
+                }
+            }
+            if (!pending.isEmpty()) {
+                applyPending();
+            }
+            if (snapshot.segments().size() > maxSegments) {
+                merge();
+            }
+        } catch (Exception e) {
+            log.warn("Course search index refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(directory);
+            Path manifest = directory.resolve(MANIFEST);
+            if (Files.exists(manifest)) {
+                load(manifest);
+                reconcile();
+            } else {
+                rebuild();
+            }
+            ready = true;
+        } catch (Exception e) {
+            retryAt = Instant.now().plus(RETRY_DELAY);
+            log.warn("Course search index unavailable, retrying in {}: {}", RETRY_DELAY, e.getMessage());
+        }
+    }
+
+    private void load(Path manifest) throws IOException {
+        List<SegmentView> segments = new ArrayList<>();
+        Map<String, Location> loaded = new HashMap<>();
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] parts = line.trim().split(" ");
+            String name = parts[0];
+            int generation = Integer.parseInt(parts[1]);
+            IndexSegment segment = IndexSegment.open(directory.resolve(name + SEGMENT_SUFFIX), name);
+            BitSet deleted = generation > 0
+                    ? BitSet.valueOf(Files.readAllBytes(directory.resolve(deletesFile(name, generation))))
+                    : new BitSet();
+            SegmentView view = new SegmentView(segment, readVersions(name, segment.docCount()), deleted, generation);
+            segments.add(view);
+            track(loaded, view);
+            nextSegment = Math.max(nextSegment, Long.parseLong(name.substring(name.indexOf('_') + 1)) + 1);
+        }
+        snapshot = Snapshot.of(segments);
+        locations.clear();
+        locations.putAll(loaded);
+        removeUnreferencedFiles(segments);
+        log.info("Course search index opened with {} segments and {} courses", segments.size(), locations.size());
+    }
+
+    /**
+     * Queues every course whose version in Mongo differs from the indexed one, and
+     * every indexed course that is no longer in Mongo.
+     */
+    private void reconcile() {
+        Map<String, Long> indexed = new HashMap<>();
+        for (SegmentView view : snapshot.segments()) {
+            for (int ordinal = 0; ordinal < view.segment().docCount(); ordinal++) {
+                if (!view.deleted().get(ordinal)) {
+                    indexed.put(view.segment().id(ordinal), view.versions()[ordinal]);
+                }
+            }
+        }
+        int stale = 0;
+        try (Stream<CourseVersion> courses = courseRepository.findAllVersionsBy()) {
+            for (CourseVersion course : (Iterable<CourseVersion>) courses::iterator) {
+                Long version = indexed.remove(course.getId());
+                if (version == null || version != IndexedDocument.version(course.getVersion())) {
+                    pending.add(course.getId());
+                    stale++;
+                }
+            }
+        }
+        pending.addAll(indexed.keySet());
+        if (stale + indexed.size() > 0) {
+            log.info("Course search index reconciled with MongoDB: {} courses to reindex, {} to remove",
+                    stale, indexed.size());
+        }
+    }
+
+    private void rebuild() throws IOException {
+        log.info("Building the course search index from MongoDB");
+        pending.clear();
+        Map<String, Location> built = new HashMap<>();
+        List<SegmentView> segments = new ArrayList<>();
+        List<IndexedDocument> batch = new ArrayList<>();
+        Page<Course> page = courseRepository.findAll(PageRequest.of(0, REBUILD_PAGE_SIZE, Sort.by("id")));
+        while (true) {
+            page.forEach(course -> batch.add(IndexedDocument.of(course)));
+            if (batch.size() >= MAX_SEGMENT_DOCS || (!page.hasNext() && !batch.isEmpty())) {
+                SegmentView view = writeSegment(batch);
+                segments.add(view);
+                track(built, view);
+                batch.clear();
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            page = courseRepository.findAll(page.nextPageable());
+        }
+        commit(segments);
+        locations.clear();
+        locations.putAll(built);
+        log.info("Course search index built with {} courses", locations.size());
+    }
+
+    // Locations change only once the manifest is committed, so a failed flush is retried from the same state
+    private void applyPending() throws IOException {
+        Set<String> ids = new HashSet<>(pending);
+        pending.removeAll(ids);
+        try {
+            List<IndexedDocument> documents = new ArrayList<>();
+            courseRepository.findAllById(ids).forEach(course -> documents.add(IndexedDocument.of(course)));
+
+            Map<String, SegmentView> views = new HashMap<>();
+            snapshot.segments().forEach(view -> views.put(view.segment().name(), view));
+            Map<String, BitSet> deletes = new HashMap<>();
+            for (String id : ids) {
+                Location location = locations.get(id);
+                if (location != null) {
+                    deletes.computeIfAbsent(location.segment(), name -> (BitSet) views.get(name).deleted().clone())
+                            .set(location.ordinal());
+                }
+            }
+
+            List<SegmentView> segments = new ArrayList<>();
+            for (SegmentView view : snapshot.segments()) {
+                BitSet deleted = deletes.get(view.segment().name());
+                if (deleted == null) {
+                    segments.add(view);
+                } else if (deleted.cardinality() < view.segment().docCount()) {
+                    int generation = view.deleteGeneration() + 1;
+                    writeDeletes(view.segment().name(), generation, deleted);
+                    segments.add(new SegmentView(view.segment(), view.versions(), deleted, generation));
+                }
+            }
+            Map<String, Location> added = new HashMap<>();
+            if (!documents.isEmpty()) {
+                SegmentView view = writeSegment(documents);
+                segments.add(view);
+                track(added, view);
+            }
+            commit(segments);
+            locations.keySet().removeAll(ids);
+            locations.putAll(added);
+        } catch (IOException | RuntimeException e) {
+            pending.addAll(ids);
+            throw e;
+        }
+    }
+
+    private void merge() throws IOException {
+        List<SegmentView> bySize = new ArrayList<>(snapshot.segments());
+        bySize.sort(Comparator.comparingInt(SegmentView::liveDocs));
+        List<SegmentView> merging = bySize.subList(0, bySize.size() - maxSegments + 1);
+        Set<String> merged = new HashSet<>();
+
+        List<IndexedDocument> documents = new ArrayList<>();
+        for (SegmentView view : merging) {
+            merged.add(view.segment().name());
+            documents.addAll(liveDocuments(view));
+        }
+        List<SegmentView> segments = new ArrayList<>(snapshot.segments().stream()
+                .filter(view -> !merged.contains(view.segment().name()))
+                .toList());
+        Map<String, Location> moved = new HashMap<>();
+        if (!documents.isEmpty()) {
+            SegmentView view = writeSegment(documents);
+            segments.add(view);
+            track(moved, view);
+        }
+        commit(segments);
+        locations.putAll(moved);
+        log.debug("Merged {} course index segments into one of {} courses", merged.size(), documents.size());
+    }
+
+    private static List<IndexedDocument> liveDocuments(SegmentView view) {
+        IndexSegment segment = view.segment();
+        List<Map<String, Integer>> terms = new ArrayList<>(segment.docCount());
+        for (int ordinal = 0; ordinal < segment.docCount(); ordinal++) {
+            terms.add(view.deleted().get(ordinal) ? null : new HashMap<>());
+        }
+        for (int termIndex = 0; termIndex < segment.termCount(); termIndex++) {
+            String term = segment.term(termIndex);
+            segment.forEachPosting(termIndex, (ordinal, frequency) -> {
+                Map<String, Integer> documentTerms = terms.get(ordinal);
+                if (documentTerms != null) {
+                    documentTerms.put(term, frequency);
+                }
+            });
+        }
+        List<IndexedDocument> documents = new ArrayList<>();
+        for (int ordinal = 0; ordinal < segment.docCount(); ordinal++) {
+            if (terms.get(ordinal) != null) {
+                documents.add(new IndexedDocument(segment.id(ordinal), view.versions()[ordinal],
+                        segment.length(ordinal), terms.get(ordinal)));
+            }
+        }
+        return documents;
+    }
+
+    private SegmentView writeSegment(List<IndexedDocument> documents) throws IOException {
+        String name = "seg_" + nextSegment++;
+        Path file = directory.resolve(name + SEGMENT_SUFFIX);
+        IndexSegment.write(file, documents);
+        long[] versions = documents.stream().mapToLong(IndexedDocument::version).toArray();
+        writeVersions(name, versions);
+        return new SegmentView(IndexSegment.open(file, name), versions, new BitSet(), 0);
+    }
+
+    private void writeVersions(String segment, long[] versions) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(versions.length * Long.BYTES);
+        buffer.asLongBuffer().put(versions);
+        Files.write(directory.resolve(segment + VERSIONS_SUFFIX), buffer.array());
+    }
+
+    // Segments written before versions were recorded have none, and are reindexed
+    private long[] readVersions(String segment, int docCount) throws IOException {
+        long[] versions = new long[docCount];
+        Path file = directory.resolve(segment + VERSIONS_SUFFIX);
+        if (Files.exists(file)) {
+            ByteBuffer.wrap(Files.readAllBytes(file)).asLongBuffer().get(versions);
+        } else {
+            Arrays.fill(versions, IndexedDocument.UNKNOWN_VERSION);
+        }
+        return versions;
+    }
+
+    private void writeDeletes(String segment, int generation, BitSet deleted) throws IOException {
+        Path file = directory.resolve(deletesFile(segment, generation));
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, deleted.toByteArray());
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void track(Map<String, Location> target, SegmentView view) {
+        IndexSegment segment = view.segment();
+        for (int ordinal = 0; ordinal < segment.docCount(); ordinal++) {
+            if (!view.deleted().get(ordinal)) {
+                target.put(segment.id(ordinal), new Location(segment.name(), ordinal));
+            }
+        }
+    }
+
+    private void commit(List<SegmentView> segments) throws IOException {
+        StringBuilder manifest = new StringBuilder();
+        for (SegmentView view : segments) {
+            manifest.append(view.segment().name()).append(' ').append(view.deleteGeneration()).append('\n');
+        }
+        Path file = directory.resolve(MANIFEST);
+        Path temporary = directory.resolve(MANIFEST + ".tmp");
+        Files.writeString(temporary, manifest, StandardCharsets.UTF_8);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        snapshot = Snapshot.of(segments);
+        removeUnreferencedFiles(segments);
+    }
+
+    private void removeUnreferencedFiles(List<SegmentView> segments) {
+        Set<String> referenced = new HashSet<>();
+        referenced.add(MANIFEST);
+        for (SegmentView view : segments) {
+            referenced.add(view.segment().name() + SEGMENT_SUFFIX);
+            referenced.add(view.segment().name() + VERSIONS_SUFFIX);
+            if (view.deleteGeneration() > 0) {
+                referenced.add(deletesFile(view.segment().name(), view.deleteGeneration()));
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> !referenced.contains(file.getFileName().toString()))
+                    .forEach(file -> {
+                        try {
+                            Files.deleteIfExists(file);
+                        } catch (IOException e) {
+                            // Still mapped on platforms that lock mapped files; retried after the next commit
+                            log.debug("Could not delete obsolete index file {}: {}", file, e.getMessage());
+                        }
+                    });
+        } catch (IOException e) {
+            log.debug("Could not list the course index directory: {}", e.getMessage());
+        }
+    }
+
+    private static String deletesFile(String segment, int generation) {
+        return segment + "_" + generation + DELETES_SUFFIX;
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.shutdown();
+        try {
+            if (worker.awaitTermination(5, TimeUnit.SECONDS) && ready && !pending.isEmpty()) {
+                applyPending();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Could not flush pending course search updates: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.learning.cours.search;
+
+import com.learning.cours.entity.Category;
+import com.learning.cours.entity.Course;
+import com.learning.cours.entity.Professor;
+import com.learning.cours.event.CourseChangedEvent;
+import com.learning.cours.repository.CategoryRepository;
+import com.learning.cours.repository.CourseRepository;
+import com.learning.cours.repository.ProfessorRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search-box suggestions for course titles, category names and professor names,
+ * served from in-memory {@link SuggestionTrie}s without touching a datastore.
+ * A course weighs 1 plus its {@link CoursePopularityIndex} score, and a category or
+ * professor as much as the courses it has. Suggestions are split into one trie per
+ * first letter of their keys: course writes and category/professor saves update only
+ * the affected entries, and the next refresh rebuilds only the tries they touch.
+ * Popularity is read again every {@code course-suggest.reweight-interval}.
+ */
+@Component
+@Slf4j
+public class CourseSuggester {
+
+    public static final String COURSE = "COURSE";
+    public static final String CATEGORY = "CATEGORY";
+    public static final String PROFESSOR = "PROFESSOR";
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    private record CourseEntry(String title, String categoryId, String professorId, double weight) {
+    }
+
+    private record Indexed(Suggestion suggestion, List<String> keys) {
+    }
+
+    private final CourseRepository courseRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProfessorRepository professorRepository;
+    private final CoursePopularityIndex coursePopularityIndex;
+    private final boolean enabled;
+    private final Duration refreshInterval;
+    private final Duration reweightInterval;
+    private final int maxEdits;
+    private final int maxLimit;
+    private final Timer suggestTimer;
+    private final Set<String> pendingCourses = ConcurrentHashMap.newKeySet();
+    // Saved names by id, empty for a deleted category or professor
+    private final Map<String, Optional<String>> pendingCategories = new ConcurrentHashMap<>();
+    private final Map<String, Optional<String>> pendingProfessors = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "course-suggester");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Source entries and the suggestions built from them, only touched by the worker
+    private final Map<String, CourseEntry> courses = new HashMap<>();
+    private final Map<String, String> categories = new HashMap<>();
+    private final Map<String, String> professors = new HashMap<>();
+    private final Map<String, Double> categoryWeights = new HashMap<>();
+    private final Map<String, Double> professorWeights = new HashMap<>();
+    private final Map<String, Indexed> suggestions = new HashMap<>();
+    private final Map<Character, Set<String>> shardMembers = new HashMap<>();
+    private final Set<Character> dirtyShards = new HashSet<>();
+
+    private volatile Map<Character, SuggestionTrie> shards = Map.of();
+    private volatile boolean loaded;
+    private Instant retryAt = Instant.EPOCH;
+    private Instant reweightAt = Instant.EPOCH;
+
+    public CourseSuggester(CourseRepository courseRepository,
+                           CategoryRepository categoryRepository,
+                           ProfessorRepository professorRepository,
+                           CoursePopularityIndex coursePopularityIndex,
+                           MeterRegistry meterRegistry,
+                           @Value("${course-suggest.enabled:true}") boolean enabled,
+                           @Value("${course-suggest.refresh-interval:1s}") Duration refreshInterval,
+                           @Value("${course-suggest.reweight-interval:5m}") Duration reweightInterval,
+                           @Value("${course-suggest.max-edits:2}") int maxEdits,
+                           @Value("${course-suggest.max-limit:10}") int maxLimit) {
+        this.courseRepository = courseRepository;
+        this.categoryRepository = categoryRepository;
+        this.professorRepository = professorRepository;
+        this.coursePopularityIndex = coursePopularityIndex;
+        this.enabled = enabled;
+        this.refreshInterval = refreshInterval;
+        this.reweightInterval = reweightInterval;
+        this.maxEdits = maxEdits;
+        this.maxLimit = maxLimit;
+        this.suggestTimer = Timer.builder("course.suggest.latency")
+                .description("Latency of search-box suggestions")
+                .publishPercentiles(0.99)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Course suggestions disabled");
+            return;
+        }
+        worker.scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        pendingCourses.add(event.courseId());
+    }
+
+    @EventListener
+    public void onSave(AfterSaveEvent<?> event) {
+        if (event.getSource() instanceof Category category && category.getName() != null) {
+            pendingCategories.put(category.getId(), Optional.of(category.getName()));
+        } else if (event.getSource() instanceof Professor professor && professor.getFullName() != null) {
+            pendingProfessors.put(professor.getId(), Optional.of(professor.getFullName()));
+        }
+    }
+
+    @EventListener
+    public void onDelete(AfterDeleteEvent<?> event) {
+        Object id = event.getSource().get("_id");
+        if (id == null) {
+            return;
+        }
+        if (Category.class.equals(event.getType())) {
+            pendingCategories.put(id.toString(), Optional.empty());
+        } else if (Professor.class.equals(event.getType())) {
+            pendingProfessors.put(id.toString(), Optional.empty());
+        }
+    }
+
+    /**
+     * Completes {@code prefix} against the current tries: exact prefix matches by weight
+     * first, then typo-tolerant matches once the prefix is long enough to allow edits.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String query = normalize(prefix);
+        int size = Math.max(1, Math.min(limit, maxLimit));
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        Timer.Sample sample = Timer.start();
+        Map<Character, SuggestionTrie> current = shards;
+        Map<String, Suggestion> result = new LinkedHashMap<>();
+        SuggestionTrie shard = current.get(query.charAt(0));
+        if (shard != null) {
+            for (Suggestion suggestion : shard.complete(query, size)) {
+                result.putIfAbsent(suggestion.key(), suggestion);
+            }
+        }
+        int edits = allowedEdits(query);
+        if (result.size() < size && edits > 0) {
+            // A typo may be in the first letter, so every trie is searched
+            List<SuggestionTrie.Match> matches = new ArrayList<>();
+            current.values().forEach(trie -> matches.addAll(trie.completeFuzzy(query, edits, size)));
+            matches.sort(SuggestionTrie.CLOSEST_FIRST);
+            for (SuggestionTrie.Match match : matches) {
+                if (result.size() == size) {
+                    break;
+                }
+                result.putIfAbsent(match.suggestion().key(), match.suggestion());
+            }
+        }
+        sample.stop(suggestTimer);
+        return new ArrayList<>(result.values());
+    }
+
+    private int allowedEdits(String query) {
+        if (query.length() < 4) {
+            return 0;
+        }
+        return Math.min(maxEdits, query.length() < 8 ? 1 : 2);
+    }
+
+    private void refresh() {
+        try {
+            if (!loaded) {
+                if (Instant.now().isAfter(retryAt)) {
+                    load();
+                }
+                return;
+            }
+            applyReferences();
+            if (!pendingCourses.isEmpty()) {
+                applyPending();
+            }
+            if (Instant.now().isAfter(reweightAt)) {
+                reweight();
+            }
+            if (!dirtyShards.isEmpty()) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.warn("Course suggestion refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private void load() {
+        try {
+            categoryRepository.findAll().forEach(category -> categories.put(category.getId(), category.getName()));
+            professorRepository.findAll().forEach(professor -> professors.put(professor.getId(), professor.getFullName()));
+            categories.keySet().forEach(this::indexCategory);
+            professors.keySet().forEach(this::indexProfessor);
+            courseRepository.findAll().forEach(course -> setCourse(course.getId(), entry(course)));
+            loaded = true;
+            reweightAt = Instant.now().plus(reweightInterval);
+            rebuild();
+            log.info("Course suggestions loaded for {} courses", courses.size());
+        } catch (Exception e) {
+            categories.clear();
+            professors.clear();
+            courses.clear();
+            categoryWeights.clear();
+            professorWeights.clear();
+            suggestions.clear();
+            shardMembers.clear();
+            dirtyShards.clear();
+            retryAt = Instant.now().plus(RETRY_DELAY);
+            log.warn("Course suggestions unavailable, retrying in {}: {}", RETRY_DELAY, e.getMessage());
+        }
+    }
+
+    private void applyReferences() {
+        for (String id : new ArrayList<>(pendingCategories.keySet())) {
+            Optional<String> name = pendingCategories.remove(id);
+            name.ifPresentOrElse(value -> categories.put(id, value), () -> categories.remove(id));
+            indexCategory(id);
+        }
+        for (String id : new ArrayList<>(pendingProfessors.keySet())) {
+            Optional<String> name = pendingProfessors.remove(id);
+            name.ifPresentOrElse(value -> professors.put(id, value), () -> professors.remove(id));
+            indexProfessor(id);
+        }
+    }
+
+    private void applyPending() {
+        Set<String> ids = new HashSet<>(pendingCourses);
+        pendingCourses.removeAll(ids);
+        try {
+            Map<String, CourseEntry> found = new HashMap<>();
+            courseRepository.findAllById(ids).forEach(course -> found.put(course.getId(), entry(course)));
+            ids.forEach(id -> setCourse(id, found.get(id)));
+        } catch (RuntimeException e) {
+            pendingCourses.addAll(ids);
+            throw e;
+        }
+    }
+
+    // Popularity moves with every signal, so course weights are read again on an interval
+    private void reweight() {
+        reweightAt = Instant.now().plus(reweightInterval);
+        for (Map.Entry<String, CourseEntry> course : new ArrayList<>(courses.entrySet())) {
+            CourseEntry entry = course.getValue();
+            double weight = weight(course.getKey());
+            if (weight != entry.weight()) {
+                setCourse(course.getKey(),
+                        new CourseEntry(entry.title(), entry.categoryId(), entry.professorId(), weight));
+            }
+        }
+    }
+
+    // Replaces or, when entry is null, removes a course, and updates the weights of its references
+    private void setCourse(String id, CourseEntry entry) {
+        CourseEntry previous = entry != null ? courses.put(id, entry) : courses.remove(id);
+        if (entry != null && entry.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            addWeight(categoryWeights, previous.categoryId(), -previous.weight());
+            addWeight(professorWeights, previous.professorId(), -previous.weight());
+        }
+        if (entry != null) {
+            addWeight(categoryWeights, entry.categoryId(), entry.weight());
+            addWeight(professorWeights, entry.professorId(), entry.weight());
+            index(COURSE, id, entry.title(), entry.weight());
+        } else {
+            unindex(COURSE + ":" + id);
+        }
+        if (previous != null) {
+            indexCategory(previous.categoryId());
+            indexProfessor(previous.professorId());
+        }
+        if (entry != null) {
+            indexCategory(entry.categoryId());
+            indexProfessor(entry.professorId());
+        }
+    }
+
+    private static void addWeight(Map<String, Double> weights, String id, double weight) {
+        if (id != null) {
+            weights.merge(id, weight, Double::sum);
+        }
+    }
+
+    private void indexCategory(String id) {
+        if (id != null) {
+            index(CATEGORY, id, categories.get(id), categoryWeights.getOrDefault(id, 0.0));
+        }
+    }
+
+    private void indexProfessor(String id) {
+        if (id != null) {
+            index(PROFESSOR, id, professors.get(id), professorWeights.getOrDefault(id, 0.0));
+        }
+    }
+
+    private void index(String type, String id, String text, double weight) {
+        String key = type + ":" + id;
+        if (text == null || text.isBlank()) {
+            unindex(key);
+            return;
+        }
+        Suggestion suggestion = new Suggestion(key, text, type, id, weight);
+        Indexed previous = suggestions.get(key);
+        if (previous != null && previous.suggestion().equals(suggestion)) {
+            return;
+        }
+        unindex(key);
+        // Every word start is a key, so "spr" suggests "Java Spring Boot"
+        List<String> tokens = TextAnalyzer.tokens(text);
+        List<String> wordStarts = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            wordStarts.add(String.join(" ", tokens.subList(i, tokens.size())));
+        }
+        suggestions.put(key, new Indexed(suggestion, wordStarts));
+        for (String wordStart : wordStarts) {
+            char shard = wordStart.charAt(0);
+            shardMembers.computeIfAbsent(shard, ignored -> new HashSet<>()).add(key);
+            dirtyShards.add(shard);
+        }
+    }
+
+    private void unindex(String key) {
+        Indexed previous = suggestions.remove(key);
+        if (previous == null) {
+            return;
+        }
+        for (String wordStart : previous.keys()) {
+            char shard = wordStart.charAt(0);
+            Set<String> members = shardMembers.get(shard);
+            if (members != null) {
+                members.remove(key);
+            }
+            dirtyShards.add(shard);
+        }
+    }
+
+    private void rebuild() {
+        Map<Character, SuggestionTrie> next = new HashMap<>(shards);
+        for (char shard : dirtyShards) {
+            Set<String> members = shardMembers.getOrDefault(shard, Set.of());
+            if (members.isEmpty()) {
+                shardMembers.remove(shard);
+                next.remove(shard);
+                continue;
+            }
+            Map<Suggestion, List<String>> keys = new HashMap<>();
+            for (String key : members) {
+                Indexed indexed = suggestions.get(key);
+                keys.put(indexed.suggestion(), indexed.keys().stream()
+                        .filter(wordStart -> wordStart.charAt(0) == shard)
+                        .toList());
+            }
+            next.put(shard, SuggestionTrie.build(keys, maxLimit));
+        }
+        dirtyShards.clear();
+        shards = Map.copyOf(next);
+    }
+
+    private CourseEntry entry(Course course) {
+        return new CourseEntry(course.getTitle(),
+                course.getCategory() != null ? course.getCategory().getId() : null,
+                course.getProfessor() != null ? course.getProfessor().getId() : null,
+                weight(course.getId()));
+    }
+
+    private double weight(String courseId) {
+        return 1 + coursePopularityIndex.score(courseId);
+    }
+
+    private static String normalize(String prefix) {
+        return prefix == null ? "" : String.join(" ", TextAnalyzer.tokens(prefix));
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.shutdownNow();
+    }
+}
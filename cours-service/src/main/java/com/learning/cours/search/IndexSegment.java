@@ -0,0 +1,205 @@
+package com.learning.cours.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * One immutable, memory-mapped index segment. The file holds, in order:
+ * <ul>
+ *     <li>a header;</li>
+ *     <li>a document table (id and length per ordinal);</li>
+ *     <li>a term table sorted by term, pointing into the postings;</li>
+ *     <li>the postings as (ordinal, frequency) pairs;</li>
+ *     <li>a UTF-8 string pool.</li>
+ * </ul>
+ * Every read is an absolute read on the mapped buffer, so a segment can be shared by
+ * any number of searching threads.
+ */
+final class IndexSegment {
+
+    private static final int MAGIC = 0x43535831;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 36;
+    private static final int DOC_ENTRY_BYTES = 12;
+    private static final int TERM_ENTRY_BYTES = 16;
+    private static final int POSTING_BYTES = 8;
+
+    interface PostingConsumer {
+        void accept(int ordinal, int frequency);
+    }
+
+    private final String name;
+    private final MappedByteBuffer buffer;
+    private final int docCount;
+    private final int termCount;
+    private final long totalLength;
+    private final int termTableOffset;
+    private final int postingsOffset;
+    private final int poolOffset;
+
+    private IndexSegment(String name, MappedByteBuffer buffer) throws IOException {
+        this.name = name;
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a course index segment: " + name);
+        }
+        this.docCount = buffer.getInt(8);
+        this.termCount = buffer.getInt(12);
+        this.totalLength = buffer.getLong(16);
+        this.termTableOffset = buffer.getInt(24);
+        this.postingsOffset = buffer.getInt(28);
+        this.poolOffset = buffer.getInt(32);
+    }
+
+    static IndexSegment open(Path file, String name) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new IndexSegment(name, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    static void write(Path file, List<IndexedDocument> documents) throws IOException {
+        TreeMap<String, List<int[]>> postings = new TreeMap<>();
+        long totalLength = 0;
+        for (int ordinal = 0; ordinal < documents.size(); ordinal++) {
+            IndexedDocument document = documents.get(ordinal);
+            totalLength += document.length();
+            for (Map.Entry<String, Integer> term : document.terms().entrySet()) {
+                postings.computeIfAbsent(term.getKey(), key -> new ArrayList<>())
+                        .add(new int[]{ordinal, term.getValue()});
+            }
+        }
+
+        List<byte[]> ids = documents.stream().map(document -> document.id().getBytes(StandardCharsets.UTF_8)).toList();
+        List<byte[]> terms = postings.keySet().stream().map(term -> term.getBytes(StandardCharsets.UTF_8)).toList();
+        int postingCount = postings.values().stream().mapToInt(List::size).sum();
+        int termTableOffset = HEADER_BYTES + documents.size() * DOC_ENTRY_BYTES;
+        int postingsOffset = termTableOffset + terms.size() * TERM_ENTRY_BYTES;
+        int poolOffset = postingsOffset + postingCount * POSTING_BYTES;
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream stream = Files.newOutputStream(temporary);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(documents.size());
+            out.writeInt(terms.size());
+            out.writeLong(totalLength);
+            out.writeInt(termTableOffset);
+            out.writeInt(postingsOffset);
+            out.writeInt(poolOffset);
+
+            int poolPosition = 0;
+            for (int ordinal = 0; ordinal < documents.size(); ordinal++) {
+                out.writeInt(poolPosition);
+                out.writeInt(ids.get(ordinal).length);
+                out.writeInt(documents.get(ordinal).length());
+                poolPosition += ids.get(ordinal).length;
+            }
+            int postingPosition = 0;
+            int termIndex = 0;
+            for (List<int[]> termPostings : postings.values()) {
+                out.writeInt(poolPosition);
+                out.writeInt(terms.get(termIndex).length);
+                out.writeInt(postingPosition);
+                out.writeInt(termPostings.size());
+                poolPosition += terms.get(termIndex++).length;
+                postingPosition += termPostings.size();
+            }
+            for (List<int[]> termPostings : postings.values()) {
+                for (int[] posting : termPostings) {
+                    out.writeInt(posting[0]);
+                    out.writeInt(posting[1]);
+                }
+            }
+            for (byte[] id : ids) {
+                out.write(id);
+            }
+            for (byte[] term : terms) {
+                out.write(term);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    String name() {
+        return name;
+    }
+
+    int docCount() {
+        return docCount;
+    }
+
+    int termCount() {
+        return termCount;
+    }
+
+    long totalLength() {
+        return totalLength;
+    }
+
+    String id(int ordinal) {
+        int entry = HEADER_BYTES + ordinal * DOC_ENTRY_BYTES;
+        return string(buffer.getInt(entry), buffer.getInt(entry + 4));
+    }
+
+    int length(int ordinal) {
+        return buffer.getInt(HEADER_BYTES + ordinal * DOC_ENTRY_BYTES + 8);
+    }
+
+    String term(int termIndex) {
+        int entry = termTableOffset + termIndex * TERM_ENTRY_BYTES;
+        return string(buffer.getInt(entry), buffer.getInt(entry + 4));
+    }
+
+    int docFrequency(int termIndex) {
+        return buffer.getInt(termTableOffset + termIndex * TERM_ENTRY_BYTES + 12);
+    }
+
+    /**
+     * Binary search over the sorted term table; returns the term index or -1.
+     */
+    int findTerm(String term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = term(middle).compareTo(term);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    void forEachPosting(int termIndex, PostingConsumer consumer) {
+        int entry = termTableOffset + termIndex * TERM_ENTRY_BYTES;
+        int position = postingsOffset + buffer.getInt(entry + 8) * POSTING_BYTES;
+        int count = buffer.getInt(entry + 12);
+        for (int i = 0; i < count; i++, position += POSTING_BYTES) {
+            consumer.accept(buffer.getInt(position), buffer.getInt(position + 4));
+        }
+    }
+
+    private String string(int poolPosition, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(poolOffset + poolPosition, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,47 @@
+package com.learning.cours.search;
+
+import com.learning.cours.entity.Course;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Analyzed form of one course: the term frequencies across its searchable fields and
+ * the field length that BM25 normalizes by. Title terms count twice. The version is
+ * the course version it was analyzed from.
+ */
+record IndexedDocument(String id, long version, int length, Map<String, Integer> terms) {
+
+    /** A course saved before courses were versioned. */
+    static final long NO_VERSION = -1;
+    /** A document indexed before versions were recorded; always reindexed. */
+    static final long UNKNOWN_VERSION = Long.MIN_VALUE;
+
+    private static final int TITLE_WEIGHT = 2;
+
+    static IndexedDocument of(Course course) {
+        Map<String, Integer> terms = new HashMap<>();
+        int length = add(terms, course.getTitle(), TITLE_WEIGHT)
+                + add(terms, course.getDescription(), 1);
+        if (course.getCategory() != null) {
+            length += add(terms, course.getCategory().getName(), 1);
+        }
+        if (course.getProfessor() != null) {
+            length += add(terms, course.getProfessor().getFullName(), 1);
+        }
+        return new IndexedDocument(course.getId(), version(course.getVersion()), length, terms);
+    }
+
+    static long version(Long version) {
+        return version != null ? version : NO_VERSION;
+    }
+
+    private static int add(Map<String, Integer> terms, String text, int weight) {
+        int length = 0;
+        for (String token : TextAnalyzer.tokens(text)) {
+            terms.merge(token, weight, Integer::sum);
+            length += weight;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,180 @@
+package com.learning.cours.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Related courses" recommendations, served from a {@link RelatedCourseTable} that
+ * is recomputed in the background from the catalog and the co-enrollment export of
+ * inscription-service. A lookup is a hash probe and an array slice; a rebuild
+ * replaces the whole table at once. When the export is unavailable the table is
+ * built from course content alone.
+ */
+@Component
+@Slf4j
+public class RelatedCourseIndex {
+
+    private static final String COLLECTION_NAME = "courses";
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+    private static final int TITLE_BOOST = 2;
+
+    private final MongoTemplate mongoTemplate;
+    private final CoEnrollmentSource coEnrollmentSource;
+    private final boolean enabled;
+    private final Duration refreshInterval;
+    private final int topK;
+    private final double maxTermShare;
+    private final RelatedCourseTable.Weights weights;
+    private final ForkJoinPool pool;
+    private final Timer buildTimer;
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "related-courses");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile RelatedCourseTable table = RelatedCourseTable.EMPTY;
+    private volatile boolean ready;
+
+    public RelatedCourseIndex(MongoTemplate mongoTemplate,
+                              CoEnrollmentSource coEnrollmentSource,
+                              MeterRegistry meterRegistry,
+                              @Value("${course-related.enabled:true}") boolean enabled,
+                              @Value("${course-related.refresh-interval:6h}") Duration refreshInterval,
+                              @Value("${course-related.top-k:20}") int topK,
+                              @Value("${course-related.parallelism:0}") int parallelism,
+                              @Value("${course-related.max-term-share:0.1}") double maxTermShare,
+                              @Value("${course-related.weights.text:0.4}") float textWeight,
+                              @Value("${course-related.weights.co-enrollment:0.3}") float coEnrollmentWeight,
+                              @Value("${course-related.weights.category:0.2}") float categoryWeight,
+                              @Value("${course-related.weights.professor:0.1}") float professorWeight) {
+        this.mongoTemplate = mongoTemplate;
+        this.coEnrollmentSource = coEnrollmentSource;
+        this.enabled = enabled;
+        this.refreshInterval = refreshInterval;
+        this.topK = topK;
+        this.maxTermShare = maxTermShare;
+        this.weights = new RelatedCourseTable.Weights(textWeight, coEnrollmentWeight, categoryWeight, professorWeight);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.buildTimer = Timer.builder("course.related.build")
+                .description("Time to recompute the related courses table")
+                .register(meterRegistry);
+        Gauge.builder("course.related.courses", this, index -> index.table.size())
+                .description("Courses in the related courses table")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Related courses disabled");
+            return;
+        }
+        worker.execute(this::rebuild);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int maxLimit() {
+        return topK;
+    }
+
+    /**
+     * Ids of the courses most related to {@code courseId}, best first; empty for a
+     * course created after the last rebuild.
+     */
+    public List<String> related(String courseId, int limit) {
+        return table.neighbours(courseId, Math.max(1, Math.min(limit, topK)));
+    }
+
+    private void rebuild() {
+        Duration next = refreshInterval;
+        try {
+            Timer.Sample sample = Timer.start();
+            List<RelatedCourseTable.Item> items = loadCourses();
+            List<List<String>> baskets = loadBaskets();
+            RelatedCourseTable built = RelatedCourseTable.build(items, baskets, weights, topK, maxTermShare, pool);
+            table = built;
+            ready = true;
+            long nanos = sample.stop(buildTimer);
+            log.info("Related courses computed for {} courses from {} co-enrollment baskets: {} links in {} ms",
+                    built.size(), baskets.size(), built.edges(), TimeUnit.NANOSECONDS.toMillis(nanos));
+        } catch (Exception e) {
+            next = RETRY_DELAY;
+            log.warn("Related courses rebuild failed, retrying in {}: {}", RETRY_DELAY, e.getMessage());
+        }
+        if (!worker.isShutdown()) {
+            worker.schedule(this::rebuild, next.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Newest first, so that same-category fill-ins favour recent courses
+    private List<RelatedCourseTable.Item> loadCourses() {
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"));
+        query.fields().include("title", "description", "category._id", "professor._id");
+        return mongoTemplate.find(query, Document.class, COLLECTION_NAME).stream()
+                .map(RelatedCourseIndex::item)
+                .toList();
+    }
+
+    private List<List<String>> loadBaskets() {
+        try {
+            return coEnrollmentSource.fetchCourseBaskets();
+        } catch (Exception e) {
+            log.warn("Co-enrollment export unavailable, relating courses by content only: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static RelatedCourseTable.Item item(Document document) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, document.getString("title"), TITLE_BOOST);
+        addTerms(terms, document.getString("description"), 1);
+        return new RelatedCourseTable.Item(document.get("_id").toString(), referenceId(document.get("category")),
+                referenceId(document.get("professor")), terms);
+    }
+
+    // Terms of one or two characters are mostly articles and particles
+    private static void addTerms(Map<String, Integer> terms, String text, int boost) {
+        for (String token : TextAnalyzer.tokens(text)) {
+            if (token.length() > 2) {
+                terms.merge(token, boost, Integer::sum);
+            }
+        }
+    }
+
+    private static String referenceId(Object reference) {
+        if (reference instanceof Document document && document.get("_id") != null) {
+            return document.get("_id").toString();
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.shutdownNow();
+        pool.shutdownNow();
+    }
+}
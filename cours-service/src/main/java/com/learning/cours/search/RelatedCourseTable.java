@@ -0,0 +1,422 @@
+package com.learning.cours.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Precomputed item-to-item table of related courses, stored as compressed sparse
+ * rows: the neighbours of course {@code i} are {@code neighbours[offsets[i]]} up to
+ * {@code neighbours[offsets[i + 1]]}, best first. A table is built once and never
+ * modified, so lookups need no locking.
+ *
+ * <p>Two courses score the TF-IDF cosine of their titles and descriptions, the
+ * cosine of their enrollment sets and a bonus for a shared category or professor,
+ * each times its weight. Candidates are the courses sharing a selective term, a
+ * student or the professor; when they are fewer than K, the list is completed with
+ * courses of the same category.
+ */
+final class RelatedCourseTable {
+
+    record Item(String id, String categoryId, String professorId, Map<String, Integer> termFrequencies) {
+    }
+
+    record Weights(float text, float coEnrollment, float category, float professor) {
+    }
+
+    static final RelatedCourseTable EMPTY = new RelatedCourseTable(new String[0], Map.of(), new int[1], new int[0]);
+
+    // Baskets this large are bulk enrollments rather than a signal
+    private static final int MAX_BASKET_SIZE = 200;
+
+    private final String[] ids;
+    private final Map<String, Integer> positions;
+    private final int[] offsets;
+    private final int[] neighbours;
+
+    private RelatedCourseTable(String[] ids, Map<String, Integer> positions, int[] offsets, int[] neighbours) {
+        this.ids = ids;
+        this.positions = positions;
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+    }
+
+    List<String> neighbours(String id, int limit) {
+        Integer position = positions.get(id);
+        if (position == null) {
+            return List.of();
+        }
+        int from = offsets[position];
+        int to = Math.min(offsets[position + 1], from + limit);
+        List<String> related = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            related.add(ids[neighbours[i]]);
+        }
+        return related;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    int edges() {
+        return neighbours.length;
+    }
+
+    /**
+     * Scores the top {@code topK} neighbours of every course on {@code pool}. Terms
+     * found in more than {@code maxTermShare} of the courses still weigh in the
+     * cosine norms but do not generate candidates.
+     */
+    static RelatedCourseTable build(List<Item> items, List<List<String>> baskets, Weights weights, int topK,
+                                    double maxTermShare, ForkJoinPool pool) {
+        int n = items.size();
+        String[] ids = new String[n];
+        Map<String, Integer> positions = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            ids[i] = items.get(i).id();
+            positions.put(ids[i], i);
+        }
+        Builder builder = new Builder(items, positions, baskets, weights, topK, maxTermShare);
+        pool.invoke(new Rows(builder, 0, n, Math.max(16, n / (pool.getParallelism() * 8))));
+
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + builder.rows[i].length;
+        }
+        int[] neighbours = new int[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(builder.rows[i], 0, neighbours, offsets[i], builder.rows[i].length);
+        }
+        return new RelatedCourseTable(ids, positions, offsets, neighbours);
+    }
+
+    private static final class Builder {
+
+        private final int n;
+        private final Weights weights;
+        private final int topK;
+        private final int[] categories;
+        private final int[] professors;
+        private final int[][] byCategory;
+        private final int[][] byProfessor;
+        private final int[][] itemTerms;
+        private final float[][] itemWeights;
+        private final int[][] postingItems;
+        private final float[][] postingWeights;
+        private final int[][] basketMembers;
+        private final int[][] basketsOf;
+        private final int[][] rows;
+
+        Builder(List<Item> items, Map<String, Integer> positions, List<List<String>> baskets, Weights weights,
+                int topK, double maxTermShare) {
+            this.n = items.size();
+            this.weights = weights;
+            this.topK = topK;
+            this.categories = codes(items, Item::categoryId);
+            this.professors = codes(items, Item::professorId);
+            this.byCategory = members(categories);
+            this.byProfessor = members(professors);
+
+            Map<String, Integer> dictionary = new HashMap<>();
+            int[] documentFrequency = new int[64];
+            itemTerms = new int[n][];
+            int[][] itemFrequencies = new int[n][];
+            for (int i = 0; i < n; i++) {
+                Map<String, Integer> frequencies = items.get(i).termFrequencies();
+                int[] terms = new int[frequencies.size()];
+                itemFrequencies[i] = new int[frequencies.size()];
+                int k = 0;
+                for (Map.Entry<String, Integer> term : frequencies.entrySet()) {
+                    int termId = dictionary.computeIfAbsent(term.getKey(), key -> dictionary.size());
+                    if (termId == documentFrequency.length) {
+                        documentFrequency = Arrays.copyOf(documentFrequency, termId * 2);
+                    }
+                    documentFrequency[termId]++;
+                    itemFrequencies[i][k] = term.getValue();
+                    terms[k++] = termId;
+                }
+                itemTerms[i] = terms;
+            }
+
+            itemWeights = new float[n][];
+            int maxFrequency = Math.max(2, (int) (maxTermShare * n));
+            int[] postingSizes = new int[dictionary.size()];
+            for (int i = 0; i < n; i++) {
+                float[] vector = new float[itemTerms[i].length];
+                double norm = 0;
+                for (int k = 0; k < vector.length; k++) {
+                    int termId = itemTerms[i][k];
+                    double weight = (1 + Math.log(itemFrequencies[i][k]))
+                            * Math.log((double) n / documentFrequency[termId]);
+                    vector[k] = (float) weight;
+                    norm += weight * weight;
+                    if (documentFrequency[termId] >= 2 && documentFrequency[termId] <= maxFrequency) {
+                        postingSizes[termId]++;
+                    }
+                }
+                if (norm > 0) {
+                    float scale = (float) (1 / Math.sqrt(norm));
+                    for (int j = 0; j < vector.length; j++) {
+                        vector[j] *= scale;
+                    }
+                }
+                itemWeights[i] = vector;
+            }
+
+            postingItems = new int[postingSizes.length][];
+            postingWeights = new float[postingSizes.length][];
+            for (int termId = 0; termId < postingSizes.length; termId++) {
+                if (postingSizes[termId] > 0) {
+                    postingItems[termId] = new int[postingSizes[termId]];
+                    postingWeights[termId] = new float[postingSizes[termId]];
+                    postingSizes[termId] = 0;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                for (int k = 0; k < itemTerms[i].length; k++) {
+                    int termId = itemTerms[i][k];
+                    if (postingItems[termId] != null) {
+                        postingItems[termId][postingSizes[termId]] = i;
+                        postingWeights[termId][postingSizes[termId]++] = itemWeights[i][k];
+                    }
+                }
+            }
+
+            List<int[]> members = new ArrayList<>();
+            int[] basketCounts = new int[n];
+            for (List<String> basket : baskets) {
+                if (basket.size() > MAX_BASKET_SIZE) {
+                    continue;
+                }
+                Set<Integer> known = new LinkedHashSet<>();
+                for (String courseId : basket) {
+                    Integer position = positions.get(courseId);
+                    if (position != null) {
+                        known.add(position);
+                    }
+                }
+                if (known.size() > 1) {
+                    int[] basketItems = known.stream().mapToInt(Integer::intValue).toArray();
+                    members.add(basketItems);
+                    for (int item : basketItems) {
+                        basketCounts[item]++;
+                    }
+                }
+            }
+            basketMembers = members.toArray(new int[0][]);
+            basketsOf = new int[n][];
+            for (int i = 0; i < n; i++) {
+                basketsOf[i] = new int[basketCounts[i]];
+                basketCounts[i] = 0;
+            }
+            for (int basket = 0; basket < basketMembers.length; basket++) {
+                for (int item : basketMembers[basket]) {
+                    basketsOf[item][basketCounts[item]++] = basket;
+                }
+            }
+
+            rows = new int[n][];
+        }
+
+        void computeRow(int a, Scratch scratch) {
+            scratch.begin(a);
+            for (int k = 0; k < itemTerms[a].length; k++) {
+                int termId = itemTerms[a][k];
+                int[] posting = postingItems[termId];
+                if (posting == null) {
+                    continue;
+                }
+                float weight = itemWeights[a][k];
+                for (int j = 0; j < posting.length; j++) {
+                    int b = posting[j];
+                    if (b != a) {
+                        scratch.touch(b);
+                        scratch.text[b] += weight * postingWeights[termId][j];
+                    }
+                }
+            }
+            for (int basket : basketsOf[a]) {
+                for (int b : basketMembers[basket]) {
+                    if (b != a) {
+                        scratch.touch(b);
+                        scratch.together[b]++;
+                    }
+                }
+            }
+            if (professors[a] >= 0) {
+                for (int b : byProfessor[professors[a]]) {
+                    if (b != a) {
+                        scratch.touch(b);
+                    }
+                }
+            }
+
+            TopK top = scratch.top;
+            for (int i = 0; i < scratch.size; i++) {
+                int b = scratch.touched[i];
+                float score = weights.text() * scratch.text[b];
+                if (scratch.together[b] > 0) {
+                    score += (float) (weights.coEnrollment() * scratch.together[b]
+                            / Math.sqrt((double) basketsOf[a].length * basketsOf[b].length));
+                }
+                if (categories[a] >= 0 && categories[a] == categories[b]) {
+                    score += weights.category();
+                }
+                if (professors[a] >= 0 && professors[a] == professors[b]) {
+                    score += weights.professor();
+                }
+                if (score > 0) {
+                    top.offer(b, score);
+                }
+            }
+            if (top.size < topK && categories[a] >= 0 && weights.category() > 0) {
+                for (int b : byCategory[categories[a]]) {
+                    if (top.size == topK) {
+                        break;
+                    }
+                    if (b != a && !scratch.touched(b)) {
+                        top.offer(b, weights.category());
+                    }
+                }
+            }
+            rows[a] = Arrays.copyOf(top.items, top.size);
+        }
+
+        private static int[] codes(List<Item> items, Function<Item, String> key) {
+            Map<String, Integer> codes = new HashMap<>();
+            int[] result = new int[items.size()];
+            for (int i = 0; i < result.length; i++) {
+                String value = key.apply(items.get(i));
+                result[i] = value != null ? codes.computeIfAbsent(value, v -> codes.size()) : -1;
+            }
+            return result;
+        }
+
+        private static int[][] members(int[] codes) {
+            int groups = Arrays.stream(codes).max().orElse(-1) + 1;
+            int[] sizes = new int[groups];
+            for (int code : codes) {
+                if (code >= 0) {
+                    sizes[code]++;
+                }
+            }
+            int[][] members = new int[groups][];
+            for (int group = 0; group < groups; group++) {
+                members[group] = new int[sizes[group]];
+                sizes[group] = 0;
+            }
+            for (int i = 0; i < codes.length; i++) {
+                if (codes[i] >= 0) {
+                    members[codes[i]][sizes[codes[i]]++] = i;
+                }
+            }
+            return members;
+        }
+    }
+
+    // Dense per-thread accumulators; a course stamps the candidates it has touched
+    private static final class Scratch {
+
+        final float[] text;
+        final int[] together;
+        final int[] stamps;
+        final int[] touched;
+        final TopK top;
+        int size;
+        int stamp;
+
+        Scratch(int n, int topK) {
+            text = new float[n];
+            together = new int[n];
+            stamps = new int[n];
+            touched = new int[n];
+            top = new TopK(topK);
+        }
+
+        void begin(int a) {
+            stamp = a + 1;
+            size = 0;
+            top.size = 0;
+        }
+
+        void touch(int b) {
+            if (stamps[b] != stamp) {
+                stamps[b] = stamp;
+                text[b] = 0;
+                together[b] = 0;
+                touched[size++] = b;
+            }
+        }
+
+        boolean touched(int b) {
+            return stamps[b] == stamp;
+        }
+    }
+
+    // Best first; equal scores keep the lower position, so rebuilds are deterministic
+    private static final class TopK {
+
+        final int[] items;
+        final float[] scores;
+        int size;
+
+        TopK(int k) {
+            items = new int[k];
+            scores = new float[k];
+        }
+
+        void offer(int item, float score) {
+            if (items.length == 0 || size == items.length && !better(item, score, size - 1)) {
+                return;
+            }
+            int i = size < items.length ? size++ : size - 1;
+            while (i > 0 && better(item, score, i - 1)) {
+                items[i] = items[i - 1];
+                scores[i] = scores[i - 1];
+                i--;
+            }
+            items[i] = item;
+            scores[i] = score;
+        }
+
+        private boolean better(int item, float score, int rank) {
+            return score > scores[rank] || score == scores[rank] && item < items[rank];
+        }
+    }
+
+    private static final class Rows extends RecursiveAction {
+
+        private final Builder builder;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        Rows(Builder builder, int from, int to, int threshold) {
+            this.builder = builder;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                Scratch scratch = new Scratch(builder.n, builder.topK);
+                for (int a = from; a < to; a++) {
+                    builder.computeRow(a, scratch);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Rows(builder, from, middle, threshold), new Rows(builder, middle, to, threshold));
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.learning.cours.search;
+
+public record SearchHit(String courseId, double score) {
+}
@@ -0,0 +1,10 @@
+package com.learning.cours.search;
+
+import java.util.List;
+
+public record SearchResult(List<SearchHit> hits, long total) {
+
+    static SearchResult empty() {
+        return new SearchResult(List.of(), 0);
+    }
+}
@@ -0,0 +1,7 @@
+package com.learning.cours.search;
+
+/**
+ * @param key unique across types, e.g. {@code COURSE:42}
+ */
+public record Suggestion(String key, String text, String type, String id, double weight) {
+}
@@ -0,0 +1,192 @@
+package com.learning.cours.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable radix trie over folded suggestion keys. Every node stores its best
+ * suggestions, ordered by weight, so an exact prefix lookup costs one walk down the
+ * prefix. Typo-tolerant lookups walk the trie with a Levenshtein row per edge
+ * character and stop at the first node whose path is within the edit budget of the
+ * whole query.
+ */
+final class SuggestionTrie {
+
+    private record Node(char[] label, Node[] children, char[] firsts, int[] top) {
+    }
+
+    private record Keyed(String key, int suggestion) {
+    }
+
+    /** A typo-tolerant match and its edit distance to the query. */
+    record Match(Suggestion suggestion, int distance) {
+    }
+
+    static final Comparator<Suggestion> BY_WEIGHT = Comparator.comparingDouble(Suggestion::weight)
+            .reversed()
+            .thenComparing(Suggestion::text);
+
+    static final Comparator<Match> CLOSEST_FIRST = Comparator.comparingInt(Match::distance)
+            .thenComparing(Match::suggestion, BY_WEIGHT);
+
+    private final Suggestion[] suggestions;
+    private final Node root;
+
+    private SuggestionTrie(Suggestion[] suggestions, Node root) {
+        this.suggestions = suggestions;
+        this.root = root;
+    }
+
+    /**
+     * @param keys folded lookup keys per suggestion; a suggestion may have several,
+     *             e.g. one for each word it starts with
+     */
+    static SuggestionTrie build(Map<Suggestion, List<String>> keys, int topSize) {
+        List<Suggestion> ranked = new ArrayList<>(keys.keySet());
+        ranked.sort(BY_WEIGHT);
+        Suggestion[] suggestions = ranked.toArray(Suggestion[]::new);
+
+        List<Keyed> entries = new ArrayList<>();
+        for (int i = 0; i < suggestions.length; i++) {
+            for (String key : keys.get(suggestions[i])) {
+                if (!key.isEmpty()) {
+                    entries.add(new Keyed(key, i));
+                }
+            }
+        }
+        entries.sort(Comparator.comparing(Keyed::key).thenComparingInt(Keyed::suggestion));
+        Node root = entries.isEmpty()
+                ? new Node(new char[0], new Node[0], new char[0], new int[0])
+                : build(entries, 0, entries.size(), 0, topSize);
+        return new SuggestionTrie(suggestions, root);
+    }
+
+    private static Node build(List<Keyed> entries, int from, int to, int depth, int topSize) {
+        String first = entries.get(from).key();
+        String last = entries.get(to - 1).key();
+        int end = depth;
+        while (end < first.length() && end < last.length() && first.charAt(end) == last.charAt(end)) {
+            end++;
+        }
+
+        // Suggestion indexes are in rank order, so the smallest indexes are the best
+        List<int[]> candidates = new ArrayList<>();
+        int position = from;
+        while (position < to && entries.get(position).key().length() == end) {
+            position++;
+        }
+        candidates.add(entries.subList(from, position).stream().mapToInt(Keyed::suggestion).toArray());
+
+        List<Node> children = new ArrayList<>();
+        while (position < to) {
+            char next = entries.get(position).key().charAt(end);
+            int groupEnd = position;
+            while (groupEnd < to && entries.get(groupEnd).key().charAt(end) == next) {
+                groupEnd++;
+            }
+            Node child = build(entries, position, groupEnd, end, topSize);
+            children.add(child);
+            candidates.add(child.top());
+            position = groupEnd;
+        }
+
+        char[] firsts = new char[children.size()];
+        for (int i = 0; i < firsts.length; i++) {
+            firsts[i] = children.get(i).label()[0];
+        }
+        return new Node(first.substring(depth, end).toCharArray(), children.toArray(Node[]::new), firsts,
+                top(candidates, topSize));
+    }
+
+    private static int[] top(List<int[]> candidates, int topSize) {
+        return candidates.stream().flatMapToInt(Arrays::stream).sorted().distinct().limit(topSize).toArray();
+    }
+
+    List<Suggestion> complete(String prefix, int limit) {
+        Node node = root;
+        int matched = 0;
+        while (true) {
+            char[] label = node.label();
+            for (int i = 0; i < label.length && matched < prefix.length(); i++, matched++) {
+                if (label[i] != prefix.charAt(matched)) {
+                    return List.of();
+                }
+            }
+            if (matched == prefix.length()) {
+                return resolve(node.top(), limit);
+            }
+            int child = Arrays.binarySearch(node.firsts(), prefix.charAt(matched));
+            if (child < 0) {
+                return List.of();
+            }
+            node = node.children()[child];
+        }
+    }
+
+    /**
+     * Suggestions whose key starts with a string within {@code maxEdits} edits of the
+     * query, closest first and then by weight.
+     */
+    List<Match> completeFuzzy(String query, int maxEdits, int limit) {
+        int[] row = new int[query.length() + 1];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = i;
+        }
+        Map<Integer, Integer> distances = new HashMap<>();
+        walk(root, query, row, maxEdits, distances);
+
+        List<Map.Entry<Integer, Integer>> ranked = new ArrayList<>(distances.entrySet());
+        ranked.sort(Map.Entry.<Integer, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Match> result = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> entry : ranked) {
+            Suggestion suggestion = suggestions[entry.getKey()];
+            result.putIfAbsent(suggestion.key(), new Match(suggestion, entry.getValue()));
+            if (result.size() == limit) {
+                break;
+            }
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    private void walk(Node node, String query, int[] row, int maxEdits, Map<Integer, Integer> distances) {
+        int[] current = row;
+        for (char c : node.label()) {
+            int[] next = new int[current.length];
+            next[0] = current[0] + 1;
+            int best = next[0];
+            for (int j = 1; j < next.length; j++) {
+                int substitution = current[j - 1] + (query.charAt(j - 1) == c ? 0 : 1);
+                next[j] = Math.min(substitution, Math.min(current[j] + 1, next[j - 1] + 1));
+                best = Math.min(best, next[j]);
+            }
+            current = next;
+            int distance = current[current.length - 1];
+            if (distance <= maxEdits) {
+                // The whole query matches a prefix of this path, so every key below does too
+                for (int suggestion : node.top()) {
+                    distances.merge(suggestion, distance, Math::min);
+                }
+                return;
+            }
+            if (best > maxEdits) {
+                return;
+            }
+        }
+        for (Node child : node.children()) {
+            walk(child, query, current, maxEdits, distances);
+        }
+    }
+
+    private List<Suggestion> resolve(int[] indexes, int limit) {
+        List<Suggestion> result = new ArrayList<>(Math.min(limit, indexes.length));
+        for (int i = 0; i < indexes.length && result.size() < limit; i++) {
+            result.add(suggestions[indexes[i]]);
+        }
+        return result;
+    }
+}
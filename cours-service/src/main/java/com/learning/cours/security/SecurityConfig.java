@@ -24,6 +24,7 @@ import java.util.List;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final InternalServiceTokenFilter internalServiceTokenFilter;
 
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
@@ -49,9 +50,12 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/courses/**", "/api/data/**", "/graphql/**").permitAll()
                 .requestMatchers("/actuator/**").permitAll()
+                // Service-to-service signals, for callers holding the shared service token
+                .requestMatchers("/internal/**").hasRole(InternalServiceTokenFilter.ROLE)
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterAfter(internalServiceTokenFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,87 @@
+package com.learning.cours.service;
+
+import com.learning.cours.entity.Course;
+import com.learning.cours.exception.BadRequestException;
+import com.learning.cours.search.CoursePopularityIndex;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opaque {@code after} cursors for the course catalog: the (createdAt, id) keyset
+ * position of the last course on a page, or its (popularity, id) position when
+ * sorting by popularity, base64url encoded.
+ */
+public final class CourseCursor {
+
+    private static final String CREATED_AT = "createdAt";
+    private static final String ID = "id";
+
+    private CourseCursor() {
+    }
+
+    public static String of(Course course) {
+        return encode((course.getCreatedAt() != null ? course.getCreatedAt() : "") + "," + course.getId());
+    }
+
+    /**
+     * @return the position after the cursor, or {@code null} for the first page when
+     * the cursor is blank
+     */
+    public static KeysetScrollPosition decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int comma = value.indexOf(',');
+            String createdAt = value.substring(0, comma);
+            String id = value.substring(comma + 1);
+            if (id.isEmpty()) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(CREATED_AT, createdAt.isEmpty() ? null : LocalDateTime.parse(createdAt).toString());
+            keys.put(ID, id);
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public static String of(CoursePopularityIndex.Ranked course) {
+        return encode(course.score() + "," + course.courseId());
+    }
+
+    /**
+     * @return the popularity position after the cursor, or {@code null} for the first
+     * page when the cursor is blank
+     */
+    public static CoursePopularityIndex.Ranked decodePopularity(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int comma = value.indexOf(',');
+            double score = Double.parseDouble(value.substring(0, comma));
+            String id = value.substring(comma + 1);
+            if (id.isEmpty() || !Double.isFinite(score)) {
+                throw new BadRequestException("Invalid cursor: " + cursor);
+            }
+            return new CoursePopularityIndex.Ranked(id, score);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
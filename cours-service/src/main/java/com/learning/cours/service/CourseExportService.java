@@ -0,0 +1,167 @@
+package com.learning.cours.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.cours.dto.CourseDTO;
+import com.learning.cours.entity.Course;
+import com.learning.cours.mapper.CourseMapper;
+import com.learning.cours.repository.FirestoreCourseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * Full catalog dumps in id order, written record by record from a Mongo cursor or
+ * from Firestore pages, so memory does not grow with the catalog. Every record carries
+ * its id; passing the last one received as {@code after} resumes an interrupted dump.
+ */
+@Service
+@Slf4j
+public class CourseExportService {
+
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+    public static final String MONGO = "mongo";
+    public static final String FIRESTORE = "firestore";
+
+    private static final List<String> CSV_COLUMNS = List.of("id", "title", "description", "categoryId",
+            "categoryName", "professorId", "professorName", "youtubeVideoId", "price", "createdAt", "lessonsCount");
+
+    private final MongoTemplate mongoTemplate;
+    private final FirestoreCourseRepository firestoreCourseRepository;
+    private final CourseMapper courseMapper;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public CourseExportService(MongoTemplate mongoTemplate,
+                               FirestoreCourseRepository firestoreCourseRepository,
+                               CourseMapper courseMapper,
+                               ObjectMapper objectMapper,
+                               @Value("${course-export.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.firestoreCourseRepository = firestoreCourseRepository;
+        this.courseMapper = courseMapper;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    public long export(String format, String source, String after, OutputStream output) throws IOException {
+        long started = System.nanoTime();
+        Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        boolean csv = format.equals(CSV);
+        if (csv) {
+            out.write(String.join(",", CSV_COLUMNS));
+            out.write('\n');
+        }
+        long exported = 0;
+        try {
+            if (source.equals(FIRESTORE)) {
+                exported = exportFirestore(after, csv, out);
+            } else {
+                exported = exportMongo(after, csv, out);
+            }
+        } finally {
+            out.flush();
+            log.info("Exported {} courses as {} from {} in {} ms", exported, format, source,
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+        return exported;
+    }
+
+    private long exportMongo(String after, boolean csv, Writer out) throws IOException {
+        // Lessons are counted on the server instead of being read
+        TypedAggregation<Course> aggregation = Aggregation.newAggregation(Course.class,
+                Aggregation.match(after != null ? Criteria.where("id").gt(after) : new Criteria()),
+                Aggregation.sort(Sort.Direction.ASC, "id"),
+                Aggregation.project("title", "description", "category", "professor", "youtubeVideoId", "price",
+                                "createdAt")
+                        .and(ArrayOperators.Size.lengthOfArray(ConditionalOperators.ifNull("lessons").then(List.of())))
+                        .as("lessonsCount"))
+                .withOptions(AggregationOptions.builder().cursorBatchSize(batchSize).build());
+
+        long exported = 0;
+        try (Stream<Document> documents = mongoTemplate.aggregateStream(aggregation, Document.class)) {
+            Iterator<Document> iterator = documents.iterator();
+            while (iterator.hasNext()) {
+                Document document = iterator.next();
+                CourseDTO course = courseMapper.toDTO(mongoTemplate.getConverter().read(Course.class, document));
+                course.setLessonsCount(document.getInteger("lessonsCount", 0));
+                write(course, csv, out);
+                exported++;
+            }
+        }
+        return exported;
+    }
+
+    private long exportFirestore(String after, boolean csv, Writer out) throws IOException {
+        long exported = 0;
+        String last = after;
+        try {
+            while (true) {
+                FirestoreCourseRepository.ExportPage page = firestoreCourseRepository.findAllAfter(last, batchSize);
+                for (Course course : page.courses()) {
+                    write(courseMapper.toDTO(course), csv, out);
+                }
+                exported += page.courses().size();
+                if (page.last()) {
+                    return exported;
+                }
+                last = page.lastId();
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Firestore export failed after " + last, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Firestore export interrupted after " + last, e);
+        }
+    }
+
+    private void write(CourseDTO course, boolean csv, Writer out) throws IOException {
+        if (!csv) {
+            out.write(objectMapper.writeValueAsString(course));
+            out.write('\n');
+            return;
+        }
+        Object[] values = {course.getId(), course.getTitle(), course.getDescription(), course.getCategoryId(),
+                course.getCategoryName(), course.getProfessorId(), course.getProfessorName(),
+                course.getYoutubeVideoId(), course.getPrice() != null ? course.getPrice().toPlainString() : null,
+                course.getCreatedAt(), course.getLessonsCount()};
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(csvField(values[i]));
+        }
+        out.write('\n');
+    }
+
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,342 @@
+package com.learning.cours.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.cours.dto.CourseDTO;
+import com.learning.cours.dto.ImportResultDTO;
+import com.learning.cours.dto.ImportSummaryDTO;
+import com.learning.cours.entity.Category;
+import com.learning.cours.entity.Course;
+import com.learning.cours.entity.Professor;
+import com.learning.cours.event.CourseChangedEvent;
+import com.learning.cours.repository.CategoryRepository;
+import com.learning.cours.repository.ProfessorRepository;
+import com.mongodb.bulk.BulkWriteUpsert;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk course import from NDJSON or CSV. The input is parsed one record at a time,
+ * resolved against categories and professors loaded once per import, and written in
+ * unordered Mongo bulk batches. Reading waits while a batch is written, so only one
+ * batch is held in memory and a fast client is slowed down to the write rate. The
+ * result of every record is streamed back as NDJSON, followed by a summary line.
+ */
+@Service
+@Slf4j
+public class CourseImportService {
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String REJECTED = "REJECTED";
+
+    private record ParsedRecord(long line, CourseDTO course, String error) {
+    }
+
+    private interface RecordSource {
+        ParsedRecord next() throws IOException;
+    }
+
+    // Records without an error carry a course; ones with an id are upserted
+    private record Pending(long line, Course course, boolean upsert, String error) {
+    }
+
+    private record References(Map<String, Category> categories, Map<String, Category> categoryNames,
+                              Map<String, Professor> professors, Map<String, Professor> professorNames) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final CategoryRepository categoryRepository;
+    private final ProfessorRepository professorRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public CourseImportService(MongoTemplate mongoTemplate,
+                               CategoryRepository categoryRepository,
+                               ProfessorRepository professorRepository,
+                               Validator validator,
+                               ObjectMapper objectMapper,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${course-import.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.categoryRepository = categoryRepository;
+        this.professorRepository = professorRepository;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    public ImportSummaryDTO importCourses(InputStream input, boolean csv, OutputStream output) throws IOException {
+        long started = System.nanoTime();
+        ImportSummaryDTO summary = new ImportSummaryDTO();
+        Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try {
+            References references = loadReferences();
+            RecordSource source = csv ? csvSource(reader) : ndjsonSource(reader);
+            for (ParsedRecord record = source.next(); record != null; record = source.next()) {
+                summary.setRead(summary.getRead() + 1);
+                batch.add(toPending(record, references));
+                if (batch.size() == batchSize) {
+                    write(batch, summary, out);
+                }
+            }
+            write(batch, summary, out);
+        } catch (IOException | DataAccessException e) {
+            log.warn("Course import stopped after {} records: {}", summary.getRead(), e.getMessage());
+            summary.setError(e.getMessage());
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        summary.setElapsedMs(elapsedNanos / 1_000_000);
+        summary.setRecordsPerSecond(elapsedNanos > 0 ? summary.getRead() * 1e9 / elapsedNanos : 0);
+        writeLine(out, Map.of("summary", summary));
+        out.flush();
+        log.info("Course import finished: {}", summary);
+        return summary;
+    }
+
+    private References loadReferences() {
+        Map<String, Category> categories = new HashMap<>();
+        Map<String, Category> categoryNames = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            categories.put(category.getId(), category.snapshot());
+            if (category.getName() != null) {
+                categoryNames.putIfAbsent(nameKey(category.getName()), category.snapshot());
+            }
+        }
+        Map<String, Professor> professors = new HashMap<>();
+        Map<String, Professor> professorNames = new HashMap<>();
+        for (Professor professor : professorRepository.findAll()) {
+            professors.put(professor.getId(), professor.snapshot());
+            if (professor.getFullName() != null) {
+                professorNames.putIfAbsent(nameKey(professor.getFullName()), professor.snapshot());
+            }
+        }
+        return new References(categories, categoryNames, professors, professorNames);
+    }
+
+    private RecordSource ndjsonSource(BufferedReader reader) {
+        long[] line = {0};
+        return () -> {
+            String text;
+            do {
+                text = reader.readLine();
+                line[0]++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+            try {
+                return new ParsedRecord(line[0], objectMapper.readValue(text, CourseDTO.class), null);
+            } catch (JsonProcessingException e) {
+                return new ParsedRecord(line[0], null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        };
+    }
+
+    private RecordSource csvSource(BufferedReader reader) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return () -> null;
+        }
+        List<String> columns = header.stream().map(String::trim).toList();
+        return () -> {
+            long line;
+            List<String> fields;
+            do {
+                line = csv.line();
+                fields = csv.next();
+            } while (fields != null && fields.size() == 1 && fields.get(0).isBlank());
+            if (fields == null) {
+                return null;
+            }
+            if (fields.size() != columns.size()) {
+                return new ParsedRecord(line, null,
+                        "Expected " + columns.size() + " fields, found " + fields.size());
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                if (!fields.get(i).isBlank()) {
+                    values.put(columns.get(i), fields.get(i).trim());
+                }
+            }
+            try {
+                return new ParsedRecord(line, objectMapper.convertValue(values, CourseDTO.class), null);
+            } catch (IllegalArgumentException e) {
+                String reason = e.getCause() instanceof JsonProcessingException cause
+                        ? cause.getOriginalMessage()
+                        : e.getMessage();
+                return new ParsedRecord(line, null, "Invalid value: " + reason);
+            }
+        };
+    }
+
+    private Pending toPending(ParsedRecord record, References references) {
+        if (record.error() != null) {
+            return new Pending(record.line(), null, false, record.error());
+        }
+        CourseDTO dto = record.course();
+        Category category = resolve(references.categories(), references.categoryNames(),
+                dto.getCategoryId(), dto.getCategoryName());
+        if (category == null) {
+            return new Pending(record.line(), null, false, "Category not found");
+        }
+        Professor professor = resolve(references.professors(), references.professorNames(),
+                dto.getProfessorId(), dto.getProfessorName());
+        if (professor == null) {
+            return new Pending(record.line(), null, false, "Professor not found");
+        }
+
+        Course course = new Course();
+        course.setId(dto.getId() != null ? dto.getId() : new ObjectId().toHexString());
+        course.setTitle(dto.getTitle());
+        course.setDescription(dto.getDescription());
+        course.setCategory(category);
+        course.setProfessor(professor);
+        course.setYoutubeVideoId(dto.getYoutubeVideoId());
+        course.setPrice(dto.getPrice());
+        course.setCreatedAt(dto.getCreatedAt() != null ? dto.getCreatedAt() : LocalDateTime.now());
+        course.setUpdatedAt(LocalDateTime.now());
+        course.setVersion(0L);
+
+        Set<ConstraintViolation<Course>> violations = validator.validate(course);
+        if (!violations.isEmpty()) {
+            String error = violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            return new Pending(record.line(), null, false, error);
+        }
+        return new Pending(record.line(), course, dto.getId() != null, null);
+    }
+
+    private static <T> T resolve(Map<String, T> byId, Map<String, T> byName, String id, String name) {
+        if (id != null) {
+            return byId.get(id);
+        }
+        return name != null ? byName.get(nameKey(name)) : null;
+    }
+
+    private static String nameKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void write(List<Pending> batch, ImportSummaryDTO summary, Writer out) throws IOException {
+        List<Pending> writes = batch.stream().filter(pending -> pending.error() == null).toList();
+        Map<Integer, String> failed = new HashMap<>();
+        Set<Integer> upserted = Set.of();
+        if (!writes.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Course.class);
+            for (Pending pending : writes) {
+                if (pending.upsert()) {
+                    bulk.upsert(Query.query(Criteria.where("id").is(pending.course().getId())),
+                            upsertOf(pending.course()));
+                } else {
+                    bulk.insert(pending.course());
+                }
+            }
+            try {
+                upserted = indexes(bulk.execute().getUpserts());
+            } catch (BulkOperationException e) {
+                e.getErrors().forEach(error -> failed.put(error.getIndex(), error.getMessage()));
+                upserted = indexes(e.getResult().getUpserts());
+            } catch (DataAccessException e) {
+                for (int i = 0; i < writes.size(); i++) {
+                    failed.put(i, "Batch not written: " + e.getMessage());
+                }
+                report(batch, writes, failed, upserted, summary, out);
+                throw e;
+            }
+            summary.setBatches(summary.getBatches() + 1);
+        }
+        report(batch, writes, failed, upserted, summary, out);
+    }
+
+    private void report(List<Pending> batch, List<Pending> writes, Map<Integer, String> failed,
+                        Set<Integer> upserted, ImportSummaryDTO summary, Writer out) throws IOException {
+        int index = 0;
+        for (Pending pending : batch) {
+            if (pending.error() != null) {
+                summary.setRejected(summary.getRejected() + 1);
+                writeLine(out, new ImportResultDTO(pending.line(), REJECTED, null, pending.error()));
+                continue;
+            }
+            int writeIndex = index++;
+            String id = pending.course().getId();
+            if (failed.containsKey(writeIndex)) {
+                summary.setRejected(summary.getRejected() + 1);
+                writeLine(out, new ImportResultDTO(pending.line(), REJECTED, id, failed.get(writeIndex)));
+            } else if (!pending.upsert() || upserted.contains(writeIndex)) {
+                summary.setCreated(summary.getCreated() + 1);
+                eventPublisher.publishEvent(new CourseChangedEvent(id, CourseChangedEvent.Type.CREATED));
+                writeLine(out, new ImportResultDTO(pending.line(), CREATED, id, null));
+            } else {
+                summary.setUpdated(summary.getUpdated() + 1);
+                eventPublisher.publishEvent(new CourseChangedEvent(id, CourseChangedEvent.Type.UPDATED));
+                writeLine(out, new ImportResultDTO(pending.line(), UPDATED, id, null));
+            }
+        }
+        batch.clear();
+        out.flush();
+    }
+
+    // Existing courses keep their lessons and creation date
+    private static Update upsertOf(Course course) {
+        return new Update()
+                .set("title", course.getTitle())
+                .set("description", course.getDescription())
+                .set("category", course.getCategory())
+                .set("professor", course.getProfessor())
+                .set("youtubeVideoId", course.getYoutubeVideoId())
+                .set("price", course.getPrice())
+                .set("updatedAt", course.getUpdatedAt())
+                .inc("version", 1)
+                .setOnInsert("createdAt", course.getCreatedAt())
+                .setOnInsert("lessons", List.of());
+    }
+
+    private static Set<Integer> indexes(List<BulkWriteUpsert> upserts) {
+        return upserts.stream().map(BulkWriteUpsert::getIndex).collect(Collectors.toSet());
+    }
+
+    private void writeLine(Writer out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsString(value));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,272 @@
+package com.learning.cours.service;
+
+import com.learning.cours.entity.Course;
+import com.learning.cours.exception.ServiceUnavailableException;
+import com.learning.cours.repository.CourseRepository;
+import com.learning.cours.repository.FirestoreCourseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Single-course lookups across the configured sources, in priority order. The next
+ * source is only queried when the previous one has no answer. In hedged mode the
+ * secondary read also starts once the primary has been slower than its recent p95,
+ * and the first source that finds the course wins; a hedged read that no source
+ * answers within {@code course-read.timeout} fails with 503 instead of holding the
+ * request thread.
+ */
+@Component
+@Slf4j
+public class CourseReadPath {
+
+    public enum Source { FIRESTORE, MONGO }
+
+    private static final double HEDGE_PERCENTILE = 0.95;
+    private static final long MIN_SAMPLES = 20;
+
+    private final Map<Source, BiFunction<String, Set<String>, Optional<Course>>> readers = new EnumMap<>(Source.class);
+    private final Map<Source, BiFunction<Collection<String>, Set<String>, List<Course>>> batchReaders =
+            new EnumMap<>(Source.class);
+    private final Map<Source, Timer> latencies = new EnumMap<>(Source.class);
+    private final Map<Source, Timer> batchLatencies = new EnumMap<>(Source.class);
+    private final List<Source> order;
+    private final boolean hedged;
+    private final Duration initialDelay;
+    private final Duration minDelay;
+    private final Duration timeout;
+    private final MeterRegistry meterRegistry;
+    private final Counter hedges;
+    private final ThreadPoolTaskExecutor executor;
+
+    public CourseReadPath(CourseRepository courseRepository,
+                          FirestoreCourseRepository firestoreCourseRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${course-read.sources:firestore,mongo}") List<String> sources,
+                          @Value("${course-read.hedge.enabled:false}") boolean hedged,
+                          @Value("${course-read.hedge.initial-delay:50ms}") Duration initialDelay,
+                          @Value("${course-read.hedge.min-delay:5ms}") Duration minDelay,
+                          @Value("${course-read.hedge.pool-size:16}") int poolSize,
+                          @Value("${course-read.timeout:5s}") Duration timeout) {
+        readers.put(Source.FIRESTORE, firestoreCourseRepository::findById);
+        readers.put(Source.MONGO, courseRepository::findById);
+        batchReaders.put(Source.FIRESTORE, firestoreCourseRepository::findAllById);
+        batchReaders.put(Source.MONGO, courseRepository::findAllById);
+        this.order = sources.stream()
+                .map(source -> Source.valueOf(source.trim().toUpperCase(Locale.ROOT)))
+                .distinct()
+                .toList();
+        if (order.isEmpty()) {
+            throw new IllegalArgumentException("course-read.sources must list at least one source");
+        }
+        this.hedged = hedged && order.size() > 1;
+        this.initialDelay = initialDelay;
+        this.minDelay = minDelay;
+        this.timeout = timeout;
+        this.meterRegistry = meterRegistry;
+        for (Source source : Source.values()) {
+            latencies.put(source, Timer.builder("course.read.latency")
+                    .description("Latency of single-course reads per source")
+                    .tag("source", name(source))
+                    .publishPercentiles(HEDGE_PERCENTILE)
+                    .register(meterRegistry));
+            batchLatencies.put(source, Timer.builder("course.read.batch.latency")
+                    .description("Latency of multi-course reads per source")
+                    .tag("source", name(source))
+                    .register(meterRegistry));
+        }
+        this.hedges = Counter.builder("course.read.hedges")
+                .description("Secondary reads started because the primary exceeded its p95")
+                .register(meterRegistry);
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("course-read-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        log.info("Course reads use sources {}{}", order, this.hedged ? " (hedged)" : "");
+    }
+
+    public Optional<Course> findById(String id, Set<String> fields) {
+        Hit hit = hedged ? hedgedRead(id, fields) : sequentialRead(id, fields);
+        Counter.builder("course.read.served")
+                .description("Single-course reads by the source that answered")
+                .tag("source", hit != null ? name(hit.source()) : "none")
+                .tag("role", hit == null ? "none" : hit.source() == order.get(0) ? "primary" : "fallback")
+                .register(meterRegistry)
+                .increment();
+        return Optional.ofNullable(hit).map(Hit::course);
+    }
+
+    /**
+     * Multi-get across the sources in priority order. Each source is asked once, for
+     * the ids the previous sources did not have. Batches are never hedged, and fail
+     * when a source failed and ids are still missing, since the failed source may hold
+     * them, so that a missing id always means not found.
+     */
+    public Map<String, Course> findAllById(Collection<String> ids, Set<String> fields) {
+        Map<String, Course> found = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>(ids);
+        boolean failed = false;
+        for (Source source : order) {
+            if (missing.isEmpty()) {
+                break;
+            }
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                for (Course course : batchReaders.get(source).apply(List.copyOf(missing), fields)) {
+                    found.put(course.getId(), course);
+                }
+            } catch (Exception e) {
+                failed = true;
+                log.warn("Course batch read from {} failed for {} ids: {}", source, missing.size(), e.getMessage());
+            } finally {
+                sample.stop(batchLatencies.get(source));
+            }
+            missing.removeAll(found.keySet());
+        }
+        if (failed && !missing.isEmpty()) {
+            throw new ServiceUnavailableException("A course source is unavailable; " + missing.size()
+                    + " courses could not be looked up");
+        }
+        return found;
+    }
+
+    private Hit sequentialRead(String id, Set<String> fields) {
+        for (Source source : order) {
+            Optional<Course> course = read(source, id, fields);
+            if (course.isPresent()) {
+                return new Hit(source, course.get());
+            }
+        }
+        return null;
+    }
+
+    private Hit hedgedRead(String id, Set<String> fields) {
+        Source primary = order.get(0);
+        Source secondary = order.get(1);
+        CompletableFuture<Hit> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+        AtomicBoolean secondaryStarted = new AtomicBoolean();
+        AtomicBoolean rejected = new AtomicBoolean();
+
+        submit(primary, id, fields).whenComplete((course, error) -> {
+            offer(winner, pending, rejected, primary, course, error);
+            // Lazy fallback: an empty primary starts the secondary without waiting for the hedge delay
+            if ((error != null || course.isEmpty()) && secondaryStarted.compareAndSet(false, true)) {
+                submit(secondary, id, fields)
+                        .whenComplete((result, failure) -> offer(winner, pending, rejected, secondary, result, failure));
+            }
+        });
+        CompletableFuture.delayedExecutor(hedgeDelay(primary).toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+            if (!winner.isDone() && secondaryStarted.compareAndSet(false, true)) {
+                hedges.increment();
+                submit(secondary, id, fields)
+                        .whenComplete((result, failure) -> offer(winner, pending, rejected, secondary, result, failure));
+            }
+        });
+
+        try {
+            return winner.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("No course source answered within " + timeout.toMillis() + " ms");
+        } catch (ExecutionException e) {
+            throw new ServiceUnavailableException("No course source is available");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Course read interrupted");
+        }
+    }
+
+    // A full pool sheds the read rather than running it without a deadline on the caller
+    private CompletableFuture<Optional<Course>> submit(Source source, String id, Set<String> fields) {
+        try {
+            return CompletableFuture.supplyAsync(() -> read(source, id, fields), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static void offer(CompletableFuture<Hit> winner, AtomicInteger pending, AtomicBoolean rejected,
+                              Source source, Optional<Course> course, Throwable error) {
+        if (error == null && course.isPresent()) {
+            winner.complete(new Hit(source, course.get()));
+            return;
+        }
+        if (error != null) {
+            rejected.set(true);
+        }
+        if (pending.decrementAndGet() == 0) {
+            if (rejected.get()) {
+                winner.completeExceptionally(error != null ? error : new RejectedExecutionException());
+            } else {
+                winner.complete(null);
+            }
+        }
+    }
+
+    private Optional<Course> read(Source source, String id, Set<String> fields) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return readers.get(source).apply(id, fields);
+        } catch (Exception e) {
+            log.warn("Course read from {} failed for id {}: {}", source, id, e.getMessage());
+            return Optional.empty();
+        } finally {
+            sample.stop(latencies.get(source));
+        }
+    }
+
+    private Duration hedgeDelay(Source source) {
+        Timer timer = latencies.get(source);
+        if (timer.count() < MIN_SAMPLES) {
+            return initialDelay;
+        }
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == HEDGE_PERCENTILE) {
+                Duration p95 = Duration.ofNanos((long) value.value(TimeUnit.NANOSECONDS));
+                return p95.compareTo(minDelay) > 0 ? p95 : minDelay;
+            }
+        }
+        return initialDelay;
+    }
+
+    private static String name(Source source) {
+        return source.name().toLowerCase(Locale.ROOT);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private record Hit(Source source, Course course) {
+    }
+}
@@ -0,0 +1,303 @@
+package com.learning.cours.service;
+
+import com.learning.cours.entity.Category;
+import com.learning.cours.entity.Course;
+import com.learning.cours.entity.Professor;
+import com.learning.cours.event.CourseChangedEvent;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.rest.core.event.BeforeSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the category and professor snapshots embedded in courses current. A saved
+ * Category or Professor is fanned out in the background with chunked updateMulti
+ * calls that touch only stale courses, and each rewritten course is announced as a
+ * {@link CourseChangedEvent}. Deleting one clears the snapshot from the courses
+ * that embed it, as a DBRef to a missing document used to read as null. A saved
+ * course has its snapshots checked against Mongo too, since they may have been taken
+ * from a cached copy older than the last category or professor save. Refreshes move
+ * updatedAt but not the version, so that they never fail the optimistic lock of
+ * someone editing the course. At startup,
+ * courses that still hold a DBRef are converted to embedded snapshots once, and
+ * courses written before versioning are given version 0 so that optimistic locking
+ * can save them. A course updated before that backfill reaches it is given its
+ * version first, by {@link #initializeVersion}.
+ * Prices stored before they were mapped as Decimal128 are converted at startup too,
+ * so that price ranges and sorts compare every course numerically.
+ */
+@Component
+@Slf4j
+public class CourseReferenceSync {
+
+    private static final String COLLECTION_NAME = "courses";
+    private static final int CHUNK_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ReferenceDataCache referenceDataCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean migrateOnStartup;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "course-reference-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CourseReferenceSync(MongoTemplate mongoTemplate,
+                               ReferenceDataCache referenceDataCache,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${course-references.migrate-on-startup:true}") boolean migrateOnStartup) {
+        this.mongoTemplate = mongoTemplate;
+        this.referenceDataCache = referenceDataCache;
+        this.eventPublisher = eventPublisher;
+        this.migrateOnStartup = migrateOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(this::initializeVersions);
+        executor.execute(this::migratePrices);
+        if (migrateOnStartup) {
+            executor.execute(this::migrate);
+        }
+    }
+
+    private void initializeVersions() {
+        try {
+            UpdateResult result = mongoTemplate.updateMulti(Query.query(Criteria.where("version").exists(false)),
+                    new Update().set("version", 0L), Course.class);
+            if (result.getModifiedCount() > 0) {
+                log.info("Initialized the version of {} courses", result.getModifiedCount());
+            }
+        } catch (Exception e) {
+            log.warn("Course versions not initialized, retried on the next start: {}", e.getMessage());
+        }
+    }
+
+    private void migratePrices() {
+        try {
+            // A price that does not parse is left as it is rather than failing the whole update
+            Document toDecimal = new Document("$convert", new Document("input", "$price")
+                    .append("to", "decimal").append("onError", "$price"));
+            UpdateResult result = mongoTemplate.getCollection(COLLECTION_NAME).updateMany(
+                    new Document("price", new Document("$type", List.of("string", "double", "int", "long"))),
+                    List.of(new Document("$set", new Document("price", toDecimal))));
+            if (result.getModifiedCount() > 0) {
+                log.info("Converted the price of {} courses to Decimal128", result.getModifiedCount());
+            }
+        } catch (Exception e) {
+            log.warn("Course prices not converted, retried on the next start: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Gives a course read before the startup backfill reached it version 0, so that
+     * saving it updates the stored course instead of inserting a duplicate.
+     */
+    public void initializeVersion(Course course) {
+        if (course.getId() == null || course.getVersion() != null) {
+            return;
+        }
+        Query query = Query.query(Criteria.where("id").is(course.getId()));
+        UpdateResult result = mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(course.getId())
+                .and("version").exists(false)), new Update().set("version", 0L), Course.class);
+        if (result.getMatchedCount() > 0 || mongoTemplate.exists(query, Course.class)) {
+            course.setVersion(0L);
+        }
+    }
+
+    // Data REST updates; CourseService calls initializeVersion itself
+    @EventListener
+    public void onBeforeRestSave(BeforeSaveEvent event) {
+        if (event.getSource() instanceof Course course) {
+            initializeVersion(course);
+        }
+    }
+
+    @EventListener
+    public void onSave(AfterSaveEvent<?> event) {
+        if (event.getSource() instanceof Category category) {
+            Category snapshot = category.snapshot();
+            executor.execute(() -> fanOut("category", snapshot.getId(), snapshot,
+                    Criteria.where("category.name").ne(snapshot.getName())));
+        } else if (event.getSource() instanceof Professor professor) {
+            Professor snapshot = professor.snapshot();
+            executor.execute(() -> fanOut("professor", snapshot.getId(), snapshot, new Criteria().orOperator(
+                    Criteria.where("professor.fullName").ne(snapshot.getFullName()),
+                    Criteria.where("professor.avatarUrl").ne(snapshot.getAvatarUrl()))));
+        } else if (event.getSource() instanceof Course course && course.getId() != null) {
+            String courseId = course.getId();
+            Category category = course.getCategory();
+            Professor professor = course.getProfessor();
+            executor.execute(() -> reconcile(courseId, category, professor));
+        }
+    }
+
+    private void reconcile(String courseId, Category category, Professor professor) {
+        try {
+            if (category != null && category.getId() != null) {
+                Category current = mongoTemplate.findById(category.getId(), Category.class);
+                Category snapshot = current != null ? current.snapshot() : null;
+                if (!category.snapshot().equals(snapshot)) {
+                    refresh(courseId, "category", category.getId(), snapshot);
+                }
+            }
+            if (professor != null && professor.getId() != null) {
+                Professor current = mongoTemplate.findById(professor.getId(), Professor.class);
+                Professor snapshot = current != null ? current.snapshot() : null;
+                if (!professor.snapshot().equals(snapshot)) {
+                    refresh(courseId, "professor", professor.getId(), snapshot);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not check the snapshots of course {}: {}", courseId, e.getMessage());
+        }
+    }
+
+    // Only while the course still references the same document
+    private void refresh(String courseId, String field, String referenceId, Object snapshot) {
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(courseId).and(field + ".id").is(referenceId)),
+                snapshotUpdate(field, snapshot), Course.class);
+        if (result.getModifiedCount() > 0) {
+            log.info("Refreshed the stale {} snapshot of course {}", field, courseId);
+            eventPublisher.publishEvent(new CourseChangedEvent(courseId, CourseChangedEvent.Type.UPDATED));
+        }
+    }
+
+    private static Update snapshotUpdate(String field, Object snapshot) {
+        return new Update().set(field, snapshot).set("updatedAt", LocalDateTime.now());
+    }
+
+    @EventListener
+    public void onDelete(AfterDeleteEvent<?> event) {
+        String field;
+        if (Category.class.equals(event.getType())) {
+            field = "category";
+        } else if (Professor.class.equals(event.getType())) {
+            field = "professor";
+        } else {
+            return;
+        }
+        Class<?> type = event.getType();
+        Object id = event.getSource().get("_id");
+        executor.execute(() -> {
+            // A delete by anything but a single id clears every snapshot left without its document
+            Set<String> deleted = id != null && !(id instanceof Document) ? Set.of(id.toString()) : orphans(field, type);
+            deleted.forEach(deletedId -> fanOut(field, deletedId, null, Criteria.where(field).ne(null)));
+        });
+    }
+
+    private Set<String> orphans(String field, Class<?> type) {
+        try {
+            Set<String> referenced = mongoTemplate.findDistinct(new Query(), field + ".id", Course.class, Object.class)
+                    .stream().map(Object::toString).collect(Collectors.toSet());
+            mongoTemplate.findDistinct(Query.query(Criteria.where("id").in(referenced)), "id", type, Object.class)
+                    .forEach(existing -> referenced.remove(existing.toString()));
+            return referenced;
+        } catch (Exception e) {
+            log.error("Could not find {} snapshots left by a delete: {}", field, e.getMessage(), e);
+            return Set.of();
+        }
+    }
+
+    private void fanOut(String field, String id, Object snapshot, Criteria stale) {
+        try {
+            long updated = 0;
+            while (true) {
+                // Rewritten courses stop matching, so each chunk is the next one without a sort
+                Query query = Query.query(new Criteria().andOperator(Criteria.where(field + ".id").is(id), stale))
+                        .limit(CHUNK_SIZE);
+                query.fields().include("id");
+                List<String> ids = mongoTemplate.find(query, Course.class).stream().map(Course::getId).toList();
+                if (ids.isEmpty()) {
+                    break;
+                }
+                mongoTemplate.updateMulti(Query.query(Criteria.where("id").in(ids)), snapshotUpdate(field, snapshot),
+                        Course.class);
+                ids.forEach(courseId -> eventPublisher.publishEvent(
+                        new CourseChangedEvent(courseId, CourseChangedEvent.Type.UPDATED)));
+                updated += ids.size();
+            }
+            if (updated > 0) {
+                log.info("Updated the {} snapshot of {} courses for {}", field, updated, id);
+            }
+        } catch (Exception e) {
+            log.error("Could not fan out {} {} to courses: {}", field, id, e.getMessage(), e);
+        }
+    }
+
+    private void migrate() {
+        try {
+            MongoCollection<Document> courses = mongoTemplate.getCollection(COLLECTION_NAME);
+            long migrated = migrate(courses, "category",
+                    id -> referenceDataCache.findCategory(id)
+                            .map(category -> new Document("name", category.getName())))
+                    + migrate(courses, "professor",
+                    id -> referenceDataCache.findProfessor(id).map(professor -> {
+                        Document snapshot = new Document("fullName", professor.getFullName());
+                        if (professor.getAvatarUrl() != null) {
+                            snapshot.append("avatarUrl", professor.getAvatarUrl());
+                        }
+                        return snapshot;
+                    }));
+            if (migrated > 0) {
+                log.info("Converted {} course references from DBRef to embedded snapshots", migrated);
+            }
+        } catch (Exception e) {
+            log.warn("Course reference migration did not complete, it resumes on the next start: {}", e.getMessage());
+        }
+    }
+
+    private long migrate(MongoCollection<Document> courses, String field,
+                         Function<String, Optional<Document>> snapshots) {
+        Bson isDbRef = Filters.exists(field + ".$ref");
+        List<Object> ids = courses.distinct(field + ".$id", isDbRef, Object.class).into(new ArrayList<>());
+        long migrated = 0;
+        for (Object id : ids) {
+            Optional<Document> snapshot = snapshots.apply(id.toString());
+            if (snapshot.isEmpty()) {
+                log.warn("Courses reference missing {} {}; left as DBRef", field, id);
+                continue;
+            }
+            // Keep the stored id type (ObjectId or string) so that id queries keep matching
+            Document embedded = new Document("_id", id);
+            embedded.putAll(snapshot.get());
+            UpdateResult result = courses.updateMany(Filters.and(isDbRef, Filters.eq(field + ".$id", id)),
+                    Updates.set(field, embedded));
+            migrated += result.getModifiedCount();
+        }
+        return migrated;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,175 @@
+package com.learning.cours.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.learning.cours.dto.CourseDTO;
+import com.learning.cours.event.CourseChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Byte-bounded cache of serialized course responses: the JSON bytes, their gzip
+ * encoding and a content ETag, so that a hit is written out without mapping or
+ * Jackson. Single courses are stored under their version and update time, which
+ * also moves when a snapshot is refreshed, and pages, in a cache of their own, under
+ * the catalog generation, which every course write advances; an entry only matches
+ * what it was stored with. A write drops every page at once.
+ */
+@Component
+public class CourseResponseCache {
+
+    // Below this size gzip saves less than its headers and CPU cost
+    private static final int GZIP_MIN_SIZE = 1024;
+
+    private record PageKey(int page, int size, Sort sort) {
+    }
+
+    public record SerializedResponse(long version, LocalDateTime updatedAt, byte[] json, byte[] gzip, String etag) {
+
+        int weight() {
+            return json.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Cache<String, SerializedResponse> courses;
+    private final Cache<PageKey, SerializedResponse> pages;
+    private final AtomicLong generation = new AtomicLong();
+
+    public CourseResponseCache(ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${course-response-cache.enabled:true}") boolean enabled,
+                               @Value("${course-response-cache.max-size:32MB}") DataSize maxSize,
+                               @Value("${course-response-cache.page-max-size:8MB}") DataSize pageMaxSize,
+                               @Value("${course-response-cache.ttl:10m}") Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.courses = cache(maxSize, ttl);
+        this.pages = cache(pageMaxSize, ttl);
+        CaffeineCacheMetrics.monitor(meterRegistry, courses, "course.responses");
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "course.page.responses");
+    }
+
+    private static <K> Cache<K, SerializedResponse> cache(DataSize maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((K key, SerializedResponse response) -> response.weight())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The current catalog generation. Read it before loading a page, so that a page
+     * loaded across a write is stored under the generation the write left behind.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public Optional<SerializedResponse> getCourse(String id, Long version, LocalDateTime updatedAt) {
+        return get(courses, id, version(version), millis(updatedAt));
+    }
+
+    public SerializedResponse putCourse(CourseDTO course) {
+        return put(courses, course.getId(), version(course.getVersion()), millis(course.getUpdatedAt()), course);
+    }
+
+    public Optional<SerializedResponse> getPage(Pageable pageable, long generation) {
+        return get(pages, pageKey(pageable), generation, null);
+    }
+
+    public SerializedResponse putPage(Pageable pageable, long generation, Page<CourseDTO> page) {
+        return put(pages, pageKey(pageable), generation, null, page);
+    }
+
+    private static <K> Optional<SerializedResponse> get(Cache<K, SerializedResponse> cache, K key, long version,
+                                                        LocalDateTime updatedAt) {
+        SerializedResponse response = cache.getIfPresent(key);
+        return response != null && response.version() == version && Objects.equals(response.updatedAt(), updatedAt)
+                ? Optional.of(response)
+                : Optional.empty();
+    }
+
+    private <K> SerializedResponse put(Cache<K, SerializedResponse> cache, K key, long version,
+                                       LocalDateTime updatedAt, Object body) {
+        SerializedResponse response = serialize(version, updatedAt, body);
+        cache.asMap().merge(key, response, (current, candidate) -> newer(candidate, current) ? candidate : current);
+        return response;
+    }
+
+    private static boolean newer(SerializedResponse candidate, SerializedResponse current) {
+        if (candidate.version() != current.version()) {
+            return candidate.version() > current.version();
+        }
+        return candidate.updatedAt() == null || current.updatedAt() == null
+                || !candidate.updatedAt().isBefore(current.updatedAt());
+    }
+
+    private static PageKey pageKey(Pageable pageable) {
+        return new PageKey(pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort());
+    }
+
+    @EventListener
+    public void onCourseChanged(CourseChangedEvent event) {
+        generation.incrementAndGet();
+        courses.invalidate(event.courseId());
+        pages.invalidateAll();
+    }
+
+    private SerializedResponse serialize(long version, LocalDateTime updatedAt, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            String etag = "\"0" + DigestUtils.md5DigestAsHex(json) + "\"";
+            return new SerializedResponse(version, updatedAt, json, json.length >= GZIP_MIN_SIZE ? gzip(json) : null,
+                    etag);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize course response", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static long version(Long version) {
+        return version != null ? version : 0;
+    }
+
+    // Mongo keeps milliseconds, so a course read back compares equal to the one written
+    private static LocalDateTime millis(LocalDateTime updatedAt) {
+        return updatedAt != null ? updatedAt.truncatedTo(ChronoUnit.MILLIS) : null;
+    }
+}
@@ -1,29 +1,76 @@
 package com.learning.cours.service;
 
 import com.learning.cours.dto.CourseDTO;
+import com.learning.cours.dto.CourseFilter;
+import com.learning.cours.dto.CourseLookupDTO;
+import com.learning.cours.dto.CourseSliceDTO;
+import com.learning.cours.dto.CourseSummaryDTO;
+import com.learning.cours.dto.FacetCountDTO;
+import com.learning.cours.dto.FacetedCoursesDTO;
+import com.learning.cours.dto.SuggestionDTO;
 import com.learning.cours.entity.Category;
 import com.learning.cours.entity.Course;
 import com.learning.cours.entity.Professor;
+import com.learning.cours.event.CourseChangedEvent;
+import com.learning.cours.exception.BadRequestException;
+import com.learning.cours.exception.PreconditionFailedException;
 import com.learning.cours.exception.ResourceNotFoundException;
+import com.learning.cours.exception.ServiceUnavailableException;
 import com.learning.cours.mapper.CourseMapper;
-import com.learning.cours.repository.CategoryRepository;
 import com.learning.cours.repository.CourseRepository;
-import com.learning.cours.repository.ProfessorRepository;
+import com.learning.cours.repository.CourseVersion;
+import com.learning.cours.search.CourseFacetIndex;
+import com.learning.cours.search.CourseFacetIndex.FacetResult;
+import com.learning.cours.search.CoursePopularityIndex;
+import com.learning.cours.search.CoursePopularityIndex.Ranked;
+import com.learning.cours.search.CoursePopularityIndex.RankedPage;
+import com.learning.cours.search.CourseSearchIndex;
+import com.learning.cours.search.CourseSuggester;
+import com.learning.cours.search.RelatedCourseIndex;
+import com.learning.cours.search.SearchHit;
+import com.learning.cours.search.SearchResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CourseService {
+
+    public static final int MAX_BATCH_IDS = 500;
+    // Stored fields behind CourseSummaryDTO
+    private static final Set<String> SUMMARY_FIELDS = Set.of("title", "category", "professor", "price");
     
     private final CourseRepository courseRepository;
-    private final CategoryRepository categoryRepository;
-    private final ProfessorRepository professorRepository;
+    private final ReferenceDataCache referenceDataCache;
     private final CourseMapper courseMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CourseSearchIndex courseSearchIndex;
+    private final CourseSuggester courseSuggester;
+    private final CourseFacetIndex courseFacetIndex;
+    private final CourseReadPath courseReadPath;
+    private final RelatedCourseIndex relatedCourseIndex;
+    private final CoursePopularityIndex coursePopularityIndex;
+    private final CourseReferenceSync courseReferenceSync;
 
     public Page<CourseDTO> getAllCourses(Pageable pageable) {
         log.info("Fetching all courses with pagination: {}", pageable);
@@ -31,6 +78,96 @@ public class CourseService {
                 .map(courseMapper::toDTO);
     }
 
+    public CourseSliceDTO getCoursesAfter(String after, int size, Sort.Direction direction) {
+        Window<Course> window = scrollCourses(after, size, direction);
+        return toSlice(window.getContent(), window.hasNext(), true, null);
+    }
+
+    public Window<Course> scrollCourses(String after, int size, Sort.Direction direction) {
+        log.info("Fetching {} courses after cursor: {}", size, after);
+        return courseRepository.findRecent(CourseCursor.decode(after), size, direction);
+    }
+
+    /**
+     * Keyset pages in popularity order, read as a range of the popularity index and then
+     * with one multi-get.
+     */
+    public CourseSliceDTO getCoursesByPopularity(String after, int size, Sort.Direction direction) {
+        checkPopularityReady();
+        log.info("Fetching {} courses by popularity after cursor: {}", size, after);
+        return popularitySlice(coursePopularityIndex.page(CourseCursor.decodePopularity(after), size, direction), null);
+    }
+
+    /**
+     * Offset pages in popularity order, from the same index as the keyset pages, so that
+     * a cursor taken from one continues in the same order.
+     */
+    public Page<CourseDTO> getCoursesPageByPopularity(Pageable pageable) {
+        checkPopularityReady();
+        log.info("Fetching courses by popularity: {}", pageable);
+        RankedPage page = coursePopularityIndex.page(pageable.getOffset(), pageable.getPageSize(),
+                popularityDirection(pageable));
+        return new PageImpl<>(rankedCourses(page), pageable, coursePopularityIndex.size());
+    }
+
+    public CourseSliceDTO getCourseSliceByPopularity(Pageable pageable, boolean estimateTotal) {
+        checkPopularityReady();
+        RankedPage page = coursePopularityIndex.page(pageable.getOffset(), pageable.getPageSize(),
+                popularityDirection(pageable));
+        return popularitySlice(page, estimateTotal ? coursePopularityIndex.size() : null);
+    }
+
+    private void checkPopularityReady() {
+        if (!coursePopularityIndex.isReady()) {
+            throw new ServiceUnavailableException("Course popularity is still loading, retry shortly");
+        }
+    }
+
+    private static Sort.Direction popularityDirection(Pageable pageable) {
+        Sort.Order order = pageable.getSort().getOrderFor("popularity");
+        return order != null ? order.getDirection() : Sort.Direction.DESC;
+    }
+
+    private CourseSliceDTO popularitySlice(RankedPage page, Long estimatedTotal) {
+        List<CourseDTO> content = rankedCourses(page);
+        String nextCursor = page.hasNext() ? CourseCursor.of(page.courses().get(page.courses().size() - 1)) : null;
+        return new CourseSliceDTO(content, content.size(), page.hasNext(), nextCursor, estimatedTotal);
+    }
+
+    private List<CourseDTO> rankedCourses(RankedPage page) {
+        List<String> ids = page.courses().stream().map(Ranked::courseId).toList();
+        Map<String, Course> courses = courseReadPath.findAllById(ids, null);
+        return ids.stream()
+                .map(courses::get)
+                .filter(Objects::nonNull)
+                .map(courseMapper::toDTO)
+                .toList();
+    }
+
+    public void recordPopularitySignal(String id, CoursePopularityIndex.Signal signal, long count) {
+        coursePopularityIndex.record(id, signal, count);
+    }
+
+    public CourseSliceDTO getCourseSlice(Pageable pageable, boolean estimateTotal) {
+        log.info("Fetching course slice: {}", pageable);
+        Slice<Course> slice = courseRepository.findAllBy(pageable);
+        Sort.Order first = pageable.getSort().stream().findFirst().orElse(null);
+        boolean keyed = first != null && first.getProperty().equals("createdAt");
+        return toSlice(slice.getContent(), slice.hasNext(), keyed,
+                estimateTotal ? courseRepository.estimatedCount() : null);
+    }
+
+    private CourseSliceDTO toSlice(List<Course> courses, boolean hasNext, boolean keyed, Long estimatedTotal) {
+        String nextCursor = hasNext && keyed ? CourseCursor.of(courses.get(courses.size() - 1)) : null;
+        return new CourseSliceDTO(courses.stream().map(courseMapper::toDTO).toList(), courses.size(), hasNext,
+                nextCursor, estimatedTotal);
+    }
+
+    public CourseVersion getCourseVersion(String id) {
+        return courseRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + id));
+    }
+
     public CourseDTO getCourseById(String id) {
         log.info("Fetching course with id: {}", id);
         Course course = courseRepository.findById(id)
@@ -38,70 +175,190 @@ public class CourseService {
         return courseMapper.toDTO(course);
     }
 
+    /**
+     * Looks up to {@link #MAX_BATCH_IDS} courses with one query per source and answers
+     * in request order, marking ids that were not found.
+     */
+    public List<CourseLookupDTO<?>> getCoursesByIds(List<String> ids, boolean summary) {
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new BadRequestException("At most " + MAX_BATCH_IDS + " ids can be requested at once");
+        }
+        if (ids.stream().anyMatch(id -> id == null || id.isBlank())) {
+            throw new BadRequestException("ids must not be blank");
+        }
+        log.info("Fetching {} courses by id", ids.size());
+        Map<String, Course> courses = courseReadPath.findAllById(new LinkedHashSet<>(ids), summary ? SUMMARY_FIELDS : null);
+        return ids.stream()
+                .<CourseLookupDTO<?>>map(id -> {
+                    Course course = courses.get(id);
+                    if (course == null) {
+                        return new CourseLookupDTO<>(id, false, null);
+                    }
+                    return summary
+                            ? new CourseLookupDTO<>(id, true, courseMapper.toSummaryDTO(course))
+                            : new CourseLookupDTO<>(id, true, courseMapper.toDTO(course));
+                })
+                .toList();
+    }
+
+    /**
+     * The courses most related to {@code id}, best first, from the precomputed table.
+     * Courses created since the last rebuild have none yet.
+     */
+    public List<CourseSummaryDTO> getRelatedCourses(String id, int limit) {
+        if (!relatedCourseIndex.isReady()) {
+            throw new ServiceUnavailableException("Related courses are still being computed, retry shortly");
+        }
+        List<String> ids = relatedCourseIndex.related(id, limit);
+        Map<String, Course> courses = courseReadPath.findAllById(ids, SUMMARY_FIELDS);
+        return ids.stream()
+                .map(courses::get)
+                .filter(Objects::nonNull)
+                .map(courseMapper::toSummaryDTO)
+                .toList();
+    }
+
     public CourseDTO createCourse(CourseDTO courseDTO) {
         log.info("Creating new course: {}", courseDTO.getTitle());
         
-        Category category = categoryRepository.findById(courseDTO.getCategoryId())
+        Category category = referenceDataCache.findCategory(courseDTO.getCategoryId())
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
         
-        Professor professor = professorRepository.findById(courseDTO.getProfessorId())
+        Professor professor = referenceDataCache.findProfessor(courseDTO.getProfessorId())
                 .orElseThrow(() -> new ResourceNotFoundException("Professor not found"));
         
         Course course = new Course();
         course.setTitle(courseDTO.getTitle());
         course.setDescription(courseDTO.getDescription());
-        course.setCategory(category);
-        course.setProfessor(professor);
+        course.setCategory(category.snapshot());
+        course.setProfessor(professor.snapshot());
         course.setYoutubeVideoId(courseDTO.getYoutubeVideoId());
         course.setPrice(courseDTO.getPrice());
+        course.setUpdatedAt(LocalDateTime.now());
         
         Course savedCourse = courseRepository.save(course);
         log.info("Course created successfully with id: {}", savedCourse.getId());
+        eventPublisher.publishEvent(new CourseChangedEvent(savedCourse.getId(), CourseChangedEvent.Type.CREATED));
         
         return courseMapper.toDTO(savedCourse);
     }
 
-    public CourseDTO updateCourse(String id, CourseDTO courseDTO) {
+    /**
+     * @param expectedVersion version the client last read, from If-Match, or
+     *                        {@code null} to update unconditionally
+     */
+    public CourseDTO updateCourse(String id, CourseDTO courseDTO, Long expectedVersion) {
         log.info("Updating course with id: {}", id);
         
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + id));
+        courseReferenceSync.initializeVersion(course);
+        checkVersion(id, course.getVersion(), expectedVersion);
         
         if (courseDTO.getCategoryId() != null) {
-            Category category = categoryRepository.findById(courseDTO.getCategoryId())
+            Category category = referenceDataCache.findCategory(courseDTO.getCategoryId())
                     .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
-            course.setCategory(category);
+            course.setCategory(category.snapshot());
         }
         
         if (courseDTO.getProfessorId() != null) {
-            Professor professor = professorRepository.findById(courseDTO.getProfessorId())
+            Professor professor = referenceDataCache.findProfessor(courseDTO.getProfessorId())
                     .orElseThrow(() -> new ResourceNotFoundException("Professor not found"));
-            course.setProfessor(professor);
+            course.setProfessor(professor.snapshot());
         }
         
         course.setTitle(courseDTO.getTitle());
         course.setDescription(courseDTO.getDescription());
         course.setYoutubeVideoId(courseDTO.getYoutubeVideoId());
         course.setPrice(courseDTO.getPrice());
+        course.setUpdatedAt(LocalDateTime.now());
         
         Course updatedCourse = courseRepository.save(course);
         log.info("Course updated successfully with id: {}", updatedCourse.getId());
+        eventPublisher.publishEvent(new CourseChangedEvent(updatedCourse.getId(), CourseChangedEvent.Type.UPDATED));
         
         return courseMapper.toDTO(updatedCourse);
     }
 
-    public void deleteCourse(String id) {
+    public void deleteCourse(String id, Long expectedVersion) {
         log.info("Deleting course with id: {}", id);
-        if (!courseRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Course not found with id: " + id);
+        CourseVersion current = getCourseVersion(id);
+        checkVersion(id, current.getVersion(), expectedVersion);
+        // Only the version checked above is deleted, so a concurrent update is never lost
+        if (courseRepository.deleteByIdAndVersion(id, current.getVersion()) == 0) {
+            throw new PreconditionFailedException("Course " + id + " changed while it was being deleted");
         }
-        courseRepository.deleteById(id);
         log.info("Course deleted successfully with id: {}", id);
+        eventPublisher.publishEvent(new CourseChangedEvent(id, CourseChangedEvent.Type.DELETED));
+    }
+
+    private static void checkVersion(String id, Long current, Long expected) {
+        if (expected != null && !expected.equals(current)) {
+            throw new PreconditionFailedException("Course " + id + " is at version " + current
+                    + ", not " + expected);
+        }
     }
 
     public Page<CourseDTO> searchCourses(String keyword, Pageable pageable) {
         log.info("Searching courses with keyword: {}", keyword);
-        return courseRepository.searchCourses(keyword, pageable)
-                .map(courseMapper::toDTO);
+        if (!courseSearchIndex.isReady()) {
+            log.warn("Course search index is not ready yet, falling back to a title match");
+            return courseRepository.findByTitleContainingIgnoreCase(keyword, pageable)
+                    .map(courseMapper::toDTO);
+        }
+        SearchResult result = courseSearchIndex.search(keyword, (int) pageable.getOffset(), pageable.getPageSize());
+        Map<String, Course> courses = new HashMap<>();
+        courseRepository.findAllById(result.hits().stream().map(SearchHit::courseId).toList())
+                .forEach(course -> courses.put(course.getId(), course));
+        List<CourseDTO> content = result.hits().stream()
+                .map(hit -> courses.get(hit.courseId()))
+                .filter(Objects::nonNull)
+                .map(courseMapper::toDTO)
+                .toList();
+        return new PageImpl<>(content, pageable, result.total());
+    }
+
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        return courseSuggester.suggest(prefix, limit).stream()
+                .map(suggestion -> new SuggestionDTO(suggestion.text(), suggestion.type(), suggestion.id()))
+                .toList();
+    }
+
+    public FacetedCoursesDTO getFacetedCourses(CourseFilter filter, String priceBucket, Pageable pageable) {
+        if (!courseFacetIndex.isReady()) {
+            throw new ServiceUnavailableException("Course facets are still loading, retry shortly");
+        }
+        FacetResult result = courseFacetIndex.query(filter, priceBucket,
+                (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE), pageable.getPageSize());
+
+        Map<String, Course> courses = new HashMap<>();
+        courseRepository.findAllById(result.courseIds())
+                .forEach(course -> courses.put(course.getId(), course));
+        List<CourseDTO> content = result.courseIds().stream()
+                .map(courses::get)
+                .filter(Objects::nonNull)
+                .map(courseMapper::toDTO)
+                .toList();
+
+        Map<String, Category> categories = referenceDataCache.findCategories(
+                result.counts().get(CourseFacetIndex.CATEGORY).keySet());
+        Map<String, Professor> professors = referenceDataCache.findProfessors(
+                result.counts().get(CourseFacetIndex.PROFESSOR).keySet());
+        Map<String, List<FacetCountDTO>> facets = new LinkedHashMap<>();
+        facets.put(CourseFacetIndex.CATEGORY, facetCounts(result.counts().get(CourseFacetIndex.CATEGORY),
+                id -> categories.containsKey(id) ? categories.get(id).getName() : id));
+        facets.put(CourseFacetIndex.PROFESSOR, facetCounts(result.counts().get(CourseFacetIndex.PROFESSOR),
+                id -> professors.containsKey(id) ? professors.get(id).getFullName() : id));
+        facets.put(CourseFacetIndex.PRICE, facetCounts(result.counts().get(CourseFacetIndex.PRICE),
+                Function.identity()));
+        return new FacetedCoursesDTO(new PageImpl<>(content, pageable, result.total()), facets);
+    }
+
+    private static List<FacetCountDTO> facetCounts(Map<String, Long> counts, Function<String, String> label) {
+        return counts.entrySet().stream()
+                .map(entry -> new FacetCountDTO(entry.getKey(), label.apply(entry.getKey()), entry.getValue()))
+                .sorted(Comparator.comparingLong(FacetCountDTO::getCount).reversed()
+                        .thenComparing(FacetCountDTO::getLabel))
+                .toList();
     }
 }
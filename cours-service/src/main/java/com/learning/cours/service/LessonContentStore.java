@@ -0,0 +1,216 @@
+package com.learning.cours.service;
+
+import com.learning.cours.entity.LessonContent;
+import com.learning.cours.exception.BadRequestException;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed lesson bodies in the {@code lesson_contents} collection, one document
+ * per lesson. Ranges are read with a {@code $slice} projection of the chunks they
+ * cover, a few chunks per round trip, so neither Mongo nor this service holds a
+ * whole body to serve part of it.
+ */
+@Service
+public class LessonContentStore {
+
+    // Chunks fetched per round trip while streaming a range
+    private static final int READ_BATCH = 16;
+
+    private final MongoTemplate mongoTemplate;
+    private final int chunkSize;
+    private final int compressionLevel;
+    private final DataSize maxSize;
+
+    public LessonContentStore(MongoTemplate mongoTemplate,
+                              @Value("${lesson-content.chunk-size:64KB}") DataSize chunkSize,
+                              @Value("${lesson-content.compression-level:6}") int compressionLevel,
+                              @Value("${lesson-content.max-size:8MB}") DataSize maxSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.chunkSize = Math.toIntExact(chunkSize.toBytes());
+        this.compressionLevel = compressionLevel;
+        this.maxSize = maxSize;
+    }
+
+    /** Compresses and stores the content of a lesson, replacing the previous one. */
+    public LessonContent save(String lessonId, String courseId, String content) {
+        return mongoTemplate.save(compress(lessonId, courseId, content));
+    }
+
+    /**
+     * Like {@link #save}, but keeps a content stored at or after {@code readAt}, the
+     * time the given content was read from its inline copy.
+     */
+    public LessonContent saveUnlessNewer(String lessonId, String courseId, String content, LocalDateTime readAt) {
+        Optional<LessonContent> current = findMetadata(lessonId);
+        if (current.isPresent() && !current.get().getUpdatedAt().isBefore(readAt)) {
+            return current.get();
+        }
+        return save(lessonId, courseId, content);
+    }
+
+    /** The stored length of a content, after checking that it can be stored. */
+    public long measure(String content) {
+        return checkSize(content.getBytes(StandardCharsets.UTF_8)).length;
+    }
+
+    private byte[] checkSize(byte[] bytes) {
+        if (bytes.length > maxSize.toBytes()) {
+            throw new BadRequestException("Lesson content is larger than " + maxSize.toBytes() + " bytes");
+        }
+        return bytes;
+    }
+
+    private LessonContent compress(String lessonId, String courseId, String content) {
+        byte[] bytes = checkSize(content.getBytes(StandardCharsets.UTF_8));
+        List<byte[]> chunks = new ArrayList<>();
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+                chunks.add(deflate(deflater, bytes, offset, Math.min(chunkSize, bytes.length - offset)));
+            }
+        } finally {
+            deflater.end();
+        }
+        String etag = "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+        return new LessonContent(lessonId, courseId, bytes.length, chunkSize, etag, chunks, LocalDateTime.now());
+    }
+
+    /**
+     * Points the stored content of a lesson at {@code courseId}, for a lesson written
+     * without content, and returns its length; empty when the lesson has none.
+     */
+    public Optional<Long> attach(String lessonId, String courseId) {
+        Query query = Query.query(Criteria.where("id").is(lessonId));
+        query.fields().exclude("chunks");
+        LessonContent content = mongoTemplate.findAndModify(query, new Update().set("courseId", courseId),
+                FindAndModifyOptions.options().returnNew(true), LessonContent.class);
+        return Optional.ofNullable(content).map(LessonContent::getLength);
+    }
+
+    /** Everything about the content of a lesson but the content itself. */
+    public Optional<LessonContent> findMetadata(String lessonId) {
+        Query query = Query.query(Criteria.where("id").is(lessonId));
+        query.fields().exclude("chunks");
+        return Optional.ofNullable(mongoTemplate.findOne(query, LessonContent.class));
+    }
+
+    /** Whole contents by lesson id; lessons without content are left out. */
+    public Map<String, String> findContents(Collection<String> lessonIds) {
+        Map<String, String> contents = new HashMap<>();
+        Inflater inflater = new Inflater();
+        try {
+            for (LessonContent content : mongoTemplate.find(Query.query(Criteria.where("id").in(lessonIds)),
+                    LessonContent.class)) {
+                byte[] bytes = new byte[Math.toIntExact(content.getLength())];
+                int offset = 0;
+                for (byte[] chunk : content.getChunks()) {
+                    offset += inflate(inflater, chunk, bytes, offset);
+                }
+                contents.put(content.getId(), new String(bytes, 0, offset, StandardCharsets.UTF_8));
+            }
+        } finally {
+            inflater.end();
+        }
+        return contents;
+    }
+
+    /**
+     * Writes bytes {@code start} to {@code end}, both inclusive, of a content whose
+     * metadata was read with {@link #findMetadata}. Fails if the content has been
+     * replaced since, rather than mixing two versions in one response.
+     */
+    public void copyRange(LessonContent content, long start, long end, OutputStream out) throws IOException {
+        if (start > end) {
+            return;
+        }
+        int first = Math.toIntExact(start / content.getChunkSize());
+        int last = Math.toIntExact(end / content.getChunkSize());
+        byte[] buffer = new byte[content.getChunkSize()];
+        Inflater inflater = new Inflater();
+        try {
+            for (int batch = first; batch <= last; batch += READ_BATCH) {
+                List<byte[]> chunks = readChunks(content, batch, Math.min(READ_BATCH, last - batch + 1));
+                for (int i = 0; i < chunks.size(); i++) {
+                    long chunkStart = (long) (batch + i) * content.getChunkSize();
+                    int size = inflate(inflater, chunks.get(i), buffer, 0);
+                    int from = (int) Math.max(0, start - chunkStart);
+                    int to = (int) Math.min(size, end - chunkStart + 1);
+                    out.write(buffer, from, to - from);
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /** @param idFilter the {@code _id} of a lesson, or a filter on it such as an {@code $in} */
+    public void delete(Object idFilter) {
+        mongoTemplate.remove(new BasicQuery(new Document("_id", idFilter)), LessonContent.class);
+    }
+
+    private List<byte[]> readChunks(LessonContent content, int skip, int count) throws IOException {
+        Query query = Query.query(Criteria.where("id").is(content.getId()).and("etag").is(content.getEtag()));
+        query.fields().slice("chunks", skip, count);
+        LessonContent slice = mongoTemplate.findOne(query, LessonContent.class);
+        if (slice == null || slice.getChunks() == null || slice.getChunks().size() != count) {
+            throw new IOException("Content of lesson " + content.getId() + " changed while it was read");
+        }
+        return slice.getChunks();
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] bytes, int offset, int length) {
+        deflater.reset();
+        deflater.setInput(bytes, offset, length);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            compressed.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return compressed.toByteArray();
+    }
+
+    // Inflates one chunk into target at offset and returns its size
+    private static int inflate(Inflater inflater, byte[] chunk, byte[] target, int offset) {
+        inflater.reset();
+        inflater.setInput(chunk);
+        try {
+            int size = 0;
+            while (!inflater.finished() && offset + size < target.length) {
+                int inflated = inflater.inflate(target, offset + size, target.length - offset - size);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("truncated chunk");
+                }
+                size += inflated;
+            }
+            return size;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt lesson content chunk: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.learning.cours.service;
+
+import com.learning.cours.entity.Course;
+import com.learning.cours.entity.Lesson;
+import com.learning.cours.entity.LessonContent;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps lesson content out of lesson and course documents. Content written with a
+ * lesson, standalone or embedded in a course, is left out of the saved document, which
+ * keeps only its length, and written to the {@link LessonContentStore} once the
+ * document is saved, so that a failed save leaves the stored content alone. A deleted
+ * lesson takes its content along. At startup, content still stored inline is moved
+ * once; a lesson read before that reaches it is moved first, by {@link #migrate}.
+ */
+@Component
+@Slf4j
+public class LessonContentSync {
+
+    private static final String LESSONS = "lessons";
+    private static final String COURSES = "courses";
+    private static final int CHUNK_SIZE = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final LessonContentStore lessonContentStore;
+    private final boolean migrateOnStartup;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lesson-content-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LessonContentSync(MongoTemplate mongoTemplate,
+                             LessonContentStore lessonContentStore,
+                             @Value("${lesson-content.migrate-on-startup:true}") boolean migrateOnStartup) {
+        this.mongoTemplate = mongoTemplate;
+        this.lessonContentStore = lessonContentStore;
+        this.migrateOnStartup = migrateOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (migrateOnStartup) {
+            executor.execute(this::migrate);
+        }
+    }
+
+    /**
+     * A lesson written without content keeps the stored one, so that updating its
+     * title or duration does not need the body; an empty string clears it. New content
+     * is only measured here, and lessons that have some are given an id to store it under.
+     */
+    @EventListener
+    public void onBeforeConvert(BeforeConvertEvent<?> event) {
+        if (event.getSource() instanceof Lesson lesson) {
+            if (lesson.getContent() != null) {
+                measure(lesson);
+            } else if (lesson.getId() != null) {
+                lesson.setContentLength(lessonContentStore.findMetadata(lesson.getId())
+                        .map(LessonContent::getLength).orElse(null));
+            }
+        } else if (event.getSource() instanceof Course course && course.getLessons() != null) {
+            for (Lesson lesson : course.getLessons()) {
+                if (lesson.getContent() != null) {
+                    if (course.getId() == null) {
+                        course.setId(new ObjectId().toHexString());
+                    }
+                    measure(lesson);
+                }
+            }
+        }
+    }
+
+    @EventListener
+    public void onBeforeSave(BeforeSaveEvent<?> event) {
+        Document document = event.getDocument();
+        if (document == null) {
+            return;
+        }
+        if (event.getSource() instanceof Lesson) {
+            document.remove("content");
+        } else if (event.getSource() instanceof Course && document.get("lessons") instanceof List<?> lessons) {
+            lessons.forEach(lesson -> {
+                if (lesson instanceof Document embedded) {
+                    embedded.remove("content");
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void onAfterSave(AfterSaveEvent<?> event) {
+        if (event.getSource() instanceof Lesson lesson) {
+            if (lesson.getContent() != null) {
+                store(lesson, lesson.getCourseId());
+            } else {
+                lessonContentStore.attach(lesson.getId(), lesson.getCourseId());
+            }
+        } else if (event.getSource() instanceof Course course && course.getLessons() != null) {
+            for (Lesson lesson : course.getLessons()) {
+                if (lesson.getContent() != null) {
+                    store(lesson, course.getId());
+                }
+            }
+        }
+    }
+
+    // Deletes by id only; lessons deleted by course keep their content
+    @EventListener
+    public void onAfterDelete(AfterDeleteEvent<?> event) {
+        if (Lesson.class.equals(event.getType()) && event.getSource().containsKey("_id")) {
+            try {
+                lessonContentStore.delete(event.getSource().get("_id"));
+            } catch (Exception e) {
+                log.warn("Content of deleted lessons {} not removed: {}", event.getSource().get("_id"), e.getMessage());
+            }
+        }
+    }
+
+    private void measure(Lesson lesson) {
+        if (lesson.getId() == null) {
+            lesson.setId(new ObjectId().toHexString());
+        }
+        lesson.setContentLength(lessonContentStore.measure(lesson.getContent()));
+    }
+
+    private void store(Lesson lesson, String courseId) {
+        lessonContentStore.save(lesson.getId(), courseId, lesson.getContent());
+        lesson.setContent(null);
+    }
+
+    /**
+     * Moves the content these lessons still hold inline, in the lessons collection or,
+     * given its id, embedded in their course, so that it can be served from the store.
+     */
+    public void migrate(String courseId, Collection<String> lessonIds) {
+        LocalDateTime readAt = LocalDateTime.now();
+        Query lessons = Query.query(Criteria.where("_id").in(idForms(lessonIds)).and("content")
+                .type(JsonSchemaObject.Type.stringType()));
+        for (Document lesson : mongoTemplate.find(lessons, Document.class, LESSONS)) {
+            migrateLesson(lesson, readAt);
+        }
+        if (courseId != null) {
+            Query course = Query.query(Criteria.where("_id").in(idForms(List.of(courseId))).and("lessons")
+                    .elemMatch(Criteria.where("_id").in(idForms(lessonIds)).and("content")
+                            .type(JsonSchemaObject.Type.stringType())));
+            course.fields().include("lessons");
+            for (Document found : mongoTemplate.find(course, Document.class, COURSES)) {
+                migrateCourse(found, readAt);
+            }
+        }
+    }
+
+    // Ids are stored as ObjectIds when they are valid ones, as Spring Data writes them
+    private static List<Object> idForms(Collection<String> ids) {
+        List<Object> forms = new ArrayList<>(ids.size() * 2);
+        for (String id : ids) {
+            forms.add(id);
+            if (ObjectId.isValid(id)) {
+                forms.add(new ObjectId(id));
+            }
+        }
+        return forms;
+    }
+
+    private void migrate() {
+        try {
+            long lessons = migrateLessons();
+            long embedded = migrateEmbeddedLessons();
+            if (lessons + embedded > 0) {
+                log.info("Moved the content of {} lessons and {} embedded lessons to the content store",
+                        lessons, embedded);
+            }
+        } catch (Exception e) {
+            log.warn("Lesson content migration did not complete, it resumes on the next start: {}", e.getMessage());
+        }
+    }
+
+    // Migrated lessons stop matching, so each chunk is the next one without a sort. Inline
+    // content is newer than a stored one unless that was written after it was read: only
+    // instances that predate the store still write it inline.
+    private long migrateLessons() {
+        long migrated = 0;
+        while (true) {
+            LocalDateTime readAt = LocalDateTime.now();
+            List<Document> lessons = mongoTemplate.find(Query.query(inlineContent("content")).limit(CHUNK_SIZE),
+                    Document.class, LESSONS);
+            if (lessons.isEmpty()) {
+                return migrated;
+            }
+            for (Document lesson : lessons) {
+                migrateLesson(lesson, readAt);
+                migrated++;
+            }
+        }
+    }
+
+    private void migrateLesson(Document lesson, LocalDateTime readAt) {
+        String content = lesson.getString("content");
+        LessonContent stored = lessonContentStore.saveUnlessNewer(lesson.get("_id").toString(),
+                lesson.getString("courseId"), content, readAt);
+        // A lesson rewritten meanwhile has had its content moved by onAfterSave
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(lesson.get("_id")).and("content").is(content)),
+                new Update().unset("content").set("contentLength", stored.getLength()), LESSONS);
+    }
+
+    private long migrateEmbeddedLessons() {
+        long migrated = 0;
+        while (true) {
+            Query query = Query.query(inlineContent("lessons.content")).limit(CHUNK_SIZE);
+            query.fields().include("lessons");
+            LocalDateTime readAt = LocalDateTime.now();
+            List<Document> courses = mongoTemplate.find(query, Document.class, COURSES);
+            if (courses.isEmpty()) {
+                return migrated;
+            }
+            for (Document course : courses) {
+                migrated += migrateCourse(course, readAt);
+            }
+        }
+    }
+
+    private long migrateCourse(Document course, LocalDateTime readAt) {
+        List<Document> lessons = course.getList("lessons", Document.class);
+        List<Document> moved = new ArrayList<>(lessons.size());
+        List<Object> assigned = new ArrayList<>();
+        long migrated = 0;
+        for (Document lesson : lessons) {
+            Document copy = new Document(lesson);
+            if (lesson.get("content") instanceof String content) {
+                // Embedded lessons may predate ids; the content is addressed by one
+                if (!copy.containsKey("_id")) {
+                    ObjectId id = new ObjectId();
+                    copy.put("_id", id);
+                    assigned.add(id.toHexString());
+                }
+                LessonContent stored = lessonContentStore.saveUnlessNewer(copy.get("_id").toString(),
+                        course.get("_id").toString(), content, readAt);
+                copy.remove("content");
+                copy.put("contentLength", stored.getLength());
+                migrated++;
+            }
+            moved.add(copy);
+        }
+        // Left for the next chunk if the course was written meanwhile, without the content
+        // stored under ids that were never written
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(course.get("_id")).and("lessons").is(lessons)),
+                new Update().set("lessons", moved), COURSES);
+        if (result.getMatchedCount() == 0) {
+            if (!assigned.isEmpty()) {
+                lessonContentStore.delete(new Document("$in", assigned));
+            }
+            return 0;
+        }
+        return migrated;
+    }
+
+    private static Criteria inlineContent(String field) {
+        return Criteria.where(field).type(JsonSchemaObject.Type.stringType());
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,157 @@
+package com.learning.cours.service;
+
+import com.learning.cours.dto.CourseFilter;
+import com.learning.cours.entity.Course;
+import com.learning.cours.exception.ServiceUnavailableException;
+import com.learning.cours.repository.FirestoreCourseRepository;
+import com.learning.cours.repository.ReactiveCourseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+/**
+ * Non-blocking counterpart of {@link CourseReadPath} for the reactive read mode,
+ * with the same source order and the same latency timers. Reads are never hedged:
+ * a slow source costs no thread here, only latency.
+ */
+@Component
+@ConditionalOnProperty(name = "course-read.reactive.enabled", havingValue = "true")
+@Slf4j
+public class ReactiveCourseReadPath {
+
+    private final Map<CourseReadPath.Source, BiFunction<String, Set<String>, Mono<Course>>> readers =
+            new EnumMap<>(CourseReadPath.Source.class);
+    private final Map<CourseReadPath.Source, BiFunction<Collection<String>, Set<String>, Flux<Course>>> batchReaders =
+            new EnumMap<>(CourseReadPath.Source.class);
+    private final Map<CourseReadPath.Source, Timer> latencies = new EnumMap<>(CourseReadPath.Source.class);
+    private final Map<CourseReadPath.Source, Timer> batchLatencies = new EnumMap<>(CourseReadPath.Source.class);
+    private final List<CourseReadPath.Source> order;
+    private final FirestoreCourseRepository firestoreCourseRepository;
+    private final ReactiveCourseRepository reactiveCourseRepository;
+    private final MeterRegistry meterRegistry;
+
+    public ReactiveCourseReadPath(ReactiveCourseRepository reactiveCourseRepository,
+                                  FirestoreCourseRepository firestoreCourseRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${course-read.sources:firestore,mongo}") List<String> sources) {
+        readers.put(CourseReadPath.Source.FIRESTORE, firestoreCourseRepository::findByIdAsync);
+        readers.put(CourseReadPath.Source.MONGO, reactiveCourseRepository::findById);
+        batchReaders.put(CourseReadPath.Source.FIRESTORE, firestoreCourseRepository::findAllByIdAsync);
+        batchReaders.put(CourseReadPath.Source.MONGO, reactiveCourseRepository::findAllById);
+        this.order = sources.stream()
+                .map(source -> CourseReadPath.Source.valueOf(source.trim().toUpperCase(Locale.ROOT)))
+                .distinct()
+                .toList();
+        if (order.isEmpty()) {
+            throw new IllegalArgumentException("course-read.sources must list at least one source");
+        }
+        this.firestoreCourseRepository = firestoreCourseRepository;
+        this.reactiveCourseRepository = reactiveCourseRepository;
+        this.meterRegistry = meterRegistry;
+        for (CourseReadPath.Source source : CourseReadPath.Source.values()) {
+            latencies.put(source, Timer.builder("course.read.latency")
+                    .description("Latency of single-course reads per source")
+                    .tag("source", name(source))
+                    .register(meterRegistry));
+            batchLatencies.put(source, Timer.builder("course.read.batch.latency")
+                    .description("Latency of multi-course reads per source")
+                    .tag("source", name(source))
+                    .register(meterRegistry));
+        }
+        log.info("Reactive course reads use sources {}", order);
+    }
+
+    public Mono<Course> findById(String id, Set<String> fields) {
+        return Flux.fromIterable(order)
+                .concatMap(source -> timed(source, latencies, readers.get(source).apply(id, fields))
+                        .onErrorResume(e -> {
+                            log.warn("Course read from {} failed for id {}: {}", source, id, e.getMessage());
+                            return Mono.empty();
+                        }))
+                .next();
+    }
+
+    /**
+     * Multi-get with the semantics of {@link CourseReadPath#findAllById}: each source
+     * is asked once for the ids still missing, and the read fails when a source failed
+     * and ids are still missing.
+     */
+    public Mono<Map<String, Course>> findAllById(Collection<String> ids, Set<String> fields) {
+        Map<String, Course> found = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>(ids);
+        AtomicBoolean failed = new AtomicBoolean();
+        return Flux.fromIterable(order)
+                .concatMap(source -> Mono.defer(() -> {
+                    if (missing.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    List<String> requested = List.copyOf(missing);
+                    return timed(source, batchLatencies, batchReaders.get(source).apply(requested, fields).collectList())
+                            .doOnNext(courses -> {
+                                courses.forEach(course -> found.put(course.getId(), course));
+                                missing.removeAll(found.keySet());
+                            })
+                            .onErrorResume(e -> {
+                                failed.set(true);
+                                log.warn("Course batch read from {} failed for {} ids: {}", source, requested.size(),
+                                        e.getMessage());
+                                return Mono.empty();
+                            });
+                }))
+                .then(Mono.fromCallable(() -> {
+                    if (failed.get() && !missing.isEmpty()) {
+                        throw new ServiceUnavailableException("A course source is unavailable; " + missing.size()
+                                + " courses could not be looked up");
+                    }
+                    return found;
+                }));
+    }
+
+    // Same order as the blocking courses resolver: a first page from Firestore, then Mongo when
+    // Firestore is empty or fails; later pages from the source that issued their cursor
+    public Mono<Window<Course>> findPage(CourseFilter filter, KeysetScrollPosition after, int limit,
+                                         Set<String> fields) {
+        if (FirestoreCourseRepository.issued(after)) {
+            return firestoreCourseRepository.findPageAsync(filter, after, limit, fields);
+        }
+        if (after != null) {
+            return reactiveCourseRepository.findPage(filter, after, limit, fields);
+        }
+        return firestoreCourseRepository.findPageAsync(filter, null, limit, fields)
+                .filter(window -> !window.isEmpty())
+                .onErrorResume(e -> {
+                    log.warn("Firestore course page failed: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.defer(() -> reactiveCourseRepository.findPage(filter, after, limit, fields)));
+    }
+
+    private <T> Mono<T> timed(CourseReadPath.Source source, Map<CourseReadPath.Source, Timer> timers, Mono<T> read) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return read.doFinally(signal -> sample.stop(timers.get(source)));
+        });
+    }
+
+    private static String name(CourseReadPath.Source source) {
+        return source.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,83 @@
+package com.learning.cours.service;
+
+import com.learning.cours.dto.CourseDTO;
+import com.learning.cours.entity.Course;
+import com.learning.cours.exception.ResourceNotFoundException;
+import com.learning.cours.mapper.CourseMapper;
+import com.learning.cours.repository.CourseVersion;
+import com.learning.cours.repository.ReactiveCourseRepository;
+import com.learning.cours.search.CourseSearchIndex;
+import com.learning.cours.search.SearchHit;
+import com.learning.cours.search.SearchResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Reactive versions of the {@link CourseService} reads behind the list, detail and
+ * search endpoints. Page contents and totals are queried concurrently.
+ */
+@Service
+@ConditionalOnProperty(name = "course-read.reactive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveCourseService {
+
+    private final ReactiveCourseRepository reactiveCourseRepository;
+    private final CourseMapper courseMapper;
+    private final CourseSearchIndex courseSearchIndex;
+
+    public Mono<Page<CourseDTO>> getAllCourses(Pageable pageable) {
+        log.info("Fetching all courses with pagination: {}", pageable);
+        return Mono.zip(reactiveCourseRepository.findAll(pageable).map(courseMapper::toDTO).collectList(),
+                        reactiveCourseRepository.count())
+                .map(page -> new PageImpl<>(page.getT1(), pageable, page.getT2()));
+    }
+
+    public Mono<CourseVersion> getCourseVersion(String id) {
+        return reactiveCourseRepository.findVersionById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Course not found with id: " + id)));
+    }
+
+    public Mono<CourseDTO> getCourseById(String id) {
+        log.info("Fetching course with id: {}", id);
+        return reactiveCourseRepository.findById(id, null)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Course not found with id: " + id)))
+                .map(courseMapper::toDTO);
+    }
+
+    public Mono<Page<CourseDTO>> searchCourses(String keyword, Pageable pageable) {
+        log.info("Searching courses with keyword: {}", keyword);
+        if (!courseSearchIndex.isReady()) {
+            log.warn("Course search index is not ready yet, falling back to a title match");
+            return Mono.zip(reactiveCourseRepository.findByTitleContainingIgnoreCase(keyword, pageable)
+                                    .map(courseMapper::toDTO)
+                                    .collectList(),
+                            reactiveCourseRepository.countByTitleContainingIgnoreCase(keyword))
+                    .map(page -> new PageImpl<>(page.getT1(), pageable, page.getT2()));
+        }
+        SearchResult result = courseSearchIndex.search(keyword, (int) pageable.getOffset(), pageable.getPageSize());
+        List<String> ids = result.hits().stream().map(SearchHit::courseId).toList();
+        return reactiveCourseRepository.findAllById(ids, null)
+                .collectMap(Course::getId, Function.identity())
+                .map(courses -> new PageImpl<>(inHitOrder(result, courses), pageable, result.total()));
+    }
+
+    private List<CourseDTO> inHitOrder(SearchResult result, Map<String, Course> courses) {
+        return result.hits().stream()
+                .map(hit -> courses.get(hit.courseId()))
+                .filter(Objects::nonNull)
+                .map(courseMapper::toDTO)
+                .toList();
+    }
+}
@@ -0,0 +1,142 @@
+package com.learning.cours.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.learning.cours.entity.Category;
+import com.learning.cours.entity.Professor;
+import com.learning.cours.repository.CategoryRepository;
+import com.learning.cours.repository.ProfessorRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Size-bounded near cache of Category and Professor documents. Every course that
+ * references the same id shares one instance. Bulk lookups load all misses with a
+ * single findAllById. Entries are dropped when this instance saves or deletes those
+ * documents, and expire after {@code reference-cache.ttl} so that writes made by
+ * other instances show up too.
+ */
+@Component
+@Slf4j
+public class ReferenceDataCache {
+
+    private final CategoryRepository categoryRepository;
+    private final ProfessorRepository professorRepository;
+    private final Cache<String, Category> categories;
+    private final Cache<String, Professor> professors;
+    // Bumped before every invalidation, so that a bulk load racing one does not keep its result
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ReferenceDataCache(CategoryRepository categoryRepository,
+                              ProfessorRepository professorRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${reference-cache.max-size:10000}") long maxSize,
+                              @Value("${reference-cache.ttl:5m}") Duration ttl) {
+        this.categoryRepository = categoryRepository;
+        this.professorRepository = professorRepository;
+        this.categories = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+        this.professors = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, categories, "categories");
+        CaffeineCacheMetrics.monitor(meterRegistry, professors, "professors");
+    }
+
+    public Optional<Category> findCategory(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(categories.get(id, key -> categoryRepository.findById(key).orElse(null)));
+    }
+
+    public Optional<Professor> findProfessor(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(professors.get(id, key -> professorRepository.findById(key).orElse(null)));
+    }
+
+    public Map<String, Category> findCategories(Collection<String> ids) {
+        return findAll(categories, ids, missing -> byId(categoryRepository.findAllById(missing), Category::getId));
+    }
+
+    public Map<String, Professor> findProfessors(Collection<String> ids) {
+        return findAll(professors, ids, missing -> byId(professorRepository.findAllById(missing), Professor::getId));
+    }
+
+    @EventListener
+    public void onSave(AfterSaveEvent<?> event) {
+        if (event.getSource() instanceof Category category) {
+            invalidations.incrementAndGet();
+            categories.invalidate(category.getId());
+        } else if (event.getSource() instanceof Professor professor) {
+            invalidations.incrementAndGet();
+            professors.invalidate(professor.getId());
+        }
+    }
+
+    @EventListener
+    public void onDelete(AfterDeleteEvent<?> event) {
+        Cache<String, ?> cache;
+        if (Category.class.equals(event.getType())) {
+            cache = categories;
+        } else if (Professor.class.equals(event.getType())) {
+            cache = professors;
+        } else {
+            return;
+        }
+        invalidations.incrementAndGet();
+        Object id = event.getSource().get("_id");
+        if (id != null) {
+            cache.invalidate(id.toString());
+        } else {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Loads the misses outside the cache and, unlike Cache.getAll, drops them again when
+     * an invalidation ran meanwhile, since the load may have read the document before
+     * the write that invalidated it.
+     */
+    private <T> Map<String, T> findAll(Cache<String, T> cache, Collection<String> ids,
+                                       Function<List<String>, Map<String, T>> loader) {
+        // Caffeine rejects null keys
+        Set<String> keys = ids.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<String, T> found = new HashMap<>(cache.getAllPresent(keys));
+        List<String> missing = keys.stream().filter(key -> !found.containsKey(key)).toList();
+        if (missing.isEmpty()) {
+            return found;
+        }
+        long seen = invalidations.get();
+        Map<String, T> loaded = loader.apply(missing);
+        cache.putAll(loaded);
+        if (invalidations.get() != seen) {
+            cache.invalidateAll(loaded.keySet());
+        }
+        found.putAll(loaded);
+        return found;
+    }
+
+    private static <T> Map<String, T> byId(Iterable<T> entities, Function<T, String> id) {
+        return StreamSupport.stream(entities.spliterator(), false)
+                .collect(Collectors.toMap(id, Function.identity()));
+    }
+}
@@ -0,0 +1,67 @@
+package com.learning.cours.controller;
+
+import com.learning.cours.entity.Course;
+import com.learning.cours.service.CourseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.rest.webmvc.PersistentEntityResourceAssembler;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Keyset page sizes are clamped to 1..MAX_PAGE_SIZE, so that an empty or negative
+ * size neither fails nor reads the whole collection.
+ */
+class CourseDataRestControllerTest {
+
+    private final CourseService courseService = mock(CourseService.class);
+    private final CourseDataRestController controller = new CourseDataRestController(courseService);
+
+    @BeforeEach
+    void bindRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/data/courses/search/keyset");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void unbindRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, 1", "-5, 1", "100, 100", "101, 100"})
+    void clampsTheSize(int size, int limit) {
+        when(courseService.scrollCourses(isNull(), anyInt(), any()))
+                .thenReturn(Window.from(List.of(course()), ScrollPosition::offset, true));
+
+        var response = controller.keyset(null, size, "DESC", mock(PersistentEntityResourceAssembler.class));
+
+        assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
+        verify(courseService).scrollCourses(isNull(), eq(limit), eq(Sort.Direction.DESC));
+    }
+
+    private static Course course() {
+        Course course = new Course();
+        course.setId("course-1");
+        course.setCreatedAt(LocalDateTime.now());
+        return course;
+    }
+}
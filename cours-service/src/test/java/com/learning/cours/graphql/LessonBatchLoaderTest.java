@@ -0,0 +1,134 @@
+package com.learning.cours.graphql;
+
+import com.learning.cours.entity.Course;
+import com.learning.cours.entity.Lesson;
+import com.learning.cours.repository.CourseRepository;
+import com.learning.cours.repository.FirestoreCourseRepository;
+import com.learning.cours.repository.LessonRepository;
+import com.learning.cours.search.RelatedCourseIndex;
+import com.learning.cours.service.CourseReadPath;
+import com.learning.cours.service.CourseService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.GraphQlTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.graphql.test.tester.GraphQlTester;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lessons of every course in a response are read with one repository call, however
+ * many courses the response holds.
+ */
+@GraphQlTest(CourseGraphQLController.class)
+@Import({LessonBatchLoader.class, AsyncFieldResolver.class})
+class LessonBatchLoaderTest {
+
+    private static final int COURSES = 40;
+
+    @Autowired
+    private GraphQlTester graphQlTester;
+
+    @MockBean
+    private LessonRepository lessonRepository;
+
+    @MockBean
+    private FirestoreCourseRepository firestoreCourseRepository;
+
+    @MockBean
+    private CourseRepository courseRepository;
+
+    @MockBean
+    private CourseReadPath courseReadPath;
+
+    @MockBean
+    private CourseService courseService;
+
+    @MockBean
+    private RelatedCourseIndex relatedCourseIndex;
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Test
+    void loadsTheLessonsOfAPageWithOneQuery() {
+        List<Course> courses = courses(COURSES);
+        when(firestoreCourseRepository.findPage(isNull(), isNull(), anyInt(), any()))
+                .thenReturn(Window.from(courses, ScrollPosition::offset));
+        when(lessonRepository.findByCourseIdIn(anyCollection()))
+                .thenAnswer(invocation -> lessons(invocation.getArgument(0)));
+
+        List<String> lessonCourses = graphQlTester.document("""
+                        { courses(first: 40) { edges { node { id lessons { id title } } } } }
+                        """)
+                .execute()
+                .path("courses.edges[*].node.lessons[*].id")
+                .entityList(String.class)
+                .get();
+
+        assertThat(lessonCourses).hasSize(COURSES * 2);
+        verify(lessonRepository, times(1)).findByCourseIdIn(argThat(ids -> ids.size() == COURSES));
+    }
+
+    @Test
+    void looksUpARepeatedCourseOnce() {
+        Map<String, Course> found = new LinkedHashMap<>();
+        courses(3).forEach(course -> found.put(course.getId(), course));
+        when(courseReadPath.findAllById(anyCollection(), any())).thenReturn(found);
+        when(lessonRepository.findByCourseIdIn(anyCollection()))
+                .thenAnswer(invocation -> lessons(invocation.getArgument(0)));
+
+        graphQlTester.document("""
+                        { coursesByIds(ids: ["course-0", "course-1", "course-0", "course-2", "course-1"]) { lessons { id } } }
+                        """)
+                .execute()
+                .path("coursesByIds[*].lessons[*].id")
+                .entityList(String.class)
+                .hasSize(10);
+
+        verify(lessonRepository, times(1)).findByCourseIdIn(argThat(ids -> ids.size() == 3));
+    }
+
+    private static List<Course> courses(int count) {
+        return IntStream.range(0, count).mapToObj(index -> {
+            Course course = new Course();
+            course.setId("course-" + index);
+            course.setTitle("Course " + index);
+            return course;
+        }).toList();
+    }
+
+    // Two lessons per course
+    private static List<Lesson> lessons(Collection<String> courseIds) {
+        return courseIds.stream()
+                .flatMap(courseId -> IntStream.range(0, 2)
+                        .mapToObj(index -> new Lesson(courseId + "-lesson-" + index, "Lesson " + index, null, null, null, courseId)))
+                .toList();
+    }
+}
@@ -0,0 +1,84 @@
+package com.learning.cours.graphql;
+
+import com.learning.cours.repository.CourseRepository;
+import com.learning.cours.repository.FirestoreCourseRepository;
+import com.learning.cours.search.RelatedCourseIndex;
+import com.learning.cours.service.CourseReadPath;
+import com.learning.cours.service.CourseService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.GraphQlTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.graphql.test.tester.GraphQlTester;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Operations over the cost budget are rejected before any data fetcher runs, however
+ * far their nested lists multiply.
+ */
+@GraphQlTest(CourseGraphQLController.class)
+@Import({QueryCostInstrumentation.class, AsyncFieldResolver.class})
+class QueryCostInstrumentationTest {
+
+    @Autowired
+    private GraphQlTester graphQlTester;
+
+    @MockBean
+    private FirestoreCourseRepository firestoreCourseRepository;
+
+    @MockBean
+    private CourseRepository courseRepository;
+
+    @MockBean
+    private CourseReadPath courseReadPath;
+
+    @MockBean
+    private CourseService courseService;
+
+    @MockBean
+    private RelatedCourseIndex relatedCourseIndex;
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    // Priced at 3114 while the cost was an int that wrapped around
+    @Test
+    void rejectsNestedListsWhoseCostOverflowsAnInt() {
+        graphQlTester.document("""
+                        { courses(first: 100) { edges { node {
+                            related(limit: 57) { related(limit: 81) { related(limit: 91) { related(limit: 100) { id } } } }
+                        } } } }
+                        """)
+                .execute()
+                .errors()
+                .satisfy(errors -> assertThat(errors)
+                        .anySatisfy(error -> assertThat(error.getMessage()).contains("exceeds the maximum allowed cost")));
+
+        verifyNoInteractions(firestoreCourseRepository, courseRepository);
+    }
+
+    // Priced as a single course while the ids were not counted
+    @Test
+    void pricesCoursesByIdsByTheNumberOfIds() {
+        String ids = "\"id\", ".repeat(500);
+        graphQlTester.document("{ coursesByIds(ids: [" + ids + "]) { lessons { id title } } }")
+                .execute()
+                .errors()
+                .satisfy(errors -> assertThat(errors)
+                        .anySatisfy(error -> assertThat(error.getMessage()).contains("exceeds the maximum allowed cost")));
+
+        verifyNoInteractions(courseReadPath);
+    }
+}
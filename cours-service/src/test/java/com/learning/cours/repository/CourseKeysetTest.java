@@ -0,0 +1,31 @@
+package com.learning.cours.repository;
+
+import com.learning.cours.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Cursor keys come from clients, so keys that do not parse are rejected as bad
+ * requests rather than failing as internal errors.
+ */
+class CourseKeysetTest {
+
+    @Test
+    void rejectsAPriceThatDoesNotParse() {
+        KeysetScrollPosition position = ScrollPosition.forward(Map.of("price", "cheap", "id", "course-1"));
+
+        assertThatThrownBy(() -> CourseKeyset.price(position)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void rejectsACreationDateThatDoesNotParse() {
+        KeysetScrollPosition position = ScrollPosition.forward(Map.of("createdAt", "yesterday", "id", "course-1"));
+
+        assertThatThrownBy(() -> CourseKeyset.createdAt(position)).isInstanceOf(BadRequestException.class);
+    }
+}
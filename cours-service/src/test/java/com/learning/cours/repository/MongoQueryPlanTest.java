@@ -0,0 +1,246 @@
+package com.learning.cours.repository;
+
+import com.learning.cours.dto.CourseFilter;
+import com.learning.cours.entity.Category;
+import com.learning.cours.entity.Course;
+import com.learning.cours.entity.CoursePopularity;
+import com.learning.cours.entity.Lesson;
+import com.learning.cours.entity.Professor;
+import com.learning.cours.search.CoursePopularityIndex;
+import com.learning.cours.search.CoursePopularityIndex.RankedPage;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the repository queries the service and Data REST send against the indexes of
+ * {@link MongoIndexCatalog}, with the profiler on, and fails on a plan that scans a
+ * collection, sorts in memory, or examines half of a collection or index to answer.
+ */
+@DataMongoTest
+@Import(MongoIndexCatalog.class)
+@Testcontainers(disabledWithoutDocker = true)
+class MongoQueryPlanTest {
+
+    private static final int COURSES = 2000;
+    private static final int CATEGORIES = 200;
+    private static final int PROFESSORS = 200;
+    private static final int PAGE = 10;
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoIndexCatalog mongoIndexCatalog;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProfessorRepository professorRepository;
+
+    private List<Category> categories;
+    private List<Professor> professors;
+    private List<Course> courses;
+
+    @BeforeEach
+    void seed() {
+        mongoIndexCatalog.run(null);
+        categories = mongoTemplate.findAll(Category.class);
+        professors = mongoTemplate.findAll(Professor.class);
+        courses = mongoTemplate.findAll(Course.class);
+        if (!courses.isEmpty()) {
+            return;
+        }
+        categories = new ArrayList<>(mongoTemplate.insert(IntStream.range(0, CATEGORIES)
+                .mapToObj(index -> new Category(null, "Category subject" + index, null))
+                .toList(), Category.class));
+        professors = new ArrayList<>(mongoTemplate.insert(IntStream.range(0, PROFESSORS)
+                .mapToObj(index -> new Professor(null, "Professor surname" + index,
+                        "professor" + index + "@example.com", null, null))
+                .toList(), Professor.class));
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        courses = new ArrayList<>(mongoTemplate.insert(IntStream.range(0, COURSES).mapToObj(index -> {
+            Course course = new Course();
+            course.setTitle("Course " + index + " topic" + index % 100);
+            course.setCategory(categories.get(index % CATEGORIES).snapshot());
+            course.setProfessor(professors.get(index * 7 % PROFESSORS).snapshot());
+            course.setPrice(new BigDecimal(index % 1000 + ".50"));
+            course.setCreatedAt(start.plusMinutes(index));
+            course.setVersion(0L);
+            return course;
+        }).toList(), Course.class));
+        mongoTemplate.insert(courses.stream()
+                .map(course -> new Lesson(null, "Lesson", null, 100L, 10, course.getId()))
+                .toList(), Lesson.class);
+        mongoTemplate.insert(IntStream.range(0, COURSES)
+                .mapToObj(index -> new CoursePopularity(courses.get(index).getId(), index % 50 * 1.5, 0L, Instant.now()))
+                .toList(), CoursePopularity.class);
+    }
+
+    @Test
+    void searchesUseTextIndexes() {
+        assertIndexed(() -> courseRepository.searchByTitle("topic7", PageRequest.of(0, PAGE)));
+        assertIndexed(() -> categoryRepository.searchByName("subject7"));
+        assertIndexed(() -> professorRepository.searchByFullName("surname7"));
+        assertIndexed(() -> professorRepository.findByEmail("professor7@example.com"));
+    }
+
+    @Test
+    void dataRestFindersUseIndexes() {
+        String categoryId = categories.get(3).getId();
+        String professorId = professors.get(3).getId();
+        Sort recent = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+        assertIndexed(() -> courseRepository.findByCategoryId(categoryId, PageRequest.of(0, PAGE)));
+        assertIndexed(() -> courseRepository.findByCategoryId(categoryId, PageRequest.of(0, PAGE, recent)));
+        assertIndexed(() -> courseRepository.findByProfessorId(professorId, PageRequest.of(0, PAGE)));
+        assertIndexed(() -> courseRepository.findByProfessorId(professorId, PageRequest.of(0, PAGE, recent)));
+        assertIndexed(() -> courseRepository.findAllBy(PageRequest.of(0, PAGE)));
+        assertIndexed(() -> courseRepository.findAllBy(PageRequest.of(2, PAGE, recent)));
+        assertIndexed(() -> courseRepository.findAll(PageRequest.of(3, PAGE, recent)));
+        assertIndexed(() -> courseRepository.findAll(PageRequest.of(0, PAGE, Sort.by("price", "id"))));
+        assertIndexed(() -> courseRepository.findAll(PageRequest.of(0, PAGE, Sort.by("title", "id"))));
+    }
+
+    @Test
+    void keysetPagesUseIndexes() {
+        String categoryId = categories.get(3).getId();
+        String professorId = professors.get(3).getId();
+        BigDecimal one = BigDecimal.ONE;
+        BigDecimal ten = BigDecimal.TEN;
+        for (CourseFilter filter : List.of(new CourseFilter(),
+                new CourseFilter(categoryId, null, null, null),
+                new CourseFilter(null, professorId, null, null),
+                new CourseFilter(null, null, one, ten),
+                new CourseFilter(categoryId, null, one, ten),
+                new CourseFilter(null, professorId, one, ten))) {
+            Window<Course> first = courseRepository.findPage(filter, null, PAGE, null);
+            assertIndexed(() -> courseRepository.findPage(filter, null, PAGE, null));
+            if (!first.isEmpty()) {
+                KeysetScrollPosition after = (KeysetScrollPosition) first.positionAt(first.size() - 1);
+                assertIndexed(() -> courseRepository.findPage(filter, after, PAGE, Set.of("title", "price")));
+            }
+        }
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            Window<Course> first = courseRepository.findRecent(null, PAGE, direction);
+            KeysetScrollPosition after = (KeysetScrollPosition) first.positionAt(first.size() - 1);
+            assertIndexed(() -> courseRepository.findRecent(null, PAGE, direction));
+            assertIndexed(() -> courseRepository.findRecent(after, PAGE, direction));
+        }
+    }
+
+    @Test
+    void lookupsUseIndexes() {
+        String courseId = courses.get(5).getId();
+        List<String> courseIds = courses.subList(100, 150).stream().map(Course::getId).toList();
+        assertIndexed(() -> courseRepository.findById(courseId));
+        assertIndexed(() -> courseRepository.findById(courseId, Set.of("title")));
+        assertIndexed(() -> courseRepository.findVersionById(courseId));
+        assertIndexed(() -> courseRepository.findAllById(courseIds, null));
+        assertIndexed(() -> courseRepository.estimatedCount());
+        assertIndexed(() -> lessonRepository.findByCourseId(courseId));
+        assertIndexed(() -> lessonRepository.findByCourseIdIn(courseIds));
+    }
+
+    @Test
+    void popularityPagesUseIndexes() {
+        CoursePopularityIndex popularity = new CoursePopularityIndex(mongoTemplate, new SimpleMeterRegistry(), false,
+                Instant.EPOCH, Duration.ofDays(14), 1.0, 0.5, Duration.ofSeconds(10), Duration.ofMinutes(1));
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            RankedPage first = popularity.page(null, PAGE, direction);
+            assertIndexed(() -> popularity.page(null, PAGE, direction));
+            assertIndexed(() -> popularity.page(first.courses().get(PAGE - 1), PAGE, direction));
+            assertIndexed(() -> popularity.page(3L * PAGE, PAGE, direction));
+        }
+    }
+
+    private void assertIndexed(Runnable query) {
+        MongoDatabase db = mongoTemplate.getDb();
+        db.runCommand(new Document("profile", 0));
+        db.getCollection("system.profile").drop();
+        db.runCommand(new Document("profile", 2));
+        try {
+            query.run();
+        } finally {
+            db.runCommand(new Document("profile", 0));
+        }
+        Map<String, Long> sizes = Map.of(
+                "courses", (long) COURSES,
+                "lessons", (long) COURSES,
+                "course_popularity", (long) COURSES,
+                "categories", (long) CATEGORIES,
+                "professors", (long) PROFESSORS);
+        List<Document> operations = db.getCollection("system.profile")
+                .find(Filters.in("ns", sizes.keySet().stream().map(name -> db.getName() + "." + name).toList()))
+                .into(new ArrayList<>());
+        assertThat(operations).as("profiled operations").isNotEmpty();
+        for (Document operation : operations) {
+            String collection = operation.getString("ns").substring(db.getName().length() + 1);
+            String plan = operation.getString("planSummary");
+            String description = collection + " " + operation.get("command") + " planned as " + plan;
+            Document command = operation.get("command", Document.class);
+            // A limited scan without a filter only reads the page it returns
+            if (!unfiltered(command)) {
+                assertThat(plan).as(description).doesNotContain("COLLSCAN");
+            }
+            assertThat(operation.getBoolean("hasSortStage", false)).as(description + " sorts in memory").isFalse();
+            // The exact total of a whole collection counts every document
+            if (!(command.containsKey("aggregate") && unfiltered(command))) {
+                assertThat(examined(operation)).as(description + " examines").isLessThan(sizes.get(collection) / 2);
+            }
+        }
+    }
+
+    private static boolean unfiltered(Document command) {
+        Object filter = command.containsKey("find") ? command.get("filter") : command.get("query");
+        if (command.containsKey("aggregate")) {
+            filter = command.getList("pipeline", Document.class).get(0).get("$match");
+        }
+        return filter == null || (filter instanceof Document document && document.isEmpty());
+    }
+
+    private static long examined(Document operation) {
+        return Math.max(number(operation, "keysExamined"), number(operation, "docsExamined"));
+    }
+
+    private static long number(Document operation, String key) {
+        return operation.get(key) instanceof Number number ? number.longValue() : 0;
+    }
+}
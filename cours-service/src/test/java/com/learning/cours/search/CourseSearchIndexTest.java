@@ -0,0 +1,67 @@
+package com.learning.cours.search;
+
+import com.learning.cours.entity.Course;
+import com.learning.cours.event.CourseChangedEvent;
+import com.learning.cours.repository.CourseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A flush that fails part way leaves the index as it was, so that the retry still
+ * deletes the previous version of every course it reindexes.
+ */
+class CourseSearchIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private final CourseRepository courseRepository = mock(CourseRepository.class);
+
+    @Test
+    void retriesAFailedSegmentWriteWithoutLeavingStaleHits() throws Exception {
+        when(courseRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(course("java", 1))));
+        CourseSearchIndex index = new CourseSearchIndex(courseRepository, new SimpleMeterRegistry(), true,
+                directory.toString(), Duration.ofSeconds(1), 8);
+        index.refresh();
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.search("java", 0, 10).total()).isEqualTo(1);
+
+        // The next segment cannot be written while a non-empty directory holds its name
+        Path blocker = Files.createDirectories(directory.resolve("seg_1.seg"));
+        Files.writeString(blocker.resolve("lock"), "");
+        when(courseRepository.findAllById(any())).thenReturn(List.of(course("python", 2)));
+        index.onCourseChanged(new CourseChangedEvent("course-1", CourseChangedEvent.Type.UPDATED));
+        index.refresh();
+        assertThat(index.search("python", 0, 10).total()).isZero();
+
+        Files.delete(blocker.resolve("lock"));
+        Files.delete(blocker);
+        index.refresh();
+
+        assertThat(index.search("java", 0, 10).total()).isZero();
+        assertThat(index.search("python", 0, 10).hits())
+                .extracting(SearchHit::courseId)
+                .containsExactly("course-1");
+    }
+
+    private static Course course(String title, long version) {
+        Course course = new Course();
+        course.setId("course-1");
+        course.setTitle(title);
+        course.setVersion(version);
+        return course;
+    }
+}
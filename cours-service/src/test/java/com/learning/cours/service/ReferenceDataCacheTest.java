@@ -0,0 +1,43 @@
+package com.learning.cours.service;
+
+import com.learning.cours.entity.Category;
+import com.learning.cours.repository.CategoryRepository;
+import com.learning.cours.repository.ProfessorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A bulk lookup that read a category before a save invalidated it does not put the
+ * old category back into the cache.
+ */
+class ReferenceDataCacheTest {
+
+    private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+    private final ReferenceDataCache cache = new ReferenceDataCache(categoryRepository,
+            mock(ProfessorRepository.class), new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+
+    @Test
+    void dropsABulkLoadThatRacedAnInvalidation() {
+        Category before = new Category("category-1", "Java", null);
+        Category after = new Category("category-1", "Java and Kotlin", null);
+        when(categoryRepository.findAllById(anyIterable()))
+                .thenAnswer(invocation -> {
+                    cache.onSave(new AfterSaveEvent<>(after, new Document(), "categories"));
+                    return List.of(before);
+                })
+                .thenReturn(List.of(after));
+
+        assertThat(cache.findCategories(List.of("category-1")).get("category-1").getName()).isEqualTo("Java");
+        assertThat(cache.findCategories(List.of("category-1")).get("category-1").getName()).isEqualTo("Java and Kotlin");
+    }
+}
@@ -0,0 +1,27 @@
+package com.learning.inscription.controller;
+
+import com.learning.inscription.service.EnrollmentService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Enrollment exports for other services. Not routed by the gateway.
+ */
+@RestController
+@RequestMapping("/internal/enrollments")
+@RequiredArgsConstructor
+public class InternalEnrollmentController {
+
+    private final EnrollmentService enrollmentService;
+
+    @GetMapping("/course-baskets")
+    public ResponseEntity<List<Set<String>>> getCourseBaskets() {
+        return ResponseEntity.ok(enrollmentService.getCourseBaskets());
+    }
+}
@@ -0,0 +1,13 @@
+package com.learning.inscription.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PopularitySignalDTO {
+    private String type;
+    private long count;
+}
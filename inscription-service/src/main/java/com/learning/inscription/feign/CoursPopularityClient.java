@@ -0,0 +1,15 @@
+package com.learning.inscription.feign;
+
+import com.learning.inscription.dto.PopularitySignalDTO;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+@FeignClient(name = "cours-service", contextId = "coursPopularityClient", path = "/internal/courses",
+        configuration = InternalServiceFeignConfig.class)
+public interface CoursPopularityClient {
+
+    @PostMapping("/{id}/popularity-signals")
+    void recordSignal(@PathVariable String id, @RequestBody PopularitySignalDTO signal);
+}
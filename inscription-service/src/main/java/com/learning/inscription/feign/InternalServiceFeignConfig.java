@@ -0,0 +1,19 @@
+package com.learning.inscription.feign;
+
+import com.learning.inscription.security.InternalServiceTokenFilter;
+import feign.RequestInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Feign configuration of clients calling another service's {@code /internal} endpoints:
+ * sends the shared service token. Not a {@code @Configuration}, so that it only applies
+ * to the clients naming it.
+ */
+public class InternalServiceFeignConfig {
+
+    @Bean
+    public RequestInterceptor internalServiceTokenInterceptor(@Value("${internal.service-token:}") String serviceToken) {
+        return template -> template.header(InternalServiceTokenFilter.HEADER, serviceToken);
+    }
+}
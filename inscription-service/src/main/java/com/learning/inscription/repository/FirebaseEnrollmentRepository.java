@@ -18,6 +18,7 @@ import java.util.stream.Collectors;
 public class FirebaseEnrollmentRepository {
 
     private static final String COLLECTION_NAME = "enrollments";
+    private static final int EXPORT_PAGE_SIZE = 1000;
 
     private Firestore getFirestore() {
         return FirestoreClient.getFirestore();
@@ -142,6 +143,42 @@ public class FirebaseEnrollmentRepository {
         }
     }
 
+    /**
+     * Course ids grouped by student, read page by page with only the two fields
+     * projected.
+     */
+    public Map<String, Set<String>> findCourseIdsByStudent() {
+        try {
+            Firestore db = getFirestore();
+            Map<String, Set<String>> courseIds = new HashMap<>();
+            DocumentSnapshot last = null;
+            while (true) {
+                Query query = db.collection(COLLECTION_NAME)
+                        .select("studentId", "courseId")
+                        .orderBy(FieldPath.documentId())
+                        .limit(EXPORT_PAGE_SIZE);
+                if (last != null) {
+                    query = query.startAfter(last);
+                }
+                List<QueryDocumentSnapshot> documents = query.get().get().getDocuments();
+                for (DocumentSnapshot document : documents) {
+                    String studentId = document.getString("studentId");
+                    String courseId = document.getString("courseId");
+                    if (studentId != null && courseId != null) {
+                        courseIds.computeIfAbsent(studentId, id -> new HashSet<>()).add(courseId);
+                    }
+                }
+                if (documents.size() < EXPORT_PAGE_SIZE) {
+                    return courseIds;
+                }
+                last = documents.get(documents.size() - 1);
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Error reading enrollments for export", e);
+            throw new RuntimeException("Failed to read enrollments", e);
+        }
+    }
+
     private Enrollment documentToEnrollment(DocumentSnapshot document) {
         Enrollment enrollment = new Enrollment();
         enrollment.setId(document.getId());
@@ -2,9 +2,11 @@ package com.learning.inscription.service;
 
 import com.learning.inscription.dto.CourseDTO;
 import com.learning.inscription.dto.EnrollmentDTO;
+import com.learning.inscription.dto.PopularitySignalDTO;
 import com.learning.inscription.entity.Enrollment;
 import com.learning.inscription.exception.BusinessException;
 import com.learning.inscription.exception.ResourceNotFoundException;
+import com.learning.inscription.feign.CoursPopularityClient;
 import com.learning.inscription.feign.CoursServiceClient;
 import com.learning.inscription.repository.FirebaseEnrollmentRepository;
 import com.learning.inscription.repository.FirebaseStudentRepository;
@@ -14,6 +16,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +27,7 @@ public class EnrollmentService {
     private final FirebaseEnrollmentRepository enrollmentRepository;
     private final FirebaseStudentRepository studentRepository;
     private final CoursServiceClient coursServiceClient;
+    private final CoursPopularityClient coursPopularityClient;
 
     public EnrollmentDTO enrollStudent(String studentId, String courseId) {
         log.info("Processing enrollment for student {} in course {}", studentId, courseId);
@@ -52,10 +56,20 @@ public class EnrollmentService {
         
         Enrollment savedEnrollment = enrollmentRepository.save(enrollment);
         log.info("Enrollment created successfully with id: {}", savedEnrollment.getId());
+        recordEnrollmentSignal(courseId);
         
         return convertToDTO(savedEnrollment);
     }
 
+    // Feeds the course popularity ranking; losing one signal must not fail the enrollment
+    private void recordEnrollmentSignal(String courseId) {
+        try {
+            coursPopularityClient.recordSignal(courseId, new PopularitySignalDTO("ENROLLMENT", 1));
+        } catch (FeignException e) {
+            log.warn("Could not record enrollment signal for course {}: {}", courseId, e.getMessage());
+        }
+    }
+
     public List<EnrollmentDTO> getStudentEnrollments(String studentId) {
         log.info("Fetching enrollments for student: {}", studentId);
         List<Enrollment> enrollments = enrollmentRepository.findByStudentId(studentId);
@@ -109,4 +123,14 @@ public class EnrollmentService {
         
         return dto;
     }
+
+    /**
+     * Anonymized co-enrollment export: the set of course ids of every student who
+     * follows at least two courses, without the student ids.
+     */
+    public List<Set<String>> getCourseBaskets() {
+        return enrollmentRepository.findCourseIdsByStudent().values().stream()
+                .filter(courseIds -> courseIds.size() > 1)
+                .collect(Collectors.toList());
+    }
 }
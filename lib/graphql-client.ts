@@ -44,23 +44,28 @@ export const GET_COURSE = gql`
 `
 
 export const GET_COURSES = gql`
-  query GetCourses($page: Int, $size: Int) {
-    courses(page: $page, size: $size) {
-      content {
-        id
-        title
-        description
-        price
-        youtubeVideoId
-        professor {
-          fullName
-        }
-        category {
-          name
+  query GetCourses($first: Int, $after: String, $filter: CourseFilter) {
+    courses(first: $first, after: $after, filter: $filter) {
+      edges {
+        cursor
+        node {
+          id
+          title
+          description
+          price
+          youtubeVideoId
+          professor {
+            fullName
+          }
+          category {
+            name
+          }
         }
       }
-      totalElements
-      totalPages
+      pageInfo {
+        hasNextPage
+        endCursor
+      }
     }
   }
 `
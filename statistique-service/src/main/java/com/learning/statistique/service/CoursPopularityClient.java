@@ -0,0 +1,50 @@
+package com.learning.statistique.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Reports new video views to cours-service, which ranks courses by popularity.
+ * Best effort: a failed report is logged and dropped.
+ */
+@Component
+@Slf4j
+public class CoursPopularityClient {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(2);
+    // Checked by cours-service on every /internal call
+    private static final String SERVICE_TOKEN_HEADER = "X-Internal-Token";
+
+    private final WebClient webClient;
+
+    // A dedicated client: the shared WebClient calls the YouTube API, which is not behind Eureka
+    public CoursPopularityClient(WebClient.Builder builder,
+                                 ReactorLoadBalancerExchangeFilterFunction loadBalancer,
+                                 @Value("${cours-service.url:http://cours-service}") String baseUrl,
+                                 @Value("${internal.service-token:}") String serviceToken) {
+        this.webClient = builder.clone()
+                .baseUrl(baseUrl)
+                .defaultHeader(SERVICE_TOKEN_HEADER, serviceToken)
+                .filter(loadBalancer)
+                .build();
+    }
+
+    public void recordViews(String courseId, long views) {
+        try {
+            webClient.post()
+                    .uri("/internal/courses/{id}/popularity-signals", courseId)
+                    .bodyValue(Map.of("type", "VIEWS", "count", views))
+                    .retrieve()
+                    .toBodilessEntity()
+                    .block(TIMEOUT);
+        } catch (Exception e) {
+            log.warn("Could not record {} views for course {}: {}", views, courseId, e.getMessage());
+        }
+    }
+}
@@ -18,6 +18,7 @@ public class StatistiqueService {
 
     private final VideoStatisticRepository statisticRepository;
     private final YouTubeService youTubeService;
+    private final CoursPopularityClient coursPopularityClient;
 
     public VideoStatisticDTO fetchAndSaveStatistics(String courseId, String youtubeVideoId) {
         log.info("Fetching statistics for course {} with YouTube video {}", courseId, youtubeVideoId);
@@ -47,9 +48,17 @@ public class StatistiqueService {
             statistic.setComments(parseLong(item.getStatistics().getCommentCount()));
         }
         
+        long previousViews = statisticRepository.findTopByYoutubeVideoIdOrderByFetchedAtDesc(youtubeVideoId)
+                .map(VideoStatistic::getViews)
+                .orElse(0L);
         VideoStatistic saved = statisticRepository.save(statistic);
         log.info("Statistics saved successfully for video: {}", youtubeVideoId);
         
+        long newViews = (saved.getViews() != null ? saved.getViews() : 0L) - previousViews;
+        if (newViews > 0) {
+            coursPopularityClient.recordViews(courseId, newViews);
+        }
+        
         return convertToDTO(saved);
     }
 